@@ -0,0 +1,102 @@
+/* BidirectionalPathTest prova della BFS bidirezionale di GraphMap */
+
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphMap.distanceInBetween() e
+		pathInBetween() senza cache né indice delle componenti, cioè
+		con la BFS bidirezionale: su cicli pari e dispari, griglie, stelle
+		di stelle e grafi casuali sconnessi confronta distanze e cammini
+		con la BFS semplice del modello ReferenceGraph, per tutte le
+		coppie dei grafi piccoli e per coppie casuali degli altri.
+		Uso: java BidirectionalPathTest [grafi] [seme]
+*******************************************************************************/
+public class BidirectionalPathTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			GraphMap<Integer> g;
+			switch( t%4 ){
+				case 0: g = cycle(3+rnd.nextInt(30)); break;
+				case 1: g = grid(1+rnd.nextInt(8), 1+rnd.nextInt(8)); break;
+				case 2: g = stars(1+rnd.nextInt(5), 1+rnd.nextInt(10)); break;
+				default:
+					int n = 1+rnd.nextInt(200);
+					g = ReferenceGraph.random(rnd, n, rnd.nextInt(2*n));
+			}
+			error = check(g, rnd);
+			if( error!=null ) error = "grafo "+t+": "+error;
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	private static String check(GraphMap<Integer> g, Random rnd)
+	{
+		ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+		int n = g.numVertex();
+		boolean all = n<=40;
+		for(int q=0; q<(all ? n*n : 400); q++){
+			Integer v = all ? q/n : rnd.nextInt(n),
+					w = all ? q%n : rnd.nextInt(n);
+			int d = g.distanceInBetween(v, w);
+			if( d!=ref.distance(v, w) )
+				return "distanceInBetween("+v+", "+w+")="+d+
+					   " invece di "+ref.distance(v, w);
+			String error = ref.checkPath(v, w, g.pathInBetween(v, w));
+			if( error!=null ) return error;
+		}
+		try{
+			g.distanceInBetween(0, n);
+			return "distanceInBetween() su un vertice inesistente";
+		}
+		catch(IllegalArgumentException exc){}
+		return null;
+	}
+
+
+	/* ciclo di n vertici */
+	private static GraphMap<Integer> cycle(int n)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		for(int v=0; v<n; v++) g.addVertex(v);
+		for(int v=0; v<n; v++) g.addEdge(v, (v+1)%n);
+		return g;
+	}
+
+	/* griglia di r righe e c colonne */
+	private static GraphMap<Integer> grid(int r, int c)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		for(int v=0; v<r*c; v++) g.addVertex(v);
+		for(int v=0; v<r*c; v++){
+			if( v%c+1<c ) g.addEdge(v, v+1);
+			if( v+c<r*c ) g.addEdge(v, v+c);
+		}
+		return g;
+	}
+
+	/* k stelle di s foglie con i centri in cammino: frontiere molto
+	   sbilanciate fra i due lati */
+	private static GraphMap<Integer> stars(int k, int s)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		int n = k*(s+1);
+		for(int v=0; v<n; v++) g.addVertex(v);
+		for(int i=0; i<k; i++){
+			int center = i*(s+1);
+			for(int j=1; j<=s; j++) g.addEdge(center, center+j);
+			if( i>0 ) g.addEdge(center, center-s-1);
+		}
+		return g;
+	}
+}
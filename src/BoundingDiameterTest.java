@@ -0,0 +1,114 @@
+/* BoundingDiameterTest prova del diametro esatto con BoundingDiameters */
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphDiameter.bounding(): su grafi formati
+		da più componenti di forma diversa (cammini, cicli, stelle,
+		componenti casuali e vertici isolati) con gli id permutati,
+		confronta il diametro con quello del modello ReferenceGraph e
+		verifica che le BFS eseguite siano al più una per vertice;
+		infine stampa le BFS necessarie su un grafo con vertici di grado
+		elevato, come i grafi sociali.
+		Uso: java BoundingDiameterTest [grafi] [seme]
+*******************************************************************************/
+public class BoundingDiameterTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 500;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			GraphMap<Integer> g = components(rnd);
+			GraphDiameter.Result r = g.diameterInfo();
+			int expected = new ReferenceGraph<Integer>(g).diameter();
+			if( r.diameter()!=expected )
+				error = "diametro "+r.diameter()+" invece di "+expected;
+			else if( r.traversals()>g.numVertex() )
+				error = r.traversals()+" BFS su "+g.numVertex()+" vertici";
+			else if( g.graphDiameter()!=expected )
+				error = "graphDiameter() diverso da diameterInfo()";
+			if( error!=null ) error = "grafo "+t+" "+g.numVertex()+": "+error;
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+
+		GraphMap<Integer> social = preferential(new Random(seed), 20000, 3);
+		long t0 = System.nanoTime();
+		GraphDiameter.Result r = social.diameterInfo();
+		long t1 = System.nanoTime();
+		System.out.println(social.numVertex()+" vertici: "+r+" in "+
+						   (t1-t0)/1000000+" ms");
+	}
+
+
+	/* unione di componenti di forma diversa, id permutati */
+	private static GraphMap<Integer> components(Random rnd)
+	{
+		List<int[]> edges = new ArrayList<int[]>();
+		int n = 0;
+		for(int c=rnd.nextInt(5); c>=0; c--){
+			int size = 1+rnd.nextInt(25);
+			switch( rnd.nextInt(4) ){
+				case 0:
+					for(int k=1; k<size; k++) edges.add(new int[]{ n+k-1, n+k });
+					break;
+				case 1:
+					for(int k=0; k<size && size>2; k++)
+						edges.add(new int[]{ n+k, n+(k+1)%size });
+					break;
+				case 2:
+					for(int k=1; k<size; k++) edges.add(new int[]{ n, n+k });
+					break;
+				default:
+					for(int k=rnd.nextInt(2*size+1); k>0; k--)
+						edges.add(new int[]{ n+rnd.nextInt(size), n+rnd.nextInt(size) });
+			}
+			n += size;
+		}
+
+		List<Integer> id = new ArrayList<Integer>();
+		for(int v=0; v<n; v++) id.add(v);
+		Collections.shuffle(id, rnd);
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		for(int v=0; v<n; v++) g.addVertex(v);
+		for(int[] e: edges){
+			int v = id.get(e[0]),
+				w = id.get(e[1]);
+			if( v!=w && !g.existsEdge(v, w) ) g.addEdge(v, w);
+		}
+		return g;
+	}
+
+
+	/* grafo ad aggancio preferenziale: ogni nuovo vertice si collega a m
+	   estremi di archi esistenti */
+	private static GraphMap<Integer> preferential(Random rnd, int n, int m)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		List<Integer> ends = new ArrayList<Integer>();
+		g.addVertex(0);
+		ends.add(0);
+		for(int v=1; v<n; v++){
+			g.addVertex(v);
+			for(int k=0; k<m; k++){
+				int w = ends.get(rnd.nextInt(ends.size()));
+				if( w!=v && !g.existsEdge(v, w) ){
+					g.addEdge(v, w);
+					ends.add(w);
+					ends.add(v);
+				}
+			}
+			if( g.degreeVertex(v)==0 ) ends.add(v);
+		}
+		return g;
+	}
+}
@@ -0,0 +1,83 @@
+/* CommonNeighboursTest confronto delle intersezioni degli adiacenti */
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+
+/*******************************************************************************
+		Classe per la prova di commonNeighbours() e countCommonNeighbours()
+		di GraphMap e GraphCSR: su grafi casuali con un vertice di grado
+		elevato, così che siano usate sia la fusione lineare sia la
+		ricerca esponenziale, confronta le intersezioni con quelle
+		enumerate dal modello ReferenceGraph.
+		Uso: java CommonNeighboursTest [grafi] [seme]
+*******************************************************************************/
+public class CommonNeighboursTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			GraphMap<Integer> g = random(rnd);
+			GraphCSR<Integer> c = g.freeze();
+			ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+			for(int q=0; q<50 && error==null; q++){
+				int n = g.numVertex(),
+					v = rnd.nextBoolean() ? 0 : rnd.nextInt(n),
+					w = rnd.nextInt(n);
+				error = check(g, c, ref, v, w);
+				if( error==null ) error = check(g, c, ref, w, v);
+				if( error!=null ) error = "grafo "+t+": "+error;
+			}
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* grafo casuale sparso con il vertice 0 di grado fino a n-1 */
+	private static GraphMap<Integer> random(Random rnd)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		int n = 2+rnd.nextInt(3000);
+		for(int v=0; v<n; v++) g.addVertex(v);
+		for(int k=rnd.nextInt(n); k>0; k--){
+			int w = 1+rnd.nextInt(n-1);
+			if( !g.existsEdge(0, w) ) g.addEdge(0, w);
+		}
+		for(int k=rnd.nextInt(4*n); k>0; k--){
+			int v = 1+rnd.nextInt(n-1),
+				w = rnd.nextInt(n);
+			if( v!=w && !g.existsEdge(v, w) ) g.addEdge(v, w);
+		}
+		return g;
+	}
+
+
+	/* confronta le intersezioni di v e w con quelle del modello */
+	private static String check(GraphMap<Integer> g, GraphCSR<Integer> c,
+								ReferenceGraph<Integer> ref, int v, int w)
+	{
+		List<Integer> expected = ref.commonNeighbours(v, w),
+					  map = g.commonNeighbours(v, w)
+							 .collect(Collectors.toList()),
+					  csr = c.commonNeighbours(v, w)
+							 .collect(Collectors.toList());
+		if( !map.equals(expected) )
+			return "GraphMap.commonNeighbours("+v+", "+w+")="+map+
+				   " invece di "+expected;
+		if( !csr.equals(expected) )
+			return "GraphCSR.commonNeighbours("+v+", "+w+")="+csr+
+				   " invece di "+expected;
+		if( g.countCommonNeighbours(v, w)!=expected.size() ||
+			c.countCommonNeighbours(v, w)!=expected.size() )
+			return "countCommonNeighbours("+v+", "+w+") errato";
+		return null;
+	}
+}
@@ -0,0 +1,377 @@
+/* ComponentIndex<E> componenti connesse di un GraphMap<E> mantenute al volo */
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.SortedMap;
+import java.util.Set;
+import java.util.Arrays;
+import java.util.ArrayDeque;
+
+
+public class ComponentIndex<E extends Comparable<E>>
+							implements ConnectivityIndex<E>
+{
+	/*
+		OVERVIEW:= indice delle componenti connesse di un GraphMap<E>,
+				   aggiornato come GraphListener: union-find (unione per
+				   dimensione, dimezzamento dei cammini) sulle aggiunte di
+				   vertici ed archi, in tempo O(α(n)); le rimozioni
+				   segnano soltanto la componente interessata come da
+				   ricalcolare, e la ricalcolano alla prima interrogazione
+				   che la tocca, in tempo O(V+E) della sola componente.
+				   Richiede che equals() e hashCode() di E siano coerenti
+				   con compareTo().
+
+		AF:= {C_r | r radice, parent[r]==r} dove
+			 C_r = {name[i] | alive[i] && find(i)==r}
+			 è una componente connessa di graph se !dirty[r], l'unione di
+			 una o più componenti connesse altrimenti
+
+		IR:= ids.get(name[i])==i perogni i vivo
+			 && gli i con find(i)==r formano il ciclo next[] di r
+			 && size[r]==|ciclo di r| && min[r]==min{name[i] vivi del ciclo}
+			 && count==numero di radici
+			 && perogni arco <v,w> di graph => find(id v)==find(id w)
+			 && perogni radice r, dirty[r] => r appartiene a dirtyRoots
+	*/
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private final GraphMap<E> graph;
+	private final Map<E, Integer> ids = new HashMap<E, Integer>();
+	private final ArrayDeque<Integer> dirtyRoots = new ArrayDeque<Integer>();
+	private Object[] name, min;
+	private int[] parent, size, next, free;
+	private boolean[] alive, dirty;
+	private int used, num_free, count;
+
+
+	/***************************************************************************
+								Costruttore:
+			costruisce l'indice del grafo passato e si registra come suo
+			osservatore.
+	***************************************************************************/
+	public ComponentIndex(GraphMap<E> g)
+	{
+		if( g==null ) throw new NullPointerException("passato oggetto nullo");
+		this.graph = g;
+		rebuild();
+		g.addListener(this);
+	}
+	/*
+		EFFECTS: calcola le componenti di g in tempo O((V+E) α(V)).
+				 Se g==null lancia NullPointerException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Ricostruisce l'indice dall'intero contenuto del grafo.
+	***************************************************************************/
+	private void rebuild()
+	{
+		int n = Math.max(16, graph.numVertex());
+		name = new Object[n];
+		min = new Object[n];
+		parent = new int[n];
+		size = new int[n];
+		next = new int[n];
+		free = new int[n];
+		alive = new boolean[n];
+		dirty = new boolean[n];
+		used = num_free = count = 0;
+		ids.clear();
+		dirtyRoots.clear();
+		for(E v: graph) singleton(v);
+		for(E v: graph){
+			int i = ids.get(v);
+			for(E w: graph.adjacentVertex(v).tailSet(v, false))
+				union(i, ids.get(w));
+		}
+	}
+
+
+	/***************************************************************************
+			Operazioni di union-find sugli id interi dei vertici.
+	***************************************************************************/
+	private int singleton(E v)
+	{
+		int i;
+		if( num_free>0 ) i = free[--num_free];
+		else{
+			if( used==name.length ) grow();
+			i = used++;
+		}
+		ids.put(v, i);
+		reset(i, v);
+		count++;
+		return i;
+	}
+
+	private void reset(int i, E v)
+	{
+		name[i] = v;
+		min[i] = v;
+		parent[i] = i;
+		size[i] = 1;
+		next[i] = i;
+		alive[i] = true;
+		dirty[i] = false;
+	}
+
+	private void grow()
+	{
+		int n = 2*name.length;
+		name = Arrays.copyOf(name, n);
+		min = Arrays.copyOf(min, n);
+		parent = Arrays.copyOf(parent, n);
+		size = Arrays.copyOf(size, n);
+		next = Arrays.copyOf(next, n);
+		free = Arrays.copyOf(free, n);
+		alive = Arrays.copyOf(alive, n);
+		dirty = Arrays.copyOf(dirty, n);
+	}
+
+	private int find(int i)
+	{
+		while( parent[i]!=i ){
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void union(int i, int j)
+	{
+		int a = find(i),
+			b = find(j);
+		if( a==b ) return;
+		if( size[a]<size[b] ){
+			int aux = a;
+			a = b;
+			b = aux;
+		}
+		parent[b] = a;
+		size[a] += size[b];
+		int aux = next[a];
+		next[a] = next[b];
+		next[b] = aux;
+		if( ((E) min[b]).compareTo((E) min[a])<0 ) min[a] = min[b];
+		if( dirty[b] ) mark(a);
+		count--;
+	}
+
+	private void mark(int r)
+	{
+		if( dirty[r] ) return;
+		dirty[r] = true;
+		dirtyRoots.add(r);
+	}
+	/*
+		EFFECTS: union() fonde le componenti di i e j appendendo la minore
+				 alla maggiore e concatenando i loro cicli di membri in O(1);
+				 la componente risultante è da ricalcolare se lo era una
+				 delle due.
+	*/
+
+
+	/***************************************************************************
+			Ricalcola la componente di radice r: ogni membro vivo torna
+			un singoletto, quelli rimossi liberano il proprio id, poi
+			vengono riunite le coppie adiacenti nel grafo.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	private void clean(int r)
+	{
+		int[] members = new int[size[r]];
+		int n = 0,
+			i = r;
+		do{
+			members[n++] = i;
+			i = next[i];
+		}while( i!=r );
+
+		count--;
+		for(int k=0; k<n; k++){
+			int m = members[k];
+			if( alive[m] ){
+				reset(m, (E) name[m]);
+				count++;
+			}
+			else{
+				name[m] = min[m] = null;
+				parent[m] = m;
+				dirty[m] = false;
+				free[num_free++] = m;
+			}
+		}
+		for(int k=0; k<n; k++){
+			int m = members[k];
+			if( !alive[m] ) continue;
+			E v = (E) name[m];
+			for(E w: graph.adjacentVertex(v).tailSet(v, false))
+				union(m, ids.get(w));
+		}
+	}
+
+	private void cleanAll()
+	{
+		while( !dirtyRoots.isEmpty() ){
+			int r = dirtyRoots.poll();
+			if( parent[r]==r && dirty[r] ) clean(r);
+		}
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: clean() costa O(V+E) della componente; cleanAll() ricalcola
+				 tutte le componenti segnate.
+	*/
+
+
+	/***************************************************************************
+			Restituisce la radice aggiornata della componente di v.
+	***************************************************************************/
+	private int root(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		Integer i = ids.get(v);
+		if( i==null ) throw new IllegalArgumentException(v+" non e' un vertice");
+		int r = find(i);
+		if( dirty[r] ){
+			clean(r);
+			r = find(i);
+		}
+		return r;
+	}
+
+
+	/***************************************************************************
+			Restituisce true se esiste un cammino tra v e w.
+	***************************************************************************/
+	public boolean connected(E v, E w)
+	{
+		int a = root(v),
+			b = root(w);
+		return a==b;
+	}
+	/*
+		EFFECTS: restituisce true se v e w appartengono alla stessa
+				 componente connessa, in tempo O(α(n)) se nessuna delle due
+				 è da ricalcolare.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il rappresentante della componente di v.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	public E componentOf(E v)
+	{
+		return (E) min[root(v)];
+	}
+	/*
+		EFFECTS: restituisce il vertice minore (compareTo) della componente
+				 connessa di v, che non dipende dall'ordine delle modifiche.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il numero di vertici della componente di v.
+	***************************************************************************/
+	public int componentSize(E v)
+	{
+		return size[root(v)];
+	}
+	/*
+		EFFECTS: Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Restituisce il numero di componenti connesse.
+	***************************************************************************/
+	public int componentCount()
+	{
+		cleanAll();
+		return count;
+	}
+
+
+	/***************************************************************************
+			Restituisce la dimensione di ogni componente connessa.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	public SortedMap<E, Integer> componentSizes()
+	{
+		cleanAll();
+		SortedMap<E, Integer> sizes = new TreeMap<E, Integer>();
+		for(int i=0; i<used; i++)
+			if( alive[i] && parent[i]==i ) sizes.put((E) min[i], size[i]);
+		return sizes;
+	}
+	/*
+		EFFECTS: restituisce una mappa dal rappresentante (vedi componentOf())
+				 di ogni componente al suo numero di vertici.
+	*/
+
+
+	/***************************************************************************
+			Smette di osservare il grafo: l'indice non viene più
+			aggiornato.
+	***************************************************************************/
+	public void detach()
+	{
+		graph.removeListener(this);
+	}
+
+
+	/***************************************************************************
+			Implementazione di GraphListener<E>.
+	***************************************************************************/
+	public void vertexAdded(E v)
+	{
+		singleton(v);
+	}
+
+	public void edgeAdded(E v, E w)
+	{
+		union(ids.get(v), ids.get(w));
+	}
+
+	public void edgeRemoved(E v, E w)
+	{
+		mark(find(ids.get(v)));
+	}
+
+	public void vertexIsolated(E v, Set<E> neighbours)
+	{
+		if( !neighbours.isEmpty() ) mark(find(ids.get(v)));
+	}
+
+	public void vertexRemoved(E v, Set<E> neighbours)
+	{
+		int i = ids.remove(v);
+		alive[i] = false;
+		mark(find(i));
+	}
+
+	public void cleared()
+	{
+		rebuild();
+	}
+
+	public void reloaded()
+	{
+		rebuild();
+	}
+}
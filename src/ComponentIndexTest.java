@@ -0,0 +1,163 @@
+/* ComponentIndexTest prova dell'indice incrementale delle componenti */
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.Random;
+import java.lang.reflect.MalformedParametersException;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphMap.enableComponentIndex(): attiva
+		l'indice su un grafo già popolato e lo confronta con le
+		componenti del modello ReferenceGraph dopo transazioni casuali
+		(anche annullate), ricaricamenti in blocco da GraphMapBuilder e
+		modifiche dirette; verifica inoltre le eccezioni, detach() e la
+		sostituzione con DynamicConnectivity.
+		Uso: java ComponentIndexTest [passi] [vertici] [seme]
+*******************************************************************************/
+public class ComponentIndexTest
+{
+	public static void
+	main(String[] args)
+	{
+		int steps = args.length>0 ? Integer.parseInt(args[0]) : 5000,
+			n = args.length>1 ? Integer.parseInt(args[1]) : 40;
+		long seed = args.length>2 ? Long.parseLong(args[2]) : 42;
+
+		String error = lifecycle();
+		if( error==null ) error = random(steps, n, new Random(seed));
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* eccezioni, detach() e sostituzione dell'indice */
+	private static String lifecycle()
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>();
+		g.addVertex(1);
+		g.addVertex(2);
+		ComponentIndex<Integer> index = g.enableComponentIndex();
+		if( g.enableComponentIndex()!=index || g.componentIndex()!=index )
+			return "enableComponentIndex() non restituisce l'indice attivo";
+		try{
+			index.connected(1, 3);
+			return "connected() su un vertice inesistente";
+		}
+		catch(IllegalArgumentException exc){}
+		try{
+			index.componentOf(null);
+			return "componentOf(null) accettato";
+		}
+		catch(NullPointerException exc){}
+
+		g.enableDynamicConnectivity();
+		g.addEdge(1, 2);
+		if( index.connected(1, 2) )
+			return "indice sostituito ancora aggiornato";
+		if( !g.componentIndex().connected(1, 2) )
+			return "DynamicConnectivity non aggiornato";
+		g.disableComponentIndex();
+		if( g.componentIndex()!=null ) return "indice non disattivato";
+		return null;
+	}
+
+
+	/* modifiche casuali confrontate con la visita dopo ogni passo */
+	private static String random(int steps, int n, Random rnd)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		for(int v=0; v<n; v++) g.addVertex(v);
+		for(int k=0; k<n/2; k++) addEdge(g, rnd.nextInt(n), rnd.nextInt(n));
+		ComponentIndex<Integer> index = g.enableComponentIndex();
+
+		for(int s=0; s<steps; s++){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(n);
+			switch( rnd.nextInt(12) ){
+				case 0:
+					if( rnd.nextInt(20)==0 ) reload(g, n, rnd);
+					break;
+				case 1: case 2: case 3:{
+					GraphMap<Integer>.Transaction t = g.begin();
+					for(int k=rnd.nextInt(5); k>=0; k--){
+						int a = rnd.nextInt(n),
+							b = rnd.nextInt(n);
+						switch( rnd.nextInt(4) ){
+							case 0: t.addVertex(a); break;
+							case 1: t.removeVertex(a); break;
+							case 2: t.removeEdge(a, b); break;
+							default: t.addEdge(a, b);
+						}
+					}
+					try{
+						t.commit();
+					}
+					catch(IllegalArgumentException |
+						  MalformedParametersException exc){}
+					break;
+				}
+				default:
+					try{
+						switch( rnd.nextInt(6) ){
+							case 0: g.removeVertex(v); break;
+							case 1: g.isolateVertex(v); break;
+							case 2: g.addVertex(v); break;
+							case 3: g.removeEdge(v, w); break;
+							default: g.addEdge(v, w);
+						}
+					}
+					catch(IllegalArgumentException |
+						  MalformedParametersException exc){}
+			}
+			String error = check(g, index);
+			if( error!=null ) return "passo "+s+": "+error;
+		}
+		return null;
+	}
+
+
+	/* svuota il grafo e lo ricarica in blocco (notifica reloaded()) */
+	private static void reload(GraphMap<Integer> g, int n, Random rnd)
+	{
+		g.removeAllVertex();
+		GraphMapBuilder<Integer> b = new GraphMapBuilder<Integer>();
+		for(int v=0; v<n; v++)
+			if( rnd.nextBoolean() ) b.addVertex(v);
+		for(int k=rnd.nextInt(n); k>0; k--)
+			b.addEdge(rnd.nextInt(n), rnd.nextInt(n));
+		b.fill(g);
+	}
+
+	private static void addEdge(GraphMap<Integer> g, int v, int w)
+	{
+		if( v!=w && !g.existsEdge(v, w) ) g.addEdge(v, w);
+	}
+
+
+	/* confronta l'indice con le componenti del modello */
+	private static String check(GraphMap<Integer> g, ComponentIndex<Integer> index)
+	{
+		ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+		Map<Integer, Integer> rep = ref.components();
+		SortedMap<Integer, Integer> sizes = ref.componentSizes();
+
+		if( index.componentCount()!=sizes.size() )
+			return index.componentCount()+" componenti invece di "+sizes.size();
+		if( !index.componentSizes().equals(sizes) )
+			return "componentSizes() "+index.componentSizes()+" invece di "+sizes;
+		Integer first = null;
+		for(Integer v: g){
+			if( !index.componentOf(v).equals(rep.get(v)) )
+				return "componentOf("+v+")="+index.componentOf(v)+
+					   " invece di "+rep.get(v);
+			if( index.componentSize(v)!=sizes.get(rep.get(v)) )
+				return "componentSize("+v+") errata";
+			if( first!=null &&
+				index.connected(first, v)!=rep.get(first).equals(rep.get(v)) )
+				return "connected("+first+", "+v+") errata";
+			first = v;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,541 @@
+/* ConcurrentGraphMap<E> grafo modificabile condivisibile fra thread */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.NavigableSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.lang.reflect.MalformedParametersException;
+
+
+public class ConcurrentGraphMap<E extends Comparable<E>>
+									implements Iterable<E>, Graph<E>
+{
+	/*
+		OVERVIEW:= tipo modificabile degli insiemi di oggetti omogenei generici
+				   di tipo E, gestiti come un grafo condivisibile fra thread:
+				   le letture non acquisiscono lock, le modifiche acquisiscono
+				   i lock delle strisce dei vertici coinvolti, sempre in ordine
+				   crescente di striscia, cosicché ogni arco viene aggiunto o
+				   rimosso in entrambe le direzioni in modo atomico rispetto
+				   agli altri scrittori.
+
+		AF:= <V,A> dove
+			 V = st.keySet(),
+			 A = {
+					<x,y> | st.containsKey(x) &&
+							st.containsKey(y) &&
+							st.get(x).contains(y)
+				 }
+
+		IR:= come GraphMap<E>, con num_edge.get() al posto di num_edge e
+			 num_vertex.get()==st.size(), in ogni istante in cui nessuno
+			 scrittore possiede un lock.
+			 && perogni modifica della coppia <x,y> => lo scrittore possiede
+				locks[stripe(x)] e locks[stripe(y)]
+	*/
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private static final int STRIPES = 64;
+
+	private final ConcurrentSkipListMap<E, ConcurrentSkipListSet<E>> st =
+		new ConcurrentSkipListMap<E, ConcurrentSkipListSet<E>>();
+	private final AtomicInteger num_edge = new AtomicInteger(0);
+	private final AtomicInteger num_vertex = new AtomicInteger(0);
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+
+	/***************************************************************************
+			Controlla la correttazza dell'invariante di rappresentazione
+	***************************************************************************/
+	private void repOk()
+	{
+		long somma = 0;
+		for(Map.Entry<E, ConcurrentSkipListSet<E>> keyValue: st.entrySet()){
+			E v = keyValue.getKey();
+			for(E friend: keyValue.getValue()){
+				ConcurrentSkipListSet<E> back = st.get(friend);
+				if( friend.compareTo(v)==0 || back==null || !back.contains(v) )
+					throw new RepInvariantException("infranto repInvariant");
+				somma++;
+			}
+		}
+		if( num_edge.get()!=somma/2 || somma%2!=0 ||
+			num_vertex.get()!=st.size()
+		) throw new RepInvariantException("infranto repInvariant");
+	}
+	/*
+		EFFECTS: se l'invariante di rappresentazione è infranto,
+				 lancia RepInvariantException (unchecked); va invocato
+				 possedendo tutti i lock.
+	*/
+
+
+	/***************************************************************************
+			Verifica l'invariante bloccando per la durata del
+			controllo tutti gli scrittori.
+	***************************************************************************/
+	public void validate()
+	{
+		lock(-1L);
+		try{ repOk(); }
+		finally{ unlock(-1L); }
+	}
+
+
+	/***************************************************************************
+							Costruttore:
+							istanzia un ConcurrentGraphMap vuoto.
+	***************************************************************************/
+	public ConcurrentGraphMap()
+	{
+		for(int i=0; i<STRIPES; i++) locks[i] = new ReentrantLock();
+	}
+
+
+	/***************************************************************************
+			Gestione dei lock a strisce: la striscia di un vertice è
+			data dal suo hashCode, un insieme di strisce da una maschera
+			di bit, acquisita in ordine crescente di bit per evitare
+			stalli fra scrittori.
+	***************************************************************************/
+	private static long bit(Object v)
+	{
+		int h = v.hashCode();
+		h ^= h>>>16;
+		return 1L<<(h&(STRIPES-1));
+	}
+
+	private void lock(long mask)
+	{
+		for(int i=0; i<STRIPES; i++)
+			if( (mask&(1L<<i))!=0 ) locks[i].lock();
+	}
+
+	private void unlock(long mask)
+	{
+		for(int i=STRIPES-1; i>=0; i--)
+			if( (mask&(1L<<i))!=0 ) locks[i].unlock();
+	}
+	/*
+		EFFECTS: il tipo E deve avere hashCode coerente con compareTo
+				 (elementi uguali per compareTo hanno lo stesso hashCode).
+	*/
+
+
+	/***************************************************************************
+				Override iterator di Iterable<E>:
+				restituisce un iteratore sugli elementi di tipo E del grafo.
+	***************************************************************************/
+	public Iterator<E> iterator()
+	{
+		return Collections.unmodifiableSet(st.keySet()).iterator();
+	}
+	/*
+		EFFECTS: restituisce un iteratore debolmente consistente sui vertici in
+				 ordine crescente, che non lancia mai
+				 ConcurrentModificationException.
+	*/
+
+
+	/***************************************************************************
+						Controllano l'esistenza di vertici ed archi.
+	***************************************************************************/
+	public boolean existsVertex(E v)
+	{
+		return st.containsKey(v);
+	}
+
+	public boolean existsEdge(E v, E w)
+	{
+		ConcurrentSkipListSet<E> friends = neighbours(v);
+		checkVertex(w);
+		return friends.contains(w);
+	}
+
+
+	/***************************************************************************
+				Lanciano una eccezione in caso il vertice non esista.
+	***************************************************************************/
+	private void checkVertex(E v)
+	{
+		neighbours(v);
+	}
+
+	private ConcurrentSkipListSet<E> neighbours(E v)
+	{
+		ConcurrentSkipListSet<E> friends = st.get(v);
+		if( friends==null )
+			throw new IllegalArgumentException(v+" non e' un vertice");
+		return friends;
+	}
+
+
+	/***************************************************************************
+					Restituiscono il numero di vertici e di archi.
+	***************************************************************************/
+	public int numVertex()
+	{
+		return num_vertex.get();
+	}
+
+	public int numEdge()
+	{
+		return num_edge.get();
+	}
+
+
+	/***************************************************************************
+						Aggiunge un vertice al grafo.
+	***************************************************************************/
+	public void addVertex(E v)
+	{
+		long mask = bit(v);
+		lock(mask);
+		try{
+			if( st.putIfAbsent(v, new ConcurrentSkipListSet<E>())!=null )
+				throw new MalformedParametersException(v+" e' gia' presente");
+			num_vertex.incrementAndGet();
+		}
+		finally{ unlock(mask); }
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: aggiunge la coppia <v, {}> alla mappa.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v è già presente lancia MalformedParametersException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Acquisisce i lock di v e dei suoi adiacenti ed esegue action
+			sull'insieme degli adiacenti, che non può cambiare finché
+			i lock sono posseduti.
+	***************************************************************************/
+	private void withNeighbourhood(E v,
+								   Consumer<ConcurrentSkipListSet<E>> action)
+	{
+		long mask = bit(v);
+		for(E w: neighbours(v)) mask |= bit(w);
+		for(;;){
+			long held = mask;
+			lock(held);
+			try{
+				ConcurrentSkipListSet<E> friends = neighbours(v);
+				long need = bit(v);
+				for(E w: friends) need |= bit(w);
+				if( (need&~held)==0 ){
+					action.accept(friends);
+					return;
+				}
+				mask = held|need;
+			}
+			finally{ unlock(held); }
+		}
+	}
+	/*
+		EFFECTS: se dopo l'acquisizione i lock non coprono tutti gli adiacenti
+				 (un arco è stato aggiunto nel frattempo) li rilascia e
+				 riprova con l'insieme di strisce esteso.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+						Rimuove un vertice dal grafo.
+	***************************************************************************/
+	public void removeVertex(E v)
+	{
+		withNeighbourhood(v, friends->{
+			for(E w: friends){
+				st.get(w).remove(v);
+				num_edge.decrementAndGet();
+			}
+			st.remove(v);
+			num_vertex.decrementAndGet();
+		});
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: rimuove v da ogni insieme dei suoi adiacenti, poi la coppia
+				 <v, st.get(v)> dalla mappa.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+						Rimuove tutti gli archi di un vertice.
+	***************************************************************************/
+	public void isolateVertex(E v)
+	{
+		withNeighbourhood(v, friends->{
+			for(E w: friends){
+				st.get(w).remove(v);
+				friends.remove(w);
+				num_edge.decrementAndGet();
+			}
+		});
+	}
+
+
+	/***************************************************************************
+							Rimuove tutti i vertici.
+	***************************************************************************/
+	public void removeAllVertex()
+	{
+		lock(-1L);
+		try{
+			st.clear();
+			num_edge.set(0);
+			num_vertex.set(0);
+		}
+		finally{ unlock(-1L); }
+	}
+
+
+	/***************************************************************************
+					Aggiunge un arco tra due vertici del grafo.
+	***************************************************************************/
+	public void addEdge(E v, E w)
+	{
+		long mask = bit(v)|bit(w);
+		lock(mask);
+		try{
+			ConcurrentSkipListSet<E> a = neighbours(v),
+									 b = neighbours(w);
+			if( v.compareTo(w)==0 )
+				throw new MalformedParametersException( "<"+v+", "+w+">"+
+														" è un cappio" );
+			if( !a.add(w) )
+				throw new MalformedParametersException( "<"+v+", "+w+">"+
+														" è già presente" );
+			b.add(v);
+			num_edge.incrementAndGet();
+		}
+		finally{ unlock(mask); }
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: aggiunge w agli adiacenti di v e v a quelli di w possedendo
+				 i lock di entrambi, e incrementa il contatore degli archi.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+				 Se l'arco è già presente o v==w lancia
+				 MalformedParametersException (unchecked).
+	*/
+
+
+	/***************************************************************************
+							Rimuove un arco dal grafo.
+	***************************************************************************/
+	public void removeEdge(E v, E w)
+	{
+		long mask = bit(v)|bit(w);
+		lock(mask);
+		try{
+			ConcurrentSkipListSet<E> a = neighbours(v),
+									 b = neighbours(w);
+			if( !a.remove(w) )
+				throw new MalformedParametersException( "<"+v+", "+w+">"+
+														" non è presente" );
+			b.remove(v);
+			num_edge.decrementAndGet();
+		}
+		finally{ unlock(mask); }
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: rimuove w dagli adiacenti di v e v da quelli di w possedendo
+				 i lock di entrambi, e decrementa il contatore degli archi.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+				 Se l'arco non è presente lancia MalformedParametersException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il grado del vertice (numero archi del vertice).
+	***************************************************************************/
+	public int degreeVertex(E v)
+	{
+		return neighbours(v).size();
+	}
+	/*
+		EFFECTS: restituisce il numero degli adiacenti di v, contati in
+				 tempo O(d) senza lock.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituiscono viste non modificabili e debolmente
+				consistenti dei vertici e degli adiacenti di un vertice.
+	***************************************************************************/
+	public NavigableSet<E> listVertex()
+	{
+		return Collections.unmodifiableNavigableSet(st.navigableKeySet());
+	}
+
+	public NavigableSet<E> adjacentVertex(E v)
+	{
+		return Collections.unmodifiableNavigableSet(neighbours(v));
+	}
+
+
+	/***************************************************************************
+			Visita in ampiezza da v, senza lock, fino al raggiungimento
+			di w; restituisce la distanza (-1 se w non è raggiunto) e
+			riempie prev con i predecessori.
+	***************************************************************************/
+	private int search(E v, E w, TreeMap<E, E> prev)
+	{
+		checkVertex(v);
+		checkVertex(w);
+		TreeMap<E, Integer> dist = new TreeMap<E, Integer>();
+		Deque<E> queue = new ArrayDeque<E>();
+		dist.put(v, 0);
+		queue.add(v);
+		while( !queue.isEmpty() ){
+			E u = queue.poll();
+			int d = dist.get(u);
+			if( u.compareTo(w)==0 ) return d;
+			ConcurrentSkipListSet<E> friends = st.get(u);
+			if( friends==null ) continue;
+			for(E x: friends)
+				if( dist.putIfAbsent(x, d+1)==null ){
+					prev.put(x, u);
+					queue.add(x);
+				}
+		}
+		return -1;
+	}
+
+
+	/***************************************************************************
+		Restituische la distanza tra due vertici,
+		-1 se i due vertici non appartengono al medesimo sottografo connesso.
+	***************************************************************************/
+	public Integer distanceInBetween(E v, E w)
+	{
+		return search(v, w, new TreeMap<E, E>());
+	}
+
+
+	/***************************************************************************
+			Restituisce il percorso (elenco dei vertici intermedi)
+			tra due vertici.
+	***************************************************************************/
+	public Iterable<E> pathInBetween(E v, E w)
+	{
+		TreeMap<E, E> prev = new TreeMap<E, E>();
+		Deque<E> stackPath = new ArrayDeque<E>();
+		if( search(v, w, prev)>0 )
+			for(E x=prev.get(w); x.compareTo(v)!=0; x=prev.get(x))
+				stackPath.addFirst(x);
+		return stackPath;
+	}
+	/*
+		EFFECTS: le visite non acquisiscono lock e vedono il grafo in modo
+				 debolmente consistente: per un risultato relativo ad un
+				 unico istante si usi freeze().
+	*/
+
+
+	/***************************************************************************
+					Restituisce il diametro del grafo:
+					il maggiore dei minimi percorsi possibili.
+	***************************************************************************/
+	public int graphDiameter()
+	{
+		return freeze().graphDiameter();
+	}
+
+
+	/***************************************************************************
+			Restituisce una istantanea non modificabile del grafo in
+			formato CSR (Compressed Sparse Row).
+	***************************************************************************/
+	public GraphCSR<E> freeze()
+	{
+		lock(-1L);
+		try{ return new GraphCSR<E>(this); }
+		finally{ unlock(-1L); }
+	}
+	/*
+		EFFECTS: copia il grafo possedendo tutti i lock, cosicché l'istantanea
+				 corrisponde ad un unico istante; i lettori non vengono
+				 bloccati, gli scrittori attendono la fine della copia.
+	*/
+
+
+	/***************************************************************************
+			Dati due nodi, restituisce uno Stream dell'intersezione
+			degli insiemi dei loro vicini.
+	***************************************************************************/
+	public Stream<E> commonNeighbours(E v, E w)
+	{
+		ConcurrentSkipListSet<E> a = neighbours(v),
+								 b = neighbours(w);
+		if( a.size()>b.size() ){
+			ConcurrentSkipListSet<E> aux = a;
+			a = b;
+			b = aux;
+		}
+		final Set<E> other = b;
+		return a.stream().filter(other::contains);
+	}
+
+
+	/***************************************************************************
+				Restituisce un array di Object contenente i nodi
+				in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public Object[] toArray()
+	{
+		return st.keySet().toArray();
+	}
+
+
+	/***************************************************************************
+			Override toString di Object:
+			restituisce la rappresentazione in stringa dei vertici del grafo
+			in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public String toString()
+	{
+		return st.keySet().toString();
+	}
+
+
+	/***************************************************************************
+			Controlla l'uguaglianza con un altro grafo (vedi Graph<E>).
+	***************************************************************************/
+	public boolean equals(Graph<E> h)
+	{
+		if( !listVertex().equals(h.listVertex()) ) return false;
+		for(E x: listVertex())
+			if( !adjacentVertex(x).equals(h.adjacentVertex(x)) ) return false;
+		return true;
+	}
+}
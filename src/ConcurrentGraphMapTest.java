@@ -0,0 +1,115 @@
+/* ConcurrentGraphMapTest prova sotto contesa di ConcurrentGraphMap<E> */
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.lang.reflect.MalformedParametersException;
+
+
+/*******************************************************************************
+		Classe per la prova sotto contesa del grafo concorrente:
+		alcuni thread scrittori eseguono modifiche casuali su pochi
+		vertici (molte collisioni), alcuni lettori interrogano il grafo
+		senza lock e un controllore verifica periodicamente l'invariante.
+		Uso: java ConcurrentGraphMapTest [scrittori] [lettori] [secondi]
+*******************************************************************************/
+public class ConcurrentGraphMapTest
+{
+	static final int VERTEXES = 200;
+
+	public static void
+	main(String[] args) throws InterruptedException
+	{
+		int writers = args.length>0 ? Integer.parseInt(args[0]) : 4,
+			readers = args.length>1 ? Integer.parseInt(args[1]) : 4,
+			seconds = args.length>2 ? Integer.parseInt(args[2]) : 5;
+
+		ConcurrentGraphMap<Integer> g = new ConcurrentGraphMap<Integer>();
+		AtomicBoolean stop = new AtomicBoolean(false),
+					  failed = new AtomicBoolean(false);
+		AtomicLong writes = new AtomicLong(),
+				   reads = new AtomicLong(),
+				   checks = new AtomicLong();
+		Thread[] threads = new Thread[writers+readers+1];
+
+		/* Scrittori: modifiche casuali, le eccezioni attese sono ignorate */
+		for(int t=0; t<writers; t++)
+			threads[t] = new Thread(()->{
+				ThreadLocalRandom rnd = ThreadLocalRandom.current();
+				while( !stop.get() ){
+					int v = rnd.nextInt(VERTEXES),
+						w = rnd.nextInt(VERTEXES);
+					try{
+						switch( rnd.nextInt(10) ){
+							case 0: g.removeVertex(v); break;
+							case 1: g.isolateVertex(v); break;
+							case 2: case 3: g.addVertex(v); break;
+							case 4: case 5: g.removeEdge(v, w); break;
+							default: g.addEdge(v, w);
+						}
+						writes.incrementAndGet();
+					}
+					catch(IllegalArgumentException |
+						  MalformedParametersException exc){}
+				}
+			});
+
+		/* Lettori: interrogazioni senza lock */
+		for(int t=writers; t<writers+readers; t++)
+			threads[t] = new Thread(()->{
+				ThreadLocalRandom rnd = ThreadLocalRandom.current();
+				while( !stop.get() ){
+					int v = rnd.nextInt(VERTEXES),
+						w = rnd.nextInt(VERTEXES);
+					try{
+						g.existsEdge(v, w);
+						g.degreeVertex(v);
+						g.distanceInBetween(v, w);
+						g.commonNeighbours(v, w).count();
+						reads.incrementAndGet();
+					}
+					catch(IllegalArgumentException exc){}
+				}
+			});
+
+		/* Controllore: invariante e istantanee consistenti */
+		threads[writers+readers] = new Thread(()->{
+			while( !stop.get() ){
+				try{
+					g.validate();
+					GraphCSR<Integer> csr = g.freeze();
+					for(Integer x: csr)
+						for(Integer y: csr.adjacentVertex(x))
+							if( !csr.existsEdge(y, x) )
+								throw new IllegalStateException(
+									"istantanea non simmetrica"
+								);
+					checks.incrementAndGet();
+				}
+				catch(RuntimeException exc){
+					exc.printStackTrace();
+					failed.set(true);
+				}
+			}
+		});
+
+		for(Thread t: threads) t.start();
+		Thread.sleep(seconds*1000L);
+		stop.set(true);
+		for(Thread t: threads) t.join();
+
+		try{ g.validate(); }
+		catch(RuntimeException exc){
+			exc.printStackTrace();
+			failed.set(true);
+		}
+		System.out.println(
+			"Scritture = "+writes.get()+
+			"\nLetture = "+reads.get()+
+			"\nVerifiche = "+checks.get()+
+			"\nVertici = "+g.numVertex()+", archi = "+g.numEdge()+
+			"\nInvariante "+(failed.get() ? "INFRANTO" : "rispettato")
+		);
+		if( failed.get() ) System.exit(1);
+	}
+}
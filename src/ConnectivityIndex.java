@@ -0,0 +1,81 @@
+/* ConnectivityIndex<E> indice delle componenti connesse di un GraphMap<E> */
+
+import java.util.SortedMap;
+
+public interface ConnectivityIndex<E> extends GraphListener<E>
+{
+	/*
+		OVERVIEW: indice delle componenti connesse di un GraphMap<E>,
+				  aggiornato come GraphListener ad ogni modifica del grafo;
+				  implementato da ComponentIndex (union-find con ricalcolo
+				  pigro delle componenti toccate dalle rimozioni) e da
+				  DynamicConnectivity (foresta ricoprente a livelli di
+				  Holm, de Lichtenberg e Thorup).
+				  Il rappresentante di una componente è il suo vertice
+				  minore (compareTo), che non dipende dall'ordine delle
+				  modifiche.
+	*/
+
+
+	/***************************************************************************
+			Restituisce true se esiste un cammino tra v e w.
+	***************************************************************************/
+	public boolean
+	connected(E v, E w);
+	/*
+		EFFECTS: Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il rappresentante della componente di v.
+	***************************************************************************/
+	public E
+	componentOf(E v);
+	/*
+		EFFECTS: restituisce il vertice minore della componente connessa di v.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il numero di vertici della componente di v.
+	***************************************************************************/
+	public int
+	componentSize(E v);
+	/*
+		EFFECTS: Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Restituisce il numero di componenti connesse.
+	***************************************************************************/
+	public int
+	componentCount();
+
+
+	/***************************************************************************
+			Restituisce la dimensione di ogni componente connessa.
+	***************************************************************************/
+	public SortedMap<E, Integer>
+	componentSizes();
+	/*
+		EFFECTS: restituisce una mappa dal rappresentante di ogni componente
+				 al suo numero di vertici.
+	*/
+
+
+	/***************************************************************************
+			Smette di osservare il grafo: l'indice non viene più
+			aggiornato.
+	***************************************************************************/
+	public void
+	detach();
+}
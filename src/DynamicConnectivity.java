@@ -0,0 +1,600 @@
+/* DynamicConnectivity<E> connettività completamente dinamica di un GraphMap<E> */
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeMap;
+import java.util.SortedMap;
+import java.util.Set;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+
+public class DynamicConnectivity<E extends Comparable<E>>
+								implements ConnectivityIndex<E>
+{
+	/*
+		OVERVIEW:= indice completamente dinamico delle componenti connesse
+				   di un GraphMap<E> (Holm, de Lichtenberg, Thorup): ogni
+				   arco ha un livello l(e)>=0 ed F_i è una foresta
+				   ricoprente degli archi di livello >=i, rappresentata
+				   con Euler tour memorizzati in treap; le rimozioni di
+				   archi della foresta cercano un arco sostitutivo solo
+				   nella metà più piccola, alzando di livello gli archi
+				   esaminati. Aggiornamenti in O(log^2 n) ammortizzato,
+				   interrogazioni in O(log n) atteso.
+				   Richiede che equals() e hashCode() di E siano coerenti
+				   con compareTo().
+
+		AF:= {C | C albero di F_0}, con i vertici name[x] dei nodi vertice
+
+		IR:= perogni arco e => e appartiene ad edges, 0<=e.level<levels
+			 && F_0 è una foresta ricoprente di graph
+			 && perogni i => F_i ⊆ F_{i-1} ed ogni albero di F_i ha al più
+							 n/2^i vertici
+			 && perogni arco non della foresta e=<x,y> => x ed y sono
+							connessi in F_{e.level} ed y appartiene a
+							non[x][e.level] (e viceversa)
+			 && perogni nodo t => t.cnt, t.size, t.min ed i flag aggregati
+								  sono quelli del suo sottoalbero
+			 && count==numero di alberi di F_0
+	*/
+
+	/***************************************************************************
+		Classe privata dei nodi dei treap degli Euler tour: un nodo per
+		vertice e livello, e due archi orientati per arco della foresta e
+		livello; la posizione nel tour è implicita (ordine simmetrico).
+	***************************************************************************/
+	private static final class Node
+	{
+		Node left, right, parent;
+		final int prio;
+		final int vertex;		/* id del vertice, -1 per un arco */
+		final Edge edge;		/* arco della foresta, null per un vertice */
+		boolean tree,			/* arco di livello esattamente uguale al tour */
+				non;			/* vertice con archi non della foresta al livello */
+		boolean aggTree, aggNon;
+		int cnt, size, min;
+
+		Node(int prio, int vertex, Edge edge)
+		{
+			this.prio = prio;
+			this.vertex = vertex;
+			this.edge = edge;
+			this.cnt = 1;
+			this.size = vertex<0 ? 0 : 1;
+			this.min = vertex;
+		}
+	}
+
+	/* arco del grafo; arcs[2i], arcs[2i+1] sono i suoi archi in F_i */
+	private static final class Edge
+	{
+		final int x, y;
+		int level = 0;
+		Node[] arcs = null;
+
+		Edge(int x, int y)
+		{
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private final GraphMap<E> graph;
+	private final Map<E, Integer> ids = new HashMap<E, Integer>();
+	private final Map<Long, Edge> edges = new HashMap<Long, Edge>();
+	private final SplittableRandom rnd = new SplittableRandom(0x5EED);
+	private Object[] name;
+	private Node[][] node;
+	private ArrayList<HashSet<Integer>>[] non;
+	private int[] free;
+	private int used, num_free, count;
+
+
+	/***************************************************************************
+								Costruttore:
+			costruisce l'indice del grafo passato e si registra come suo
+			osservatore.
+	***************************************************************************/
+	public DynamicConnectivity(GraphMap<E> g)
+	{
+		if( g==null ) throw new NullPointerException("passato oggetto nullo");
+		this.graph = g;
+		rebuild();
+		g.addListener(this);
+	}
+	/*
+		EFFECTS: inserisce tutti i vertici e gli archi di g, in tempo
+				 O((V+E) log V) atteso.
+				 Se g==null lancia NullPointerException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Ricostruisce l'indice dall'intero contenuto del grafo.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	private void rebuild()
+	{
+		int n = Math.max(16, graph.numVertex());
+		name = new Object[n];
+		node = new Node[n][];
+		non = (ArrayList<HashSet<Integer>>[]) new ArrayList<?>[n];
+		free = new int[n];
+		used = num_free = count = 0;
+		ids.clear();
+		edges.clear();
+		for(E v: graph) insertVertex(v);
+		for(E v: graph)
+			for(E w: graph.adjacentVertex(v).tailSet(v, false))
+				insertEdge(ids.get(v), ids.get(w));
+	}
+
+
+	/***************************************************************************
+			Operazioni sui treap: aggiornamento degli aggregati, fusione,
+			divisione per posizione, radice e posizione di un nodo.
+	***************************************************************************/
+	private static int cnt(Node t)
+	{
+		return t==null ? 0 : t.cnt;
+	}
+
+	@SuppressWarnings("unchecked")
+	private int min(int a, int b)
+	{
+		if( a<0 ) return b;
+		if( b<0 ) return a;
+		return ((E) name[a]).compareTo((E) name[b])<=0 ? a : b;
+	}
+
+	private void update(Node t)
+	{
+		Node l = t.left,
+			 r = t.right;
+		t.cnt = 1+cnt(l)+cnt(r);
+		t.size = (t.vertex<0 ? 0 : 1)+(l==null ? 0 : l.size)+
+				 (r==null ? 0 : r.size);
+		t.aggTree = t.tree || (l!=null && l.aggTree) || (r!=null && r.aggTree);
+		t.aggNon = t.non || (l!=null && l.aggNon) || (r!=null && r.aggNon);
+		t.min = min(min(t.vertex, l==null ? -1 : l.min),
+					r==null ? -1 : r.min);
+	}
+
+	private void updatePath(Node t)
+	{
+		for(; t!=null; t=t.parent) update(t);
+	}
+
+	private Node merge(Node a, Node b)
+	{
+		if( a==null ) return b;
+		if( b==null ) return a;
+		if( a.prio>b.prio ){
+			a.right = merge(a.right, b);
+			a.right.parent = a;
+			update(a);
+			return a;
+		}
+		b.left = merge(a, b.left);
+		b.left.parent = b;
+		update(b);
+		return b;
+	}
+
+	private Node[] split(Node t, int k)
+	{
+		if( t==null ) return new Node[2];
+		Node[] s;
+		if( cnt(t.left)>=k ){
+			s = split(t.left, k);
+			t.left = s[1];
+			if( s[1]!=null ) s[1].parent = t;
+			s[1] = t;
+		}
+		else{
+			s = split(t.right, k-cnt(t.left)-1);
+			t.right = s[0];
+			if( s[0]!=null ) s[0].parent = t;
+			s[0] = t;
+		}
+		t.parent = null;
+		update(t);
+		if( s[0]!=null ) s[0].parent = null;
+		if( s[1]!=null ) s[1].parent = null;
+		return s;
+	}
+
+	private static Node root(Node t)
+	{
+		while( t.parent!=null ) t = t.parent;
+		return t;
+	}
+
+	private static int index(Node t)
+	{
+		int k = cnt(t.left);
+		for(; t.parent!=null; t=t.parent)
+			if( t==t.parent.right ) k += cnt(t.parent.left)+1;
+		return k;
+	}
+	/*
+		EFFECTS: split() divide il treap t nei primi k nodi e nei restanti;
+				 index() restituisce il numero di nodi che precedono t nel
+				 suo tour. Tutte costano O(log n) atteso.
+	*/
+
+
+	/***************************************************************************
+			Operazioni sugli Euler tour del livello i: il tour di un
+			albero è ciclico, quindi si può ruotare per farlo iniziare da
+			un qualsiasi vertice.
+	***************************************************************************/
+	private Node vertexNode(int x, int i)
+	{
+		Node[] nx = node[x];
+		if( nx.length<=i ) nx = node[x] = Arrays.copyOf(nx, i+1);
+		if( nx[i]==null ){
+			nx[i] = new Node(rnd.nextInt(), x, null);
+			nx[i].non = i<non[x].size() && !non[x].get(i).isEmpty();
+			update(nx[i]);
+		}
+		return nx[i];
+	}
+
+	private Node reroot(Node t)
+	{
+		Node[] s = split(root(t), index(t));
+		return merge(s[1], s[0]);
+	}
+
+	private void link(Edge e, int i)
+	{
+		Node a = reroot(vertexNode(e.x, i)),
+			 b = reroot(vertexNode(e.y, i)),
+			 xy = new Node(rnd.nextInt(), -1, e),
+			 yx = new Node(rnd.nextInt(), -1, e);
+		xy.tree = i==e.level;
+		update(xy);
+		if( e.arcs.length<2*(i+1) ) e.arcs = Arrays.copyOf(e.arcs, 2*(i+1));
+		e.arcs[2*i] = xy;
+		e.arcs[2*i+1] = yx;
+		merge(merge(merge(a, xy), b), yx);
+	}
+
+	private void cut(Edge e, int i)
+	{
+		Node first = e.arcs[2*i],
+			 last = e.arcs[2*i+1];
+		if( index(first)>index(last) ){
+			Node aux = first;
+			first = last;
+			last = aux;
+		}
+		Node[] s = split(root(first), index(first));
+		Node[] t = split(s[1], index(last)+1);
+		Node[] u = split(t[0], 1);
+		split(u[1], u[1].cnt-1);
+		merge(s[0], t[1]);
+		e.arcs[2*i] = e.arcs[2*i+1] = null;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: link() unisce i tour di e.x ed e.y al livello i come
+				 [tour di x] (x,y) [tour di y] (y,x); cut() toglie i due
+				 archi di e al livello i: i nodi compresi fra essi formano
+				 il tour di uno dei due alberi, quelli esterni dell'altro.
+	*/
+
+
+	/***************************************************************************
+			Gestione degli insiemi degli archi non della foresta.
+	***************************************************************************/
+	private HashSet<Integer> nonTree(int x, int i)
+	{
+		ArrayList<HashSet<Integer>> nx = non[x];
+		while( nx.size()<=i ) nx.add(new HashSet<Integer>());
+		return nx.get(i);
+	}
+
+	private void addNonTree(int x, int y, int i)
+	{
+		HashSet<Integer> s = nonTree(x, i);
+		s.add(y);
+		if( s.size()==1 ) flag(vertexNode(x, i), true);
+	}
+
+	private void removeNonTree(int x, int y, int i)
+	{
+		HashSet<Integer> s = nonTree(x, i);
+		s.remove(y);
+		if( s.isEmpty() ) flag(vertexNode(x, i), false);
+	}
+
+	private void flag(Node t, boolean value)
+	{
+		t.non = value;
+		updatePath(t);
+	}
+
+
+	/***************************************************************************
+			Inserimento e rimozione di vertici ed archi.
+	***************************************************************************/
+	private void insertVertex(E v)
+	{
+		int x;
+		if( num_free>0 ) x = free[--num_free];
+		else{
+			if( used==name.length ) grow();
+			x = used++;
+		}
+		ids.put(v, x);
+		name[x] = v;
+		node[x] = new Node[1];
+		non[x] = new ArrayList<HashSet<Integer>>(1);
+		vertexNode(x, 0);
+		count++;
+	}
+
+	private void grow()
+	{
+		int n = 2*name.length;
+		name = Arrays.copyOf(name, n);
+		node = Arrays.copyOf(node, n);
+		non = Arrays.copyOf(non, n);
+		free = Arrays.copyOf(free, n);
+	}
+
+	private static long key(int x, int y)
+	{
+		return x<y ? (long)x<<32|y : (long)y<<32|x;
+	}
+
+	private void insertEdge(int x, int y)
+	{
+		Edge e = new Edge(x, y);
+		edges.put(key(x, y), e);
+		if( root(vertexNode(x, 0))!=root(vertexNode(y, 0)) ){
+			e.arcs = new Node[2];
+			link(e, 0);
+			count--;
+		}
+		else{
+			addNonTree(x, y, 0);
+			addNonTree(y, x, 0);
+		}
+	}
+
+	private void deleteEdge(int x, int y)
+	{
+		Edge e = edges.remove(key(x, y));
+		if( e.arcs==null ){
+			removeNonTree(x, y, e.level);
+			removeNonTree(y, x, e.level);
+			return;
+		}
+		for(int i=0; i<=e.level; i++) cut(e, i);
+		for(int i=e.level; i>=0; i--)
+			if( replace(x, y, i) ) return;
+		count++;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: deleteEdge() rimuove un arco della foresta da tutti i livelli
+				 fino al suo e cerca un sostituto dal livello più alto al
+				 più basso; se non esiste la componente si divide.
+	*/
+
+
+	/***************************************************************************
+			Cerca al livello i un arco che riconnetta gli alberi di x e
+			di y, dopo aver promosso al livello i+1 gli archi di
+			livello i dell'albero più piccolo.
+	***************************************************************************/
+	private boolean replace(int x, int y, int i)
+	{
+		Node tx = root(vertexNode(x, i)),
+			 ty = root(vertexNode(y, i)),
+			 small = tx.size<=ty.size ? tx : ty;
+
+		for(Node t; (t=find(small, true))!=null; ){
+			Edge f = t.edge;
+			t.tree = false;
+			updatePath(t);
+			f.level = i+1;
+			link(f, i+1);
+		}
+
+		for(Node t; (t=find(small, false))!=null; ){
+			int a = t.vertex;
+			Iterator<Integer> it = non[a].get(i).iterator();
+			while( it.hasNext() ){
+				int b = it.next();
+				Edge f = edges.get(key(a, b));
+				it.remove();
+				removeNonTree(b, a, i);
+				if( root(vertexNode(b, i))!=small ){
+					if( non[a].get(i).isEmpty() ) flag(t, false);
+					f.arcs = new Node[2*(i+1)];
+					for(int j=0; j<=i; j++) link(f, j);
+					return true;
+				}
+				f.level = i+1;
+				addNonTree(a, b, i+1);
+				addNonTree(b, a, i+1);
+			}
+			flag(t, false);
+		}
+		return false;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: restituisce true se ha trovato e inserito nella foresta ai
+				 livelli 0..i un arco sostitutivo; ogni arco esaminato senza
+				 successo sale di livello, il che limita il costo ammortizzato
+				 a O(log^2 n) per rimozione.
+	*/
+
+	private static Node find(Node t, boolean tree)
+	{
+		if( t==null || !(tree ? t.aggTree : t.aggNon) ) return null;
+		while( true ){
+			if( tree ? t.tree : t.non ) return t;
+			t = t.left!=null && (tree ? t.left.aggTree : t.left.aggNon)
+				? t.left : t.right;
+		}
+	}
+	/*
+		EFFECTS: restituisce un nodo del treap t con il flag tree (arco di
+				 livello uguale al tour) o non (vertice con archi non della
+				 foresta), null se non ce ne sono.
+	*/
+
+
+	/***************************************************************************
+			Restituisce l'id di un vertice, con i controlli sui parametri.
+	***************************************************************************/
+	private int id(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		Integer x = ids.get(v);
+		if( x==null ) throw new IllegalArgumentException(v+" non e' un vertice");
+		return x;
+	}
+
+
+	/***************************************************************************
+			Restituisce true se esiste un cammino tra v e w.
+	***************************************************************************/
+	public boolean connected(E v, E w)
+	{
+		int x = id(v),
+			y = id(w);
+		return root(node[x][0])==root(node[y][0]);
+	}
+	/*
+		EFFECTS: restituisce true se v e w appartengono allo stesso albero di
+				 F_0, in tempo O(log n) atteso.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il rappresentante della componente di v.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	public E componentOf(E v)
+	{
+		return (E) name[root(node[id(v)][0]).min];
+	}
+
+
+	/***************************************************************************
+			Restituisce il numero di vertici della componente di v.
+	***************************************************************************/
+	public int componentSize(E v)
+	{
+		return root(node[id(v)][0]).size;
+	}
+
+
+	/***************************************************************************
+					Restituisce il numero di componenti connesse.
+	***************************************************************************/
+	public int componentCount()
+	{
+		return count;
+	}
+
+
+	/***************************************************************************
+			Restituisce la dimensione di ogni componente connessa.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	public SortedMap<E, Integer> componentSizes()
+	{
+		SortedMap<E, Integer> sizes = new TreeMap<E, Integer>();
+		for(int x: ids.values()){
+			Node r = root(node[x][0]);
+			if( r.min==x ) sizes.put((E) name[x], r.size);
+		}
+		return sizes;
+	}
+
+
+	/***************************************************************************
+			Restituisce il numero di livelli in uso.
+	***************************************************************************/
+	public int levels()
+	{
+		int levels = 0;
+		for(Edge e: edges.values()) levels = Math.max(levels, e.level+1);
+		return levels;
+	}
+
+
+	/***************************************************************************
+			Smette di osservare il grafo: l'indice non viene più
+			aggiornato.
+	***************************************************************************/
+	public void detach()
+	{
+		graph.removeListener(this);
+	}
+
+
+	/***************************************************************************
+			Implementazione di GraphListener<E>.
+	***************************************************************************/
+	public void vertexAdded(E v)
+	{
+		insertVertex(v);
+	}
+
+	public void edgeAdded(E v, E w)
+	{
+		insertEdge(ids.get(v), ids.get(w));
+	}
+
+	public void edgeRemoved(E v, E w)
+	{
+		deleteEdge(ids.get(v), ids.get(w));
+	}
+
+	public void vertexIsolated(E v, Set<E> neighbours)
+	{
+		int x = ids.get(v);
+		for(E w: neighbours) deleteEdge(x, ids.get(w));
+	}
+
+	public void vertexRemoved(E v, Set<E> neighbours)
+	{
+		vertexIsolated(v, neighbours);
+		int x = ids.remove(v);
+		name[x] = null;
+		node[x] = null;
+		non[x] = null;
+		free[num_free++] = x;
+		count--;
+	}
+
+	public void cleared()
+	{
+		rebuild();
+	}
+
+	public void reloaded()
+	{
+		rebuild();
+	}
+}
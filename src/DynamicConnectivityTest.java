@@ -0,0 +1,149 @@
+/* DynamicConnectivityTest prova casuale degli indici di connettività */
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.ArrayList;
+import java.util.Random;
+import java.lang.reflect.MalformedParametersException;
+
+
+/*******************************************************************************
+		Classe per la prova casuale di DynamicConnectivity e di
+		ComponentIndex: esegue modifiche casuali su un GraphMap<Integer>
+		confrontando dopo ognuna entrambi gli indici con le componenti
+		del modello ReferenceGraph, poi misura i due indici su un flusso
+		di modifiche con molte rimozioni di archi.
+		Uso: java DynamicConnectivityTest [passi] [vertici] [seme]
+*******************************************************************************/
+public class DynamicConnectivityTest
+{
+	public static void
+	main(String[] args)
+	{
+		int steps = args.length>0 ? Integer.parseInt(args[0]) : 20000,
+			n = args.length>1 ? Integer.parseInt(args[1]) : 40;
+		long seed = args.length>2 ? Long.parseLong(args[2]) : 42;
+
+		boolean ok = random(steps, n, new Random(seed));
+		System.out.println("prova casuale: "+(ok ? "superata" : "FALLITA"));
+		benchmark(20000, 20000, 10000, seed);
+		if( !ok ) System.exit(1);
+	}
+
+
+	/* modifiche casuali confrontate con il modello dopo ogni passo */
+	private static boolean random(int steps, int n, Random rnd)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		DynamicConnectivity<Integer> dynamic = new DynamicConnectivity<Integer>(g);
+		ComponentIndex<Integer> lazy = new ComponentIndex<Integer>(g);
+
+		for(int s=0; s<steps; s++){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(n);
+			try{
+				switch( rnd.nextInt(20) ){
+					case 0: g.removeVertex(v); break;
+					case 1: g.isolateVertex(v); break;
+					case 2: if( rnd.nextInt(50)==0 ) g.removeAllVertex(); break;
+					case 3: case 4: case 5: g.addVertex(v); break;
+					case 6: case 7: case 8: case 9: case 10:
+						g.removeEdge(v, w); break;
+					default: g.addEdge(v, w);
+				}
+			}
+			catch(IllegalArgumentException | MalformedParametersException exc){}
+
+			ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+			String error = check(g, ref, dynamic);
+			if( error==null ) error = check(g, ref, lazy);
+			if( error!=null ){
+				System.out.println("passo "+s+": "+error);
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/* confronta l'indice con le componenti del modello */
+	private static String check(GraphMap<Integer> g, ReferenceGraph<Integer> ref,
+								ConnectivityIndex<Integer> index)
+	{
+		String who = index.getClass().getName();
+		Map<Integer, Integer> rep = ref.components();
+		SortedMap<Integer, Integer> sizes = ref.componentSizes();
+
+		if( index.componentCount()!=sizes.size() )
+			return who+": "+index.componentCount()+" componenti invece di "+
+				   sizes.size();
+		if( !index.componentSizes().equals(sizes) )
+			return who+": componentSizes() "+index.componentSizes()+
+				   " invece di "+sizes;
+		Integer first = null;
+		for(Integer v: g){
+			if( !index.componentOf(v).equals(rep.get(v)) )
+				return who+": componentOf("+v+")="+index.componentOf(v)+
+					   " invece di "+rep.get(v);
+			if( index.componentSize(v)!=sizes.get(rep.get(v)) )
+				return who+": componentSize("+v+") errata";
+			if( first!=null &&
+				index.connected(first, v)!=rep.get(first).equals(rep.get(v)) )
+				return who+": connected("+first+", "+v+") errata";
+			first = v;
+		}
+		return null;
+	}
+
+
+	/* tempo di un flusso con molte rimozioni su ciascun indice: un terzo di
+	   aggiunte, un terzo di rimozioni di archi esistenti, un terzo di
+	   interrogazioni */
+	private static void benchmark(int n, int m, int ops, long seed)
+	{
+		for(int backend=0; backend<2; backend++){
+			Random rnd = new Random(seed);
+			GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+			ArrayList<int[]> edges = new ArrayList<int[]>();
+			for(int v=0; v<n; v++) g.addVertex(v);
+			for(int k=0; k<m; k++) addRandomEdge(g, edges, n, rnd);
+			ConnectivityIndex<Integer> index = backend==0
+				? g.enableComponentIndex()
+				: g.enableDynamicConnectivity();
+
+			long t0 = System.nanoTime();
+			int connected = 0;
+			for(int k=0; k<ops; k++)
+				switch( rnd.nextInt(3) ){
+					case 0:
+						addRandomEdge(g, edges, n, rnd);
+						break;
+					case 1:
+						int i = rnd.nextInt(edges.size());
+						int[] e = edges.get(i);
+						edges.set(i, edges.get(edges.size()-1));
+						edges.remove(edges.size()-1);
+						g.removeEdge(e[0], e[1]);
+						break;
+					default:
+						if( index.connected(rnd.nextInt(n), rnd.nextInt(n)) )
+							connected++;
+				}
+			long t1 = System.nanoTime();
+			System.out.printf("%-20s %6d ms, %d coppie connesse, %d componenti%n",
+							  index.getClass().getName(), (t1-t0)/1000000,
+							  connected, index.componentCount());
+			g.disableComponentIndex();
+		}
+	}
+
+	private static void addRandomEdge(GraphMap<Integer> g, ArrayList<int[]> edges,
+									  int n, Random rnd)
+	{
+		int v = rnd.nextInt(n),
+			w = rnd.nextInt(n);
+		if( v==w || g.existsEdge(v, w) ) return;
+		g.addEdge(v, w);
+		edges.add(new int[]{ v, w });
+	}
+}
@@ -0,0 +1,953 @@
+/* GraphArray<E> grafo modificabile con id interi e adiacenze primitive */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.AbstractSet;
+import java.util.NavigableSet;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.ArrayDeque;
+import java.util.stream.Stream;
+import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.lang.reflect.MalformedParametersException;
+
+
+public class GraphArray<E extends Comparable<E>> implements Iterable<E>, Graph<E>
+{
+	/*
+		OVERVIEW:= tipo modificabile degli insiemi di oggetti omogenei generici
+				   di tipo E, gestiti come un grafo; ogni vertice è internato
+				   in un id intero denso e gli adiacenti sono memorizzati in
+				   array int[] ordinati secondo l'ordine di comparazione
+				   (compareTo) dei vertici, come in GraphMap, senza oggetti
+				   allocati per arco.
+
+		AF:= <V,A> dove
+			 V = ids.keySet(),
+			 A = {
+					<names[i],names[j]> | names[i]!=null &&
+										  j appartiene a adj[i][0..deg[i])
+				 }
+
+		IR:= ids!=null && names!=null && adj!=null && deg!=null
+			 && names.length==adj.length==deg.length
+			 && perogni <x,i> appartenente a ids => names[i]==x
+			 && perogni i, names[i]==null => deg[i]==0 && i appartiene a
+											 free[0..num_free)
+			 && perogni i, perogni 0<=k<deg[i]-1 =>
+					names[adj[i][k]].compareTo(names[adj[i][k+1]])<0
+			 && perogni i, perogni 0<=k<deg[i] => names[adj[i][k]]!=null
+												  && adj[i][k]!=i
+												  && i appartiene a
+													 adj[adj[i][k]]
+			 && num_edge = Somma(deg[i]/2 perogni i)
+	*/
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private static final int[] EMPTY = new int[0];
+
+	private TreeMap<E, Integer> ids;
+	private Object[] names;
+	private int[][] adj;
+	private int[] deg;
+	private int[] free;
+	private int num_free;
+	private int num_edge;
+	private GraphMap.Validation validation = GraphMap.Validation.FULL;
+	private double sampleRate = 0.01;
+	private boolean dirty = false;
+	private E sample = null;
+
+
+	/***************************************************************************
+			Controlla la correttazza dell'invariante di rappresentazione
+	***************************************************************************/
+	private void repOk()
+	{
+		long somma = 0;
+		if( ids==null || names==null || adj==null || deg==null )
+			throw new RepInvariantException("infranto repInvariant");
+
+		for(Map.Entry<E, Integer> keyValue: ids.entrySet()){
+			int i = keyValue.getValue();
+			if( names[i]!=keyValue.getKey() )
+				throw new RepInvariantException("infranto repInvariant");
+			for(int k=0; k<deg[i]; k++){
+				int j = adj[i][k];
+				if( j==i												||
+					names[j]==null										||
+					(k>0 && vertex(adj[i][k-1]).compareTo(vertex(j))>=0)	||
+					!contains(j, i)
+				) throw new RepInvariantException("infranto repInvariant");
+			}
+			somma += deg[i];
+		}
+
+		if( ids.size()+num_free!=names.length || num_edge!=somma/2 )
+			throw new RepInvariantException("infranto repInvariant");
+	}
+	/*
+		EFFECTS: se l'invariante di rappresentazione è infranto,
+				 lancia RepInvariantException (unchecked)
+	*/
+
+
+	/***************************************************************************
+			Controlla localmente l'invariante sulla coppia di id <i,j>
+			appena modificata, in tempo O(log d).
+	***************************************************************************/
+	private void edgeOk(int i, int j)
+	{
+		if( i==j												||
+			contains(i, j)!=contains(j, i)						||
+			num_edge<0											||
+			(long)num_edge > (long)ids.size()*(ids.size()-1)/2
+		) throw new RepInvariantException("infranto repInvariant");
+	}
+	/*
+		EFFECTS: se i==j, se <i,j> è presente in una sola delle due direzioni
+				 o se num_edge è fuori dai limiti,
+				 lancia RepInvariantException (unchecked)
+	*/
+
+
+	/***************************************************************************
+			Controlla localmente l'invariante sugli ex adiacenti friends
+			dell'id i appena isolato o rimosso, in tempo O(Somma d).
+	***************************************************************************/
+	private void neighboursOk(int i, int[] friends)
+	{
+		if( num_edge<0 ||
+			(long)num_edge > (long)ids.size()*(ids.size()-1)/2 ||
+			(names[i]!=null && deg[i]!=0)
+		) throw new RepInvariantException("infranto repInvariant");
+		for(int x: friends){
+			if( names[x]==null )
+				throw new RepInvariantException("infranto repInvariant");
+			for(int k=0; k<deg[x]; k++)
+				if( adj[x][k]==i )
+					throw new RepInvariantException("infranto repInvariant");
+		}
+	}
+	/*
+		EFFECTS: se un ex adiacente di i non è più un vertice o ha ancora i
+				 fra i propri adiacenti, se i è ancora un vertice con
+				 adiacenti, oppure se num_edge è fuori dai limiti,
+				 lancia RepInvariantException (unchecked)
+	*/
+
+
+	/***************************************************************************
+			Applicano la politica di verifica corrente dopo una modifica
+			(vedi GraphMap.Validation): su un arco, sugli ex adiacenti
+			di un vertice o sull'intero grafo.
+	***************************************************************************/
+	private void validateEdge(int i, int j)
+	{
+		switch(validation){
+			case OFF: return;
+			case DEFERRED: dirty = true; return;
+			case SAMPLED:
+				edgeOk(i, j);
+				if( sampled() ) sampleOk();
+				return;
+			default: repOk();
+		}
+	}
+
+	private void validateNeighbours(int i, int[] friends)
+	{
+		switch(validation){
+			case OFF: return;
+			case DEFERRED: dirty = true; return;
+			case SAMPLED:
+				neighboursOk(i, friends);
+				if( sampled() ) sampleOk();
+				return;
+			default: repOk();
+		}
+	}
+
+	private void validateAll()
+	{
+		switch(validation){
+			case OFF: return;
+			case DEFERRED: dirty = true; return;
+			case SAMPLED:
+				if( sampled() ) sampleOk();
+				return;
+			default: repOk();
+		}
+	}
+
+	private boolean sampled()
+	{
+		return ThreadLocalRandom.current().nextDouble() < sampleRate;
+	}
+
+	/* verifica gli adiacenti del vertice successivo a sample nella
+	   scansione circolare dei nomi */
+	private void sampleOk()
+	{
+		if( ids.isEmpty() ) return;
+		Map.Entry<E, Integer> e = sample==null ? null : ids.higherEntry(sample);
+		if( e==null ) e = ids.firstEntry();
+		sample = e.getKey();
+		int i = e.getValue();
+		for(int k=0; k<deg[i]; k++){
+			int j = adj[i][k];
+			if( j==i												||
+				names[j]==null										||
+				(k>0 && vertex(adj[i][k-1]).compareTo(vertex(j))>=0)	||
+				!contains(j, i)
+			) throw new RepInvariantException("infranto repInvariant");
+		}
+	}
+	/*
+		EFFECTS: con OFF non verifica nulla, con DEFERRED segna il grafo come
+				 da verificare, con FULL esegue repOk(); con SAMPLED esegue il
+				 controllo locale e con probabilita' sampleRate controlla
+				 anche gli adiacenti del prossimo vertice della scansione
+				 circolare (O(d log d)), senza mai visitare l'intero grafo.
+	*/
+
+
+	/***************************************************************************
+				Imposta la politica di verifica dell'invariante.
+	***************************************************************************/
+	public void setValidation(GraphMap.Validation mode)
+	{
+		if( mode==null ) throw new NullPointerException("passato oggetto nullo");
+		if( validation==GraphMap.Validation.DEFERRED &&
+			mode!=GraphMap.Validation.DEFERRED )
+			validate();
+		validation = mode;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: imposta mode come politica di verifica; se si abbandona
+				 DEFERRED esegue prima le verifiche rimandate.
+				 Se mode==null lancia NullPointerException (unchecked).
+				 Se le verifiche rimandate falliscono lancia
+				 RepInvariantException (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituisce la politica di verifica dell'invariante.
+	***************************************************************************/
+	public GraphMap.Validation getValidation()
+	{
+		return validation;
+	}
+
+
+	/***************************************************************************
+			Imposta la probabilita' della verifica a campione di un
+			vertice dopo ogni modifica nella politica SAMPLED.
+	***************************************************************************/
+	public void setSampleRate(double p)
+	{
+		if( !(p>=0 && p<=1) )
+			throw new IllegalArgumentException(p+" non e' una probabilita'");
+		sampleRate = p;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: imposta sampleRate=p.
+				 Se p non appartiene a [0,1] lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Esegue le verifiche rimandate (commit della politica DEFERRED).
+	***************************************************************************/
+	public void validate()
+	{
+		repOk();
+		dirty = false;
+	}
+	/*
+		EFFECTS: esegue repOk() indipendentemente dalla politica corrente e
+				 azzera lo stato di verifica pendente.
+				 Se l'invariante è infranto lancia RepInvariantException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce true se ci sono modifiche non ancora verificate.
+	***************************************************************************/
+	public boolean isDirty()
+	{
+		return dirty;
+	}
+
+
+	/***************************************************************************
+							Costruttore1:
+							istanzia un GraphArray vuoto.
+	***************************************************************************/
+	public GraphArray()
+	{
+		this(16);
+	}
+
+
+	/***************************************************************************
+							Costruttore2:
+							istanzia un GraphArray vuoto con spazio
+							preallocato per capacity vertici.
+	***************************************************************************/
+	public GraphArray(int capacity)
+	{
+		if( capacity<0 )
+			throw new IllegalArgumentException(capacity+" capacita' negativa");
+		ids = new TreeMap<E, Integer>();
+		names = new Object[0];
+		adj = new int[0][];
+		deg = new int[0];
+		free = new int[0];
+		num_free = 0;
+		num_edge = 0;
+		grow(capacity);
+		repOk();
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: alloca le strutture vuote e riserva capacity id liberi.
+				 Se capacity<0 lancia IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+							Costruttore3:
+							istanzia un GraphArray vuoto con la
+							politica di verifica passata.
+	***************************************************************************/
+	public GraphArray(GraphMap.Validation mode)
+	{
+		this(16);
+		setValidation(mode);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: come Costruttore1, poi imposta mode come politica di verifica.
+				 Se mode==null lancia NullPointerException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Porta la capacita' degli array dei vertici ad almeno n,
+			aggiungendo i nuovi id all'insieme di quelli liberi.
+	***************************************************************************/
+	private void grow(int n)
+	{
+		int old = names.length;
+		if( n<=old ) return;
+		names = Arrays.copyOf(names, n);
+		adj = Arrays.copyOf(adj, n);
+		deg = Arrays.copyOf(deg, n);
+		free = Arrays.copyOf(free, n);
+		for(int i=n-1; i>=old; i--){
+			adj[i] = EMPTY;
+			free[num_free++] = i;
+		}
+	}
+
+
+	/***************************************************************************
+			Operazioni sugli array ordinati degli adiacenti.
+	***************************************************************************/
+	private int search(int i, int j)
+	{
+		int[] a = adj[i];
+		E x = vertex(j);
+		int lo = 0,
+			hi = deg[i]-1;
+		while( lo<=hi ){
+			int mid = (lo+hi)>>>1,
+				c = vertex(a[mid]).compareTo(x);
+			if( c<0 ) lo = mid+1;
+			else if( c>0 ) hi = mid-1;
+			else return mid;
+		}
+		return -(lo+1);
+	}
+
+	private boolean contains(int i, int j)
+	{
+		return search(i, j)>=0;
+	}
+
+	private void insert(int i, int j)
+	{
+		int[] a = adj[i];
+		int d = deg[i],
+			pos = -(search(i, j)+1);
+		if( d==a.length ) a = adj[i] = Arrays.copyOf(a, Math.max(4, 2*d));
+		System.arraycopy(a, pos, a, pos+1, d-pos);
+		a[pos] = j;
+		deg[i]++;
+	}
+
+	private void delete(int i, int j)
+	{
+		int[] a = adj[i];
+		int d = deg[i],
+			pos = search(i, j);
+		System.arraycopy(a, pos+1, a, pos, d-pos-1);
+		deg[i]--;
+		if( deg[i]==0 ) adj[i] = EMPTY;
+		else if( a.length>=16 && deg[i]<a.length/4 )
+			adj[i] = Arrays.copyOf(a, 2*deg[i]);
+	}
+	/*
+		REQUIRES: per insert j non appartiene ad adj[i][0..deg[i]),
+				  per delete j vi appartiene.
+		EFFECTS: search() restituisce la posizione di j negli adiacenti di i,
+				 o -(punto di inserimento)-1, con una ricerca binaria
+				 sull'ordine di comparazione (compareTo) dei vertici;
+				 insert/delete inseriscono/rimuovono j mantenendo l'ordine,
+				 raddoppiando o riducendo l'array quando necessario.
+	*/
+
+
+	/***************************************************************************
+					Restituisce il vertice di id intero i.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	private E vertex(int i)
+	{
+		return (E) names[i];
+	}
+
+
+	/***************************************************************************
+				Lancia una eccezione in caso il vertice non esista,
+				altrimenti ne restituisce l'id.
+	***************************************************************************/
+	private int checkVertex(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		Integer i = ids.get(v);
+		if( i==null ) throw new IllegalArgumentException(v+" non e' un vertice");
+		return i;
+	}
+
+
+	/***************************************************************************
+				Override iterator di Iterable<E>:
+				restituisce un iteratore sugli elementi di tipo E del grafo.
+	***************************************************************************/
+	public Iterator<E> iterator()
+	{
+		return ids.keySet().iterator();
+	}
+	/*
+		EFFECTS: restituisce un iteratore sull'insieme dei vertici del grafo
+				 secondo l'ordine crescente di comparazione (compareTo).
+	*/
+
+
+	/***************************************************************************
+						Controlla l'esistenza di un vertice.
+	***************************************************************************/
+	public boolean existsVertex(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		return ids.containsKey(v);
+	}
+
+
+	/***************************************************************************
+						Controlla l'esistenza di un arco.
+	***************************************************************************/
+	public boolean existsEdge(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		return contains(i, j);
+	}
+	/*
+		EFFECTS: restituisce true se j appartiene agli adiacenti di i,
+				 con i e j id di v e w, false altrimenti.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+						Restituisce il numero dei vertici.
+	***************************************************************************/
+	public int numVertex()
+	{
+		return ids.size();
+	}
+
+
+	/***************************************************************************
+						Restituisce il numero degli archi.
+	***************************************************************************/
+	public int numEdge()
+	{
+		return num_edge;
+	}
+
+
+	/***************************************************************************
+						Aggiunge un vertice al grafo.
+	***************************************************************************/
+	public void addVertex(E v)
+	{
+		if( existsVertex(v) )
+			throw new MalformedParametersException(v+" e' gia' presente");
+		if( num_free==0 ) grow(Math.max(16, 2*names.length));
+		int i = free[--num_free];
+		names[i] = v;
+		ids.put(v, i);
+		validateNeighbours(i, EMPTY);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: assegna a v un id libero (raddoppiando gli array se non
+				 ve ne sono) e lo registra nel dizionario.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v è già un vertice lancia MalformedParametersException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Aggiunge un insieme di vertici al grafo.
+	***************************************************************************/
+	public void addSetVertex(Set<? extends E> vertexes)
+	{
+		if(vertexes==null)
+			throw new NullPointerException("passato insieme nullo");
+		grow(ids.size()+vertexes.size());
+		vertexes.forEach(v->{
+			addVertex(v);
+		});
+	}
+
+
+	/***************************************************************************
+			Aggiunge un vertice al grafo e lo collega a un insieme di
+			vertici preesistenti.
+	***************************************************************************/
+	public void addAttachedVertex(E v, Set<? extends E> neighbours)
+	{
+		if(neighbours==null)
+			throw new NullPointerException("passato insieme nullo");
+		addVertex(v);
+		neighbours.forEach(w->{
+			addEdge(v, w);
+		});
+	}
+
+
+	/***************************************************************************
+						Rimuove un vertice dal grafo.
+	***************************************************************************/
+	public void removeVertex(E v)
+	{
+		int i = checkVertex(v);
+		int[] friends = isolate(i);
+		ids.remove(v);
+		names[i] = null;
+		free[num_free++] = i;
+		validateNeighbours(i, friends);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: rimuove tutti gli archi di v, poi libera il suo id; la
+				 verifica locale controlla gli ex adiacenti di v.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Rimuove un insieme di vertici dal grafo.
+	***************************************************************************/
+	public void removeSetVertex(Set<? extends E> vertexes)
+	{
+		if(vertexes==null)
+			throw new NullPointerException("passato insieme nullo");
+		vertexes.forEach(v->{
+			removeVertex(v);
+		});
+	}
+
+
+	/***************************************************************************
+							Rimuove tutti i vertici.
+	***************************************************************************/
+	public void removeAllVertex()
+	{
+		ids = new TreeMap<E, Integer>();
+		names = new Object[0];
+		adj = new int[0][];
+		deg = new int[0];
+		free = new int[0];
+		num_free = 0;
+		num_edge = 0;
+		grow(16);
+		validateAll();
+	}
+
+
+	/***************************************************************************
+					Aggiunge un arco tra due vertici del grafo.
+	***************************************************************************/
+	public void addEdge(E v, E w)
+	{
+		if( existsEdge(v, w) )
+			throw new MalformedParametersException( "<"+v+", "+w+">"+
+													" è già presente" );
+		int i = ids.get(v),
+			j = ids.get(w);
+		if( i==j )
+			throw new MalformedParametersException( "<"+v+", "+w+">"+
+													" è un cappio" );
+		insert(i, j);
+		insert(j, i);
+		num_edge++;
+		validateEdge(i, j);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: inserisce l'id di w negli adiacenti di v e viceversa,
+				 poi incrementa num_edge.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+				 Se <v,w> è già presente o v==w lancia
+				 MalformedParametersException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Aggiunge un insieme di archi ad un vertice preesistente.
+	***************************************************************************/
+	public void addSetEdge(E v, Set<? extends E> neighbours)
+	{
+		if(neighbours==null)
+			throw new NullPointerException("passato insieme nullo");
+		neighbours.forEach(w->{
+			addEdge(v, w);
+		});
+	}
+
+
+	/***************************************************************************
+							Rimuove un arco dal grafo.
+	***************************************************************************/
+	public void removeEdge(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		if( !contains(i, j) )
+			throw new MalformedParametersException( "<"+v+", "+w+">"+
+													" non è presente" );
+		delete(i, j);
+		delete(j, i);
+		num_edge--;
+		validateEdge(i, j);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: rimuove l'id di w dagli adiacenti di v e viceversa,
+				 poi decrementa num_edge.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+				 Se <v,w> non è presente lancia MalformedParametersException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Rimuove un insieme di archi da un vertice preesistente.
+	***************************************************************************/
+	public void removeSetEdge(E v, Set<? extends E> neighbours)
+	{
+		if(neighbours==null)
+			throw new NullPointerException("passato insieme nullo");
+		neighbours.forEach(w->{
+			removeEdge(v, w);
+		});
+	}
+
+
+	/***************************************************************************
+						Rimuove tutti gli archi di un vertice.
+	***************************************************************************/
+	public void isolateVertex(E v)
+	{
+		int i = checkVertex(v);
+		validateNeighbours(i, isolate(i));
+	}
+
+	private int[] isolate(int i)
+	{
+		int[] friends = Arrays.copyOf(adj[i], deg[i]);
+		for(int j: friends) delete(j, i);
+		num_edge -= deg[i];
+		deg[i] = 0;
+		adj[i] = EMPTY;
+		return friends;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: isolate() rimuove gli archi dell'id i e restituisce gli id
+				 dei suoi ex adiacenti.
+	*/
+
+
+	/***************************************************************************
+			Restituisce il grado del vertice (numero archi del vertice).
+	***************************************************************************/
+	public int degreeVertex(E v)
+	{
+		return deg[checkVertex(v)];
+	}
+
+
+	/***************************************************************************
+					Restituisce l'elenco dei vertici del grafo.
+	***************************************************************************/
+	public NavigableSet<E> listVertex()
+	{
+		return Collections.unmodifiableNavigableSet(ids.navigableKeySet());
+	}
+	/*
+		EFFECTS: restituisce un insieme navigabile non modificabile
+				 dei vertici del grafo, in ordine crescente di comparazione.
+	*/
+
+
+	/***************************************************************************
+		Classe privata di viste non modificabili sugli adiacenti di un id.
+	***************************************************************************/
+	private class AdjSet extends AbstractSet<E>
+	{
+		private final int i;
+		private final E owner;
+
+		AdjSet(int i)
+		{
+			this.i = i;
+			this.owner = vertex(i);
+		}
+
+		private void checkOwner()
+		{
+			if( names[i]!=owner ) throw new ConcurrentModificationException();
+		}
+
+		public int size()
+		{
+			checkOwner();
+			return deg[i];
+		}
+
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o)
+		{
+			checkOwner();
+			if( o==null ) return false;
+			Integer j;
+			try{ j = ids.get((E) o); }
+			catch(ClassCastException exc){ return false; }
+			return j!=null && GraphArray.this.contains(i, j);
+		}
+
+		public Iterator<E> iterator()
+		{
+			checkOwner();
+			return new Iterator<E>(){
+				final int[] a = adj[i];
+				final int d = deg[i];
+				int k = 0;
+				public boolean hasNext(){ return k<d; }
+				public E next()
+				{
+					if( k>=d ) throw new NoSuchElementException();
+					if( a!=adj[i] ) throw new ConcurrentModificationException();
+					return vertex(a[k++]);
+				}
+			};
+		}
+	}
+
+
+	/***************************************************************************
+				Restituisce l'elenco degli adiacenti di un vertice.
+	***************************************************************************/
+	public Set<E> adjacentVertex(E v)
+	{
+		return new AdjSet(checkVertex(v));
+	}
+	/*
+		EFFECTS: restituisce una vista non modificabile degli adiacenti di v,
+				 in ordine crescente di comparazione (compareTo) come
+				 GraphMap.adjacentVertex().
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+		Visita BFS dall'id src fino all'id dst (vedi GraphCSR.bfs()).
+	***************************************************************************/
+	private int bfs(int src, int dst, int[] dist, int[] prev)
+	{
+		int[] queue = new int[names.length];
+		int head = 0,
+			tail = 0;
+		Arrays.fill(dist, -1);
+		queue[tail++] = src;
+		dist[src] = 0;
+		if( src==dst ) return tail;
+		while( head<tail ){
+			int u = queue[head++];
+			for(int k=0; k<deg[u]; k++){
+				int x = adj[u][k];
+				if( dist[x]<0 ){
+					dist[x] = dist[u]+1;
+					prev[x] = u;
+					queue[tail++] = x;
+					if( x==dst ) return tail;
+				}
+			}
+		}
+		return tail;
+	}
+
+
+	/***************************************************************************
+		Restituische la distanza tra due vertici,
+		-1 se i due vertici non appartengono al medesimo sottografo connesso.
+	***************************************************************************/
+	public Integer distanceInBetween(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		int[] dist = new int[names.length];
+		bfs(i, j, dist, new int[names.length]);
+		return dist[j];
+	}
+
+
+	/***************************************************************************
+			Restituisce il percorso (elenco dei vertici intermedi)
+			tra due vertici.
+	***************************************************************************/
+	public Iterable<E> pathInBetween(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		int[] dist = new int[names.length],
+			  prev = new int[names.length];
+		bfs(i, j, dist, prev);
+		Deque<E> stackPath = new ArrayDeque<E>();
+		if( dist[j]>0 )
+			for(int x=prev[j]; x!=i; x=prev[x])
+				stackPath.addFirst(vertex(x));
+		return stackPath;
+	}
+
+
+	/***************************************************************************
+					Restituisce il diametro del grafo:
+					il maggiore dei minimi percorsi possibili.
+	***************************************************************************/
+	public int graphDiameter()
+	{
+		return freeze().graphDiameter();
+	}
+
+
+	/***************************************************************************
+			Restituisce una istantanea non modificabile del grafo in
+			formato CSR (Compressed Sparse Row).
+	***************************************************************************/
+	public GraphCSR<E> freeze()
+	{
+		return new GraphCSR<E>(this);
+	}
+
+
+	/***************************************************************************
+			Dati due nodi, restituisce uno Stream dell'intersezione
+			degli insiemi dei loro vicini.
+	***************************************************************************/
+	public Stream<E> commonNeighbours(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		int[] common = new int[Math.min(deg[i], deg[j])];
+		int n = 0;
+		for(int a=0, b=0; a<deg[i] && b<deg[j]; ){
+			int c = vertex(adj[i][a]).compareTo(vertex(adj[j][b]));
+			if( c<0 ) a++;
+			else if( c>0 ) b++;
+			else{ common[n++] = adj[i][a]; a++; b++; }
+		}
+		return IntStream.of(common).limit(n).mapToObj(this::vertex);
+	}
+	/*
+		EFFECTS: restituisce uno Stream<E> dei vertici adiacenti sia a v che
+				 a w, in ordine crescente, con una fusione dei due array.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituisce un array di Object contenente i nodi
+				in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public Object[] toArray()
+	{
+		return listVertex().toArray();
+	}
+
+
+	/***************************************************************************
+			Override toString di Object:
+			restituisce la rappresentazione in stringa dei vertici del grafo
+			in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public String toString()
+	{
+		return ids.keySet().toString();
+	}
+
+
+	/***************************************************************************
+			Controlla l'uguaglianza con un altro grafo (vedi Graph<E>).
+	***************************************************************************/
+	public boolean equals(Graph<E> h)
+	{
+		if( !listVertex().equals(h.listVertex()) ) return false;
+		for(E x: listVertex())
+			if( !adjacentVertex(x).equals(h.adjacentVertex(x)) ) return false;
+		return true;
+	}
+}
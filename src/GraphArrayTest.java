@@ -0,0 +1,149 @@
+/* GraphArrayTest confronto casuale fra GraphArray<E> e GraphMap<E> */
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.function.IntConsumer;
+import java.lang.reflect.MalformedParametersException;
+
+
+/*******************************************************************************
+		Classe per la prova del contratto di GraphArray: esegue la
+		stessa sequenza di modifiche casuali su un GraphArray e su un
+		GraphMap, con la verifica dell'invariante attiva su entrambi, e
+		dopo ogni passo confronta eccezioni, vertici, adiacenti (anche
+		nell'ordine), gradi, distanze, cammini e vicini comuni.
+		Uso: java GraphArrayTest [passi] [vertici] [seme]
+*******************************************************************************/
+public class GraphArrayTest
+{
+	public static void
+	main(String[] args)
+	{
+		int steps = args.length>0 ? Integer.parseInt(args[0]) : 20000,
+			n = args.length>1 ? Integer.parseInt(args[1]) : 30;
+		long seed = args.length>2 ? Long.parseLong(args[2]) : 42;
+
+		String error = order();
+		for(GraphMap.Validation mode: GraphMap.Validation.values())
+			if( error==null )
+				error = random(steps, n, new Random(seed), mode);
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* gli adiacenti seguono compareTo, non l'ordine di inserimento */
+	private static String order()
+	{
+		GraphArray<String> a = new GraphArray<String>();
+		GraphMap<String> m = new GraphMap<String>();
+		for(String v: new String[]{ "d", "b", "a", "c" }){
+			a.addVertex(v);
+			m.addVertex(v);
+		}
+		a.addEdge("a", "d");
+		a.addEdge("a", "b");
+		m.addEdge("a", "d");
+		m.addEdge("a", "b");
+		List<String> got = new ArrayList<String>(a.adjacentVertex("a")),
+					 expected = new ArrayList<String>(m.adjacentVertex("a"));
+		if( !got.equals(expected) || !got.equals(Arrays.asList("b", "d")) )
+			return "adjacentVertex(a)="+got+" invece di "+expected;
+		return null;
+	}
+
+
+	/* modifiche casuali identiche sui due grafi */
+	private static String random(int steps, int n, Random rnd,
+								 GraphMap.Validation mode)
+	{
+		GraphArray<Integer> a = new GraphArray<Integer>(mode);
+		GraphMap<Integer> m = new GraphMap<Integer>(mode);
+		a.setSampleRate(0.1);
+		m.setSampleRate(0.1);
+
+		for(int s=0; s<steps; s++){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(n),
+				op = rnd.nextInt(20);
+			if( op==0 && rnd.nextInt(20)!=0 ) op = 1;
+			String ea = apply(a, a::removeAllVertex, a::isolateVertex, op, v, w),
+				   em = apply(m, m::removeAllVertex, m::isolateVertex, op, v, w);
+			if( !ea.equals(em) )
+				return mode+" passo "+s+": operazione "+op+" su "+v+", "+w+
+					   ": GraphArray "+ea+", GraphMap "+em;
+			String error = compare(a, m, rnd);
+			if( error!=null ) return mode+" passo "+s+": "+error;
+		}
+		if( mode==GraphMap.Validation.DEFERRED ){
+			a.validate();
+			m.validate();
+		}
+		return null;
+	}
+
+
+	/* esegue l'operazione op e restituisce l'eccezione lanciata, "" se
+	   nessuna; removeAllVertex ed isolateVertex non sono in Graph<E> */
+	private static String apply(Graph<Integer> g, Runnable clear,
+								IntConsumer isolate, int op, int v, int w)
+	{
+		try{
+			switch( op ){
+				case 0: clear.run(); break;
+				case 1: case 2: g.removeVertex(v); break;
+				case 3: isolate.accept(v); break;
+				case 4: case 5: case 6: g.addVertex(v); break;
+				case 7: case 8: case 9: case 10: g.removeEdge(v, w); break;
+				default: g.addEdge(v, w);
+			}
+		}
+		catch(IllegalArgumentException | MalformedParametersException exc){
+			return exc.getClass().getSimpleName();
+		}
+		return "";
+	}
+
+
+	/* confronta lo stato osservabile dei due grafi */
+	private static String compare(GraphArray<Integer> a, GraphMap<Integer> m,
+								  Random rnd)
+	{
+		if( !a.toString().equals(m.toString()) )
+			return "vertici "+a+" invece di "+m;
+		if( a.numEdge()!=m.numEdge() )
+			return "numEdge "+a.numEdge()+" invece di "+m.numEdge();
+		if( !a.equals(m) || !m.equals(a) ) return "equals() falso";
+		for(Integer v: m){
+			List<Integer> la = new ArrayList<Integer>(a.adjacentVertex(v)),
+						  lm = new ArrayList<Integer>(m.adjacentVertex(v));
+			if( !la.equals(lm) )
+				return "adjacentVertex("+v+")="+la+" invece di "+lm;
+			if( a.degreeVertex(v)!=m.degreeVertex(v) )
+				return "degreeVertex("+v+") errato";
+		}
+		if( m.numVertex()<2 ) return null;
+
+		Integer[] vs = m.listVertex().toArray(new Integer[0]);
+		Integer v = vs[rnd.nextInt(vs.length)],
+				w = vs[rnd.nextInt(vs.length)];
+		if( a.existsEdge(v, w)!=m.existsEdge(v, w) )
+			return "existsEdge("+v+", "+w+") errato";
+		if( !a.distanceInBetween(v, w).equals(m.distanceInBetween(v, w)) )
+			return "distanceInBetween("+v+", "+w+")="+
+				   a.distanceInBetween(v, w)+" invece di "+
+				   m.distanceInBetween(v, w);
+		String error = new ReferenceGraph<Integer>(m)
+							.checkPath(v, w, a.pathInBetween(v, w));
+		if( error!=null ) return error;
+		List<Integer> ca = a.commonNeighbours(v, w).collect(Collectors.toList()),
+					  cm = m.commonNeighbours(v, w).collect(Collectors.toList());
+		if( !ca.equals(cm) )
+			return "commonNeighbours("+v+", "+w+")="+ca+" invece di "+cm;
+		if( a.graphDiameter()!=m.graphDiameter() ) return "graphDiameter errato";
+		return null;
+	}
+}
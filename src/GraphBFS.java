@@ -0,0 +1,266 @@
+/* GraphBFS motori di visita in ampiezza su GraphCSR<E> */
+
+import java.util.Arrays;
+
+
+/*******************************************************************************
+		Motore di visita BFS a sorgente singola su una istantanea CSR.
+		Ogni istanza possiede i propri buffer, riusati fra visite
+		successive, e non va condivisa fra thread: per il calcolo
+		parallelo se ne crea una per thread tramite una Factory.
+*******************************************************************************/
+public abstract class GraphBFS
+{
+	/***************************************************************************
+			Costruttore di motori BFS, da passare a GraphCSR
+			(o GraphMap) per scegliere il tipo di visita.
+	***************************************************************************/
+	public interface Factory
+	{
+		GraphBFS create(GraphCSR<?> g);
+	}
+
+
+	/***************************************************************************
+								Variabili di istanza.
+	***************************************************************************/
+	protected final GraphCSR<?> g;
+	protected final int[] dist;
+	protected final int[] prev;
+	protected final int[] queue;
+	protected int visited;
+
+
+	/***************************************************************************
+								Costruttore:
+					alloca i buffer per visitare il grafo g.
+	***************************************************************************/
+	protected GraphBFS(GraphCSR<?> g)
+	{
+		if( g==null ) throw new NullPointerException("passato oggetto nullo");
+		this.g = g;
+		dist = new int[g.numVertex()];
+		prev = new int[g.numVertex()];
+		queue = new int[g.numVertex()];
+		visited = 0;
+		Arrays.fill(dist, -1);
+	}
+
+
+	/***************************************************************************
+			Esegue una visita dall'id src, interrompendola appena
+			raggiunto l'id dst (dst<0 per una visita completa).
+	***************************************************************************/
+	public final int run(int src, int dst)
+	{
+		for(int k=0; k<visited; k++) dist[queue[k]] = -1;
+		visited = 0;
+		queue[visited++] = src;
+		dist[src] = 0;
+		prev[src] = -1;
+		if( src!=dst ) search(dst);
+		return visited;
+	}
+
+	public final int run(int src)
+	{
+		return run(src, -1);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: azzera i soli vertici della visita precedente, poi visita il
+				 grafo da src; restituisce il numero di vertici raggiunti, che
+				 si trovano in vertexAt(0..visited) in ordine di distanza non
+				 decrescente.
+	*/
+
+
+	/***************************************************************************
+			Prosegue la visita da queue[0], gia' inserito a distanza 0.
+	***************************************************************************/
+	protected abstract void search(int dst);
+
+
+	/***************************************************************************
+				Informazioni sull'ultima visita eseguita.
+	***************************************************************************/
+	public int distance(int v)
+	{
+		return dist[v];
+	}
+
+	public int parent(int v)
+	{
+		return prev[v];
+	}
+
+	public int visited()
+	{
+		return visited;
+	}
+
+	public int vertexAt(int k)
+	{
+		return queue[k];
+	}
+
+	public int[] visitedVertices()
+	{
+		return Arrays.copyOf(queue, visited);
+	}
+
+	public int eccentricity()
+	{
+		return dist[queue[visited-1]];
+	}
+	/*
+		EFFECTS: restituiscono rispettivamente la distanza di v dalla sorgente
+				 (-1 se non raggiunto), il suo predecessore nel cammino minimo
+				 (-1 per la sorgente), il numero di vertici raggiunti, il
+				 k-esimo vertice raggiunto, la copia dei vertici raggiunti e
+				 la massima distanza raggiunta (significativa solo per le
+				 visite complete).
+	*/
+
+
+	/***************************************************************************
+					Visita classica top-down con coda FIFO.
+	***************************************************************************/
+	private static class TopDown extends GraphBFS
+	{
+		TopDown(GraphCSR<?> g)
+		{
+			super(g);
+		}
+
+		protected void search(int dst)
+		{
+			for(int head=0; head<visited; head++){
+				int u = queue[head];
+				for(int k=g.off[u]; k<g.off[u+1]; k++){
+					int x = g.adj[k];
+					if( dist[x]<0 ){
+						dist[x] = dist[u]+1;
+						prev[x] = u;
+						queue[visited++] = x;
+						if( x==dst ) return;
+					}
+				}
+			}
+		}
+	}
+
+
+	/***************************************************************************
+		Visita direction-optimizing (Beamer): procede top-down finche' la
+		frontiera è piccola e passa a bottom-up, in cui ogni vertice non
+		ancora raggiunto cerca un adiacente nella frontiera (bitset), quando
+		gli archi uscenti dalla frontiera superano gli archi inesplorati
+		divisi per alpha; torna top-down quando la frontiera scende sotto
+		N/beta vertici.
+	***************************************************************************/
+	private static class DirectionOptimizing extends GraphBFS
+	{
+		private final int alpha, beta;
+		private final long[] frontier;
+
+		DirectionOptimizing(GraphCSR<?> g, int alpha, int beta)
+		{
+			super(g);
+			this.alpha = alpha;
+			this.beta = beta;
+			this.frontier = new long[(g.numVertex()+63)>>>6];
+		}
+
+		protected void search(int dst)
+		{
+			int n = g.numVertex(),
+				from = 0,
+				to = visited;
+			long mf = g.off[queue[0]+1]-g.off[queue[0]],
+				 mu = g.adj.length-mf;
+			boolean bottomUp = false;
+
+			while( from<to ){
+				if( !bottomUp && mf>mu/alpha ) bottomUp = true;
+				else if( bottomUp && (long)(to-from)*beta<n ) bottomUp = false;
+
+				if( bottomUp ) bottomUpStep(from, to);
+				else if( topDownStep(from, to, dst) ) return;
+
+				mf = 0;
+				for(int k=to; k<visited; k++)
+					mf += g.off[queue[k]+1]-g.off[queue[k]];
+				mu -= mf;
+				if( dst>=0 && dist[dst]>=0 ) return;
+				from = to;
+				to = visited;
+			}
+		}
+
+		private boolean topDownStep(int from, int to, int dst)
+		{
+			for(int head=from; head<to; head++){
+				int u = queue[head];
+				for(int k=g.off[u]; k<g.off[u+1]; k++){
+					int x = g.adj[k];
+					if( dist[x]<0 ){
+						dist[x] = dist[u]+1;
+						prev[x] = u;
+						queue[visited++] = x;
+						if( x==dst ) return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		private void bottomUpStep(int from, int to)
+		{
+			int level = dist[queue[from]]+1;
+			for(int k=from; k<to; k++)
+				frontier[queue[k]>>>6] |= 1L<<queue[k];
+			for(int v=0; v<g.numVertex(); v++){
+				if( dist[v]>=0 ) continue;
+				for(int k=g.off[v]; k<g.off[v+1]; k++){
+					int u = g.adj[k];
+					if( (frontier[u>>>6]&(1L<<u))!=0 ){
+						dist[v] = level;
+						prev[v] = u;
+						queue[visited++] = v;
+						break;
+					}
+				}
+			}
+			for(int k=from; k<to; k++) frontier[queue[k]>>>6] = 0;
+		}
+	}
+
+
+	/***************************************************************************
+							Factory dei motori disponibili.
+	***************************************************************************/
+	public static Factory topDown()
+	{
+		return TopDown::new;
+	}
+
+	public static Factory directionOptimizing(int alpha, int beta)
+	{
+		if( alpha<1 || beta<1 )
+			throw new IllegalArgumentException("alpha e beta devono essere >=1");
+		return g->new DirectionOptimizing(g, alpha, beta);
+	}
+
+	public static Factory directionOptimizing()
+	{
+		return directionOptimizing(14, 24);
+	}
+	/*
+		EFFECTS: restituiscono rispettivamente la Factory dei motori top-down
+				 e quella dei motori direction-optimizing con soglie alpha e
+				 beta (di default 14 e 24, i valori proposti da Beamer).
+				 Se alpha<1 || beta<1 lancia IllegalArgumentException
+				 (unchecked).
+	*/
+}
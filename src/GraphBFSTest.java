@@ -0,0 +1,106 @@
+/* GraphBFSTest prova dei motori BFS su GraphCSR */
+
+import java.util.Map;
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova dei motori di GraphBFS: con il motore
+		top-down e con quello direction-optimizing a soglie diverse
+		(anche estreme, per forzare presto o mai il passaggio a
+		bottom-up) esegue visite complete e interrotte da sorgenti
+		casuali, riusando lo stesso motore, e confronta distanze,
+		predecessori, ordine di visita ed eccentricità con la BFS del
+		modello ReferenceGraph.
+		Uso: java GraphBFSTest [grafi] [seme]
+*******************************************************************************/
+public class GraphBFSTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+		GraphBFS.Factory[] engines = {
+			GraphBFS.topDown(),
+			GraphBFS.directionOptimizing(),
+			GraphBFS.directionOptimizing(1, 1),
+			GraphBFS.directionOptimizing(1, 1000),
+			GraphBFS.directionOptimizing(1000, 1)
+		};
+
+		String error = null;
+		try{
+			GraphBFS.directionOptimizing(0, 5);
+			error = "alpha 0 accettato";
+		}
+		catch(IllegalArgumentException exc){}
+		for(int t=0; t<graphs && error==null; t++){
+			int n = 1+rnd.nextInt(300);
+			GraphMap<Integer> g = ReferenceGraph.random(rnd, n, rnd.nextInt(8*n));
+			ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+			GraphCSR<Integer> c = g.freeze();
+			for(int e=0; e<engines.length && error==null; e++){
+				GraphBFS b = engines[e].create(c);
+				for(int q=0; q<10 && error==null; q++){
+					int src = rnd.nextInt(n);
+					error = full(c, b, ref, src);
+					if( error==null ) error = early(b, ref, src, rnd.nextInt(n));
+				}
+				if( error!=null ) error = "grafo "+t+", motore "+e+": "+error;
+			}
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* visita completa: distanze, predecessori, ordine ed eccentricità */
+	private static String full(GraphCSR<Integer> c, GraphBFS b,
+							   ReferenceGraph<Integer> ref, int src)
+	{
+		Map<Integer, Integer> dist = ref.distances(src);
+		if( b.run(src)!=dist.size() || b.visited()!=dist.size() )
+			return "run("+src+") raggiunge "+b.visited()+" vertici invece di "+
+				   dist.size();
+		int ecc = 0;
+		for(int v=0; v<c.numVertex(); v++){
+			int d = dist.getOrDefault(v, -1);
+			if( b.distance(v)!=d )
+				return "distance("+v+") da "+src+" = "+b.distance(v)+
+					   " invece di "+d;
+			if( d>0 && (b.distance(b.parent(v))!=d-1 ||
+						!ref.existsEdge(b.parent(v), v)) )
+				return "parent("+v+")="+b.parent(v)+" non valido";
+			ecc = Math.max(ecc, d);
+		}
+		if( b.parent(src)!=-1 ) return "parent della sorgente "+b.parent(src);
+		for(int k=1; k<b.visited(); k++)
+			if( b.distance(b.vertexAt(k))<b.distance(b.vertexAt(k-1)) )
+				return "vertexAt() non in ordine di distanza";
+		if( b.vertexAt(0)!=src ) return "vertexAt(0) diverso dalla sorgente";
+		if( b.eccentricity()!=ecc )
+			return "eccentricity()="+b.eccentricity()+" invece di "+ecc;
+		return null;
+	}
+
+
+	/* visita interrotta a dst: la distanza di dst è comunque esatta */
+	private static String early(GraphBFS b, ReferenceGraph<Integer> ref,
+								int src, int dst)
+	{
+		b.run(src, dst);
+		Map<Integer, Integer> dist = ref.distances(src);
+		int d = dist.getOrDefault(dst, -1);
+		if( b.distance(dst)!=d )
+			return "run("+src+", "+dst+"): distanza "+b.distance(dst)+
+				   " invece di "+d;
+		for(int k=0; k<b.visited(); k++){
+			int v = b.vertexAt(k);
+			if( b.distance(v)!=dist.get(v) )
+				return "run("+src+", "+dst+"): distanza errata di "+v;
+		}
+		return null;
+	}
+}
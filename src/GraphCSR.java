@@ -0,0 +1,517 @@
+/* GraphCSR<E> istantanea compressa (CSR) di un Graph<E> */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.ArrayDeque;
+import java.util.stream.Stream;
+import java.util.stream.IntStream;
+
+
+public class GraphCSR<E extends Comparable<E>> implements Iterable<E>, Graph<E>
+{
+	/*
+		OVERVIEW:= tipo non modificabile degli insiemi di oggetti omogenei
+				   generici di tipo E, gestiti come un grafo e memorizzati
+				   in formato Compressed Sparse Row: ogni vertice è
+				   identificato da un intero denso 0..N-1 assegnato
+				   in ordine crescente di comparazione (compareTo).
+
+		AF:= <V,A> dove
+			 V = {vrt[i] | 0<=i<N}, con N=vrt.length
+			 A = {
+					<vrt[i],vrt[adj[k]]> | 0<=i<N && off[i]<=k<off[i+1]
+				 }
+
+		IR:= vrt!=null && off!=null && adj!=null
+			 && off.length==N+1 && off[0]==0 && off[N]==adj.length
+			 && perogni 0<=i<N => vrt[i]!=null
+			 && perogni 0<=i<N-1 => vrt[i].compareTo(vrt[i+1])<0
+			 && perogni 0<=i<N, perogni off[i]<=k<off[i+1]-1 =>
+					adj[k]<adj[k+1]
+			 && perogni 0<=i<N, perogni off[i]<=k<off[i+1] =>
+					0<=adj[k]<N && adj[k]!=i && i appartiene agli adiacenti
+					di adj[k]
+			 && num_edge==adj.length/2
+	*/
+
+	/***************************************************************************
+								Variabili di classe.
+			off ed adj sono visibili nel package per i motori di analisi
+			(BFS, diametro, ...) che lavorano direttamente sugli id interi.
+	***************************************************************************/
+	private final Object[] vrt;
+	final int[] off;
+	final int[] adj;
+	private final int num_edge;
+	private GraphBFS.Factory traversal = GraphBFS.directionOptimizing();
+
+
+	/***************************************************************************
+								Costruttore:
+					istanzia l'istantanea CSR del grafo passato.
+	***************************************************************************/
+	public GraphCSR(Graph<E> g)
+	{
+		if( g==null ) throw new NullPointerException("passato oggetto nullo");
+
+		vrt = g.listVertex().toArray();
+		Arrays.sort(vrt);
+		off = new int[vrt.length+1];
+		for(int i=0; i<vrt.length; i++)
+			off[i+1] = off[i]+g.degreeVertex(vertex(i));
+
+		adj = new int[off[vrt.length]];
+		for(int i=0; i<vrt.length; i++){
+			int k = off[i];
+			for(E w: g.adjacentVertex(vertex(i))) adj[k++] = id(w);
+			Arrays.sort(adj, off[i], off[i+1]);
+		}
+		num_edge = adj.length/2;
+	}
+	/*
+		EFFECTS: copia i vertici di g in vrt ordinandoli, poi per ogni
+				 vertice copia in adj gli id ordinati dei suoi adiacenti.
+				 Se g==null lancia NullPointerException (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Restituisce l'id intero di un vertice,
+					-1 se il vertice non appartiene al grafo.
+	***************************************************************************/
+	int id(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		int i = Arrays.binarySearch(vrt, v);
+		return i<0 ? -1 : i;
+	}
+
+
+	/***************************************************************************
+					Restituisce il vertice di id intero i.
+	***************************************************************************/
+	@SuppressWarnings("unchecked")
+	E vertex(int i)
+	{
+		return (E) vrt[i];
+	}
+
+
+	/***************************************************************************
+				Lancia una eccezione in caso il vertice non esista,
+				altrimenti ne restituisce l'id.
+	***************************************************************************/
+	private int checkVertex(E v)
+	{
+		int i = id(v);
+		if( i<0 ) throw new IllegalArgumentException(v+" non e' un vertice");
+		return i;
+	}
+
+
+	/***************************************************************************
+				Override iterator di Iterable<E>:
+				restituisce un iteratore sugli elementi di tipo E del grafo.
+	***************************************************************************/
+	public Iterator<E> iterator()
+	{
+		return listVertex().iterator();
+	}
+
+
+	/***************************************************************************
+						Controlla l'esistenza di un vertice.
+	***************************************************************************/
+	public boolean existsVertex(E v)
+	{
+		return id(v)>=0;
+	}
+
+
+	/***************************************************************************
+						Controlla l'esistenza di un arco.
+	***************************************************************************/
+	public boolean existsEdge(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		return Arrays.binarySearch(adj, off[i], off[i+1], j)>=0;
+	}
+	/*
+		EFFECTS: restituisce true se l'id di w compare fra gli adiacenti di v,
+				 false altrimenti.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+						Restituisce il numero dei vertici.
+	***************************************************************************/
+	public int numVertex()
+	{
+		return vrt.length;
+	}
+
+
+	/***************************************************************************
+						Restituisce il numero degli archi.
+	***************************************************************************/
+	public int numEdge()
+	{
+		return num_edge;
+	}
+
+
+	/***************************************************************************
+			Operazioni di modifica: non supportate dall'istantanea.
+	***************************************************************************/
+	public void addVertex(E v)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+
+	public void removeVertex(E v)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+
+	public void addEdge(E v, E w)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+
+	public void removeEdge(E v, E w)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+	/*
+		EFFECTS: lanciano UnsupportedOperationException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il grado del vertice (numero archi del vertice).
+	***************************************************************************/
+	public int degreeVertex(E v)
+	{
+		int i = checkVertex(v);
+		return off[i+1]-off[i];
+	}
+
+
+	/***************************************************************************
+		Classe privata di viste non modificabili su un intervallo ordinato
+		di id: l'intervallo [from,to) di ids, oppure [from,to) stesso
+		se ids==null.
+	***************************************************************************/
+	private class IdSet extends AbstractSet<E>
+	{
+		private final int[] ids;
+		private final int from, to;
+
+		IdSet(int[] ids, int from, int to)
+		{
+			this.ids = ids;
+			this.from = from;
+			this.to = to;
+		}
+
+		private int at(int k)
+		{
+			return ids==null ? k : ids[k];
+		}
+
+		public int size()
+		{
+			return to-from;
+		}
+
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o)
+		{
+			if( o==null || !(o instanceof Comparable) ) return false;
+			int j;
+			try{ j = id((E) o); }
+			catch(ClassCastException exc){ return false; }
+			if( j<0 ) return false;
+			return ids==null
+				? j>=from && j<to
+				: Arrays.binarySearch(ids, from, to, j)>=0;
+		}
+
+		public Iterator<E> iterator()
+		{
+			return new Iterator<E>(){
+				int k = from;
+				public boolean hasNext(){ return k<to; }
+				public E next()
+				{
+					if( k>=to ) throw new NoSuchElementException();
+					return vertex(at(k++));
+				}
+			};
+		}
+	}
+
+
+	/***************************************************************************
+					Restituisce l'elenco dei vertici del grafo.
+	***************************************************************************/
+	public Set<E> listVertex()
+	{
+		return new IdSet(null, 0, vrt.length);
+	}
+	/*
+		EFFECTS: restituisce una vista non modificabile dei vertici del grafo
+				 in ordine crescente di comparazione (compareTo).
+	*/
+
+
+	/***************************************************************************
+				Restituisce l'elenco degli adiacenti di un vertice.
+	***************************************************************************/
+	public Set<E> adjacentVertex(E v)
+	{
+		int i = checkVertex(v);
+		return new IdSet(adj, off[i], off[i+1]);
+	}
+	/*
+		EFFECTS: restituisce una vista non modificabile degli adiacenti di v
+				 in ordine crescente di comparazione (compareTo).
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Imposta il motore BFS usato per le visite a sorgente singola
+			(distanze, percorsi, diametro).
+	***************************************************************************/
+	public void setTraversal(GraphBFS.Factory traversal)
+	{
+		if( traversal==null )
+			throw new NullPointerException("passato oggetto nullo");
+		this.traversal = traversal;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: imposta la Factory dei motori BFS.
+				 Se traversal==null lancia NullPointerException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce la Factory dei motori BFS in uso.
+	***************************************************************************/
+	public GraphBFS.Factory getTraversal()
+	{
+		return traversal;
+	}
+
+
+	/***************************************************************************
+		Restituische la distanza tra due vertici,
+		-1 se i due vertici non appartengono al medesimo sottografo connesso.
+	***************************************************************************/
+	public Integer distanceInBetween(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		GraphBFS bfs = traversal.create(this);
+		bfs.run(i, j);
+		return bfs.distance(j);
+	}
+	/*
+		EFFECTS: restituisce la distanza di w dalla radice v nella visita del
+				 motore BFS in uso, -1 se w non è raggiungibile.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il percorso (elenco dei vertici intermedi)
+			tra due vertici.
+	***************************************************************************/
+	public Iterable<E> pathInBetween(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		GraphBFS bfs = traversal.create(this);
+		bfs.run(i, j);
+		Deque<E> stackPath = new ArrayDeque<E>();
+		if( bfs.distance(j)>0 )
+			for(int x=bfs.parent(j); x!=i; x=bfs.parent(x))
+				stackPath.addFirst(vertex(x));
+		return stackPath;
+	}
+	/*
+		EFFECTS: restituisce una Deque<E> contenente i vertici intermedi
+				 nel percorso tra v e w, vuota se w non è raggiungibile.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Restituisce il diametro del grafo:
+					il maggiore dei minimi percorsi possibili.
+	***************************************************************************/
+	public int graphDiameter()
+	{
+		return GraphDiameter.bounding(this).diameter();
+	}
+	/*
+		EFFECTS: restituisce la maggiore delle eccentricità, calcolata con
+				 poche BFS grazie ai limiti di GraphDiameter.bounding().
+	*/
+
+
+	/***************************************************************************
+			Interseca gli intervalli ordinati [a,aEnd) e [b,bEnd) di adj:
+			fusione lineare per dimensioni simili, ricerca esponenziale
+			(galloping) nel più lungo per dimensioni sbilanciate.
+	***************************************************************************/
+	int intersect(int a, int aEnd, int b, int bEnd, int[] out)
+	{
+		if( aEnd-a>bEnd-b ){
+			int aux = a;
+			a = b;
+			b = aux;
+			aux = aEnd;
+			aEnd = bEnd;
+			bEnd = aux;
+		}
+		int n = 0,
+			small = aEnd-a,
+			large = bEnd-b;
+		if( small==0 ) return 0;
+
+		if( (long)small*(32-Integer.numberOfLeadingZeros(large))>=large ){
+			while( a<aEnd && b<bEnd ){
+				if( adj[a]<adj[b] ) a++;
+				else if( adj[a]>adj[b] ) b++;
+				else{
+					if( out!=null ) out[n] = adj[a];
+					n++;
+					a++;
+					b++;
+				}
+			}
+			return n;
+		}
+
+		for(; a<aEnd && b<bEnd; a++){
+			int x = adj[a],
+				step = 1,
+				hi = b;
+			while( hi<bEnd && adj[hi]<x ){
+				b = hi+1;
+				hi += step;
+				step <<= 1;
+			}
+			int k = Arrays.binarySearch(adj, b, Math.min(hi+1, bEnd), x);
+			if( k>=0 ){
+				if( out!=null ) out[n] = x;
+				n++;
+				b = k+1;
+			}
+			else b = -k-1;
+		}
+		return n;
+	}
+	/*
+		EFFECTS: scrive in out (se non null) gli elementi comuni ai due
+				 intervalli, in ordine crescente, e ne restituisce il numero.
+				 Il costo è O(m+M) con la fusione, O(m log(M/m)) con il
+				 galloping, dove m<=M sono le lunghezze degli intervalli; si
+				 sceglie il galloping quando m log M < M.
+	*/
+
+
+	/***************************************************************************
+			Dati due nodi, restituisce uno Stream dell'intersezione
+			degli insiemi dei loro vicini.
+	***************************************************************************/
+	public Stream<E> commonNeighbours(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		int[] common = new int[Math.min(off[i+1]-off[i], off[j+1]-off[j])];
+		int n = intersect(off[i], off[i+1], off[j], off[j+1], common);
+		return IntStream.of(common).limit(n).mapToObj(this::vertex);
+	}
+	/*
+		EFFECTS: restituisce uno Stream<E> dei vertici adiacenti sia a v che
+				 a w, calcolato con intersect() sui due intervalli ordinati.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Dati due nodi, restituisce il numero dei loro vicini comuni.
+	***************************************************************************/
+	public int countCommonNeighbours(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w);
+		return intersect(off[i], off[i+1], off[j], off[j+1], null);
+	}
+	/*
+		EFFECTS: restituisce commonNeighbours(v, w).count() senza allocare
+				 l'intersezione.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituisce un array di Object contenente i nodi
+				in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public Object[] toArray()
+	{
+		return vrt.clone();
+	}
+
+
+	/***************************************************************************
+			Override toString di Object:
+			restituisce la rappresentazione in stringa dei vertici del grafo
+			in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public String toString()
+	{
+		return Arrays.toString(vrt);
+	}
+
+
+	/***************************************************************************
+			Controlla l'uguaglianza con un altro grafo (vedi Graph<E>).
+	***************************************************************************/
+	public boolean equals(Graph<E> h)
+	{
+		if( numVertex()!=h.numVertex() ) return false;
+		for(E x: this){
+			if( !h.existsVertex(x) ) return false;
+			if( !adjacentVertex(x).equals(h.adjacentVertex(x)) ) return false;
+		}
+		return true;
+	}
+	/*
+		EFFECTS: restituisce true se h ha gli stessi vertici e, perogni
+				 vertice, lo stesso insieme di adiacenti, false altrimenti.
+	*/
+}
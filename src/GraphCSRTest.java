@@ -0,0 +1,86 @@
+/* GraphCSRTest prova dell'istantanea CSR di GraphMap */
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphMap.freeze(): su grafi casuali, anche
+		sconnessi, confronta l'istantanea GraphCSR con il modello
+		ReferenceGraph (vertici, adiacenti, distanze, cammini, vicini
+		comuni e diametro) e verifica che resti invariata quando il
+		grafo di partenza viene poi modificato.
+		Uso: java GraphCSRTest [grafi] [seme]
+*******************************************************************************/
+public class GraphCSRTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 300;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			int n = rnd.nextInt(60);
+			GraphMap<Integer> g = ReferenceGraph.random(rnd, n, rnd.nextInt(2*n+1));
+			ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+			GraphCSR<Integer> c = g.freeze();
+			error = check(c, ref, n, rnd);
+
+			/* l'istantanea non vede le modifiche successive */
+			if( error==null && n>1 ){
+				g.removeVertex(0);
+				g.addVertex(n);
+				g.addEdge(n, 1);
+				error = ref.compare(c);
+				if( error==null && c.equals(g) ) error = "equals() vero dopo modifiche";
+			}
+			if( error!=null ) error = "grafo "+t+": "+error;
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	private static String check(GraphCSR<Integer> c, ReferenceGraph<Integer> ref,
+								int n, Random rnd)
+	{
+		String error = ref.compare(c);
+		if( error!=null ) return error;
+		if( !Arrays.equals(c.toArray(), ref.vertices().toArray()) )
+			return "toArray() "+Arrays.toString(c.toArray());
+		if( c.graphDiameter()!=ref.diameter() )
+			return "graphDiameter()="+c.graphDiameter()+" invece di "+ref.diameter();
+		try{
+			c.addEdge(0, 1);
+			return "addEdge() accettato";
+		}
+		catch(UnsupportedOperationException exc){}
+		try{
+			c.existsEdge(0, n);
+			return "existsEdge() su un vertice inesistente";
+		}
+		catch(IllegalArgumentException exc){}
+		if( c.existsVertex(n) ) return "existsVertex("+n+") vero";
+		if( n==0 ) return null;
+
+		for(int q=0; q<20; q++){
+			Integer v = rnd.nextInt(n),
+					w = rnd.nextInt(n);
+			if( c.existsEdge(v, w)!=ref.existsEdge(v, w) )
+				return "existsEdge("+v+", "+w+") errato";
+			if( c.distanceInBetween(v, w)!=ref.distance(v, w) )
+				return "distanceInBetween("+v+", "+w+")="+
+					   c.distanceInBetween(v, w)+" invece di "+ref.distance(v, w);
+			error = ref.checkPath(v, w, c.pathInBetween(v, w));
+			if( error!=null ) return error;
+			if( !c.commonNeighbours(v, w).collect(Collectors.toList())
+					.equals(ref.commonNeighbours(v, w)) )
+				return "commonNeighbours("+v+", "+w+") errato";
+		}
+		return null;
+	}
+}
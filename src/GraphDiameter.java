@@ -0,0 +1,280 @@
+/* GraphDiameter motori di calcolo del diametro su GraphCSR<E> */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/*******************************************************************************
+			Classe di funzioni statiche per il calcolo del diametro
+			(maggiore delle eccentricità) di una istantanea CSR.
+*******************************************************************************/
+public class GraphDiameter
+{
+	/***************************************************************************
+			Risultato di un calcolo del diametro: il valore e il numero
+			di visite BFS effettivamente eseguite per ottenerlo.
+	***************************************************************************/
+	public static final class Result
+	{
+		private final int diameter;
+		private final int traversals;
+
+		Result(int diameter, int traversals)
+		{
+			this.diameter = diameter;
+			this.traversals = traversals;
+		}
+
+		public int diameter()
+		{
+			return diameter;
+		}
+
+		public int traversals()
+		{
+			return traversals;
+		}
+
+		public String toString()
+		{
+			return "diametro = "+diameter+" ("+traversals+" BFS)";
+		}
+	}
+
+
+	/***************************************************************************
+			Calcola il diametro esatto con l'algoritmo BoundingDiameters
+			(Takes e Kosters), componente connessa per componente connessa.
+	***************************************************************************/
+	public static Result bounding(GraphCSR<?> g)
+	{
+		int n = g.numVertex(),
+			best = 0,
+			traversals = 0;
+		GraphBFS b = g.getTraversal().create(g);
+		boolean[] done = new boolean[n];
+		int[] eccL = new int[n],
+			  eccU = new int[n];
+
+		for(int s=0; s<n; s++){
+			if( done[s] ) continue;
+
+			/* la prima BFS etichetta la componente ed e' gia' un passo
+			   dell'algoritmo */
+			b.run(s);
+			traversals++;
+			int[] cand = b.visitedVertices();
+			for(int w: cand){
+				done[w] = true;
+				eccL[w] = 0;
+				eccU[w] = Integer.MAX_VALUE;
+			}
+			if( cand.length-1<=best ) continue;
+
+			int size = cand.length,
+				lower = 0,
+				upper = Integer.MAX_VALUE,
+				v = s;
+			boolean high = false;
+			for(;;){
+				int ecc = b.eccentricity();
+				lower = Math.max(lower, ecc);
+				upper = Math.min(upper, 2*ecc);
+				for(int k=0; k<size; k++){
+					int w = cand[k],
+						d = b.distance(w);
+					eccL[w] = Math.max(eccL[w], Math.max(ecc-d, d));
+					eccU[w] = Math.min(eccU[w], ecc+d);
+					lower = Math.max(lower, eccL[w]);
+				}
+
+				int maxU = lower;
+				for(int k=0; k<size; ){
+					int w = cand[k];
+					if( (eccU[w]<=lower && 2*eccL[w]>=upper) ||
+						eccL[w]==eccU[w] )
+						cand[k] = cand[--size];
+					else{
+						maxU = Math.max(maxU, eccU[w]);
+						k++;
+					}
+				}
+				upper = Math.min(upper, maxU);
+				if( lower>=upper || size==0 || upper<=best ) break;
+
+				v = select(g, cand, size, eccL, eccU, high=!high);
+				b.run(v);
+				traversals++;
+			}
+			best = Math.max(best, Math.min(lower, upper));
+		}
+		return new Result(best, traversals);
+	}
+	/*
+		EFFECTS: perogni componente connessa mantiene per ogni vertice w
+				 i limiti eccL[w]<=ecc(w)<=eccU[w], aggiornati dopo ogni BFS
+				 da v con ecc(v)-d(v,w), d(v,w) e ecc(v)+d(v,w), e i limiti
+				 lower<=diametro<=upper; scarta i vertici che non possono
+				 più migliorarli e termina quando lower==upper o quando la
+				 componente non può superare il diametro già trovato.
+				 Restituisce il diametro (lo stesso valore di sequential(g))
+				 e il numero di BFS eseguite.
+	*/
+
+
+	/***************************************************************************
+			Sceglie la prossima sorgente fra i candidati, alternando il
+			maggiore limite superiore e il minore limite inferiore;
+			a parità sceglie il vertice di grado maggiore.
+	***************************************************************************/
+	private static int select(GraphCSR<?> g, int[] cand, int size,
+							  int[] eccL, int[] eccU, boolean high)
+	{
+		int v = cand[0];
+		for(int k=1; k<size; k++){
+			int w = cand[k];
+			int cmp = high ? Integer.compare(eccU[w], eccU[v])
+						   : Integer.compare(eccL[v], eccL[w]);
+			if( cmp>0 || (cmp==0 && degree(g, w)>degree(g, v)) ) v = w;
+		}
+		return v;
+	}
+
+	private static int degree(GraphCSR<?> g, int v)
+	{
+		return g.off[v+1]-g.off[v];
+	}
+
+
+	/***************************************************************************
+			Calcola in sequenza l'eccentricità di ogni vertice.
+	***************************************************************************/
+	public static int sequential(GraphCSR<?> g)
+	{
+		GraphBFS b = g.getTraversal().create(g);
+		int max = 0;
+		for(int i=0; i<g.numVertex(); i++){
+			b.run(i);
+			max = Math.max(max, b.eccentricity());
+		}
+		return max;
+	}
+	/*
+		EFFECTS: restituisce il massimo delle eccentricità dei vertici di g,
+				 calcolate con una BFS per vertice con un unico motore
+				 g.getTraversal().
+	*/
+
+
+	/***************************************************************************
+			Sottoproblema del calcolo parallelo: le BFS dalle sorgenti
+			con id in [from,to), suddivise ricorsivamente fino a grain;
+			engines contiene i motori BFS liberi della chiamata.
+	***************************************************************************/
+	private static class Sources extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final GraphCSR<?> g;
+		private final int from, to, grain;
+		private final ConcurrentLinkedQueue<GraphBFS> engines;
+		private final AtomicInteger max;
+		private final AtomicBoolean cancel;
+
+		Sources(GraphCSR<?> g, int from, int to, int grain,
+				ConcurrentLinkedQueue<GraphBFS> engines,
+				AtomicInteger max, AtomicBoolean cancel)
+		{
+			this.g = g;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.engines = engines;
+			this.max = max;
+			this.cancel = cancel;
+		}
+
+		protected void compute()
+		{
+			if( to-from>grain ){
+				int mid = (from+to)>>>1;
+				invokeAll(
+					new Sources(g, from, mid, grain, engines, max, cancel),
+					new Sources(g, mid, to, grain, engines, max, cancel)
+				);
+				return;
+			}
+			GraphBFS b = engines.poll();
+			if( b==null ) b = g.getTraversal().create(g);
+			int local = 0;
+			try{
+				for(int i=from; i<to; i++){
+					if( cancel.get() ) throw new CancellationException();
+					b.run(i);
+					local = Math.max(local, b.eccentricity());
+				}
+			}
+			finally{ engines.add(b); }
+			final int aux = local;
+			max.accumulateAndGet(aux, Math::max);
+		}
+	}
+
+
+	/***************************************************************************
+			Calcola in parallelo l'eccentricità di ogni vertice
+			usando i thread del pool passato.
+	***************************************************************************/
+	public static int parallel(GraphCSR<?> g, ForkJoinPool pool,
+								AtomicBoolean cancel)
+	{
+		if( g==null || pool==null || cancel==null )
+			throw new NullPointerException("passato oggetto nullo");
+		int n = g.numVertex();
+		if( n==0 ) return 0;
+
+		ConcurrentLinkedQueue<GraphBFS> engines =
+			new ConcurrentLinkedQueue<GraphBFS>();
+		AtomicInteger max = new AtomicInteger(0);
+		int grain = Math.max(1, n/(8*pool.getParallelism()));
+		pool.invoke(new Sources(g, 0, n, grain, engines, max, cancel));
+		return max.get();
+	}
+	/*
+		EFFECTS: suddivide le sorgenti in blocchi eseguiti dai thread di pool,
+				 ciascuno con un motore g.getTraversal() preso in prestito da
+				 una coda locale alla chiamata e restituito al termine del
+				 blocco, e accumula le eccentricità in un massimo atomico
+				 condiviso; restituisce lo stesso valore di sequential(g).
+				 I motori (O(V) memoria ciascuno, al più uno per blocco in
+				 esecuzione) non sono legati ai thread di pool e diventano
+				 irraggiungibili al ritorno.
+				 Se g==null || pool==null || cancel==null lancia
+				 NullPointerException (unchecked).
+				 Se cancel diventa true durante il calcolo lancia
+				 CancellationException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Calcola in parallelo il diametro con un pool temporaneo
+			di parallelism thread.
+	***************************************************************************/
+	public static int parallel(GraphCSR<?> g, int parallelism)
+	{
+		if( parallelism<1 )
+			throw new IllegalArgumentException(parallelism+" thread");
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try{ return parallel(g, pool, new AtomicBoolean(false)); }
+		finally{ pool.shutdown(); }
+	}
+	/*
+		EFFECTS: come parallel(g, pool, cancel) su un nuovo ForkJoinPool di
+				 parallelism thread, chiuso al termine del calcolo.
+				 Se parallelism<1 lancia IllegalArgumentException (unchecked).
+	*/
+}
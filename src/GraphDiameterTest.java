@@ -0,0 +1,106 @@
+/* GraphDiameterTest prova del calcolo parallelo del diametro */
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphDiameter.parallel(): su grafi casuali
+		di densità variabile, con entrambi i motori BFS, confronta il
+		diametro calcolato su 1..4 thread e su un pool condiviso fra le
+		chiamate con quello di GraphDiameter.sequential() e del modello
+		ReferenceGraph; poi verifica l'interruzione tramite cancel e che
+		il pool resti utilizzabile dopo di essa.
+		Uso: java GraphDiameterTest [grafi] [seme]
+*******************************************************************************/
+public class GraphDiameterTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+		ForkJoinPool pool = new ForkJoinPool(3);
+
+		String error = null;
+		try{
+			for(int t=0; t<graphs && error==null; t++){
+				int n = rnd.nextInt(120);
+				GraphMap<Integer> g =
+					ReferenceGraph.random(rnd, n, rnd.nextInt(3*n+1));
+				error = compare(g, pool);
+				if( error!=null ) error = "grafo "+t+": "+error;
+			}
+			if( error==null ) error = cancel(pool, rnd);
+		}
+		finally{ pool.shutdown(); }
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* stesso diametro su tutti i motori e numeri di thread */
+	private static String compare(GraphMap<Integer> g, ForkJoinPool pool)
+	{
+		int expected = new ReferenceGraph<Integer>(g).diameter();
+		for(GraphBFS.Factory f: new GraphBFS.Factory[]{
+				GraphBFS.topDown(), GraphBFS.directionOptimizing(),
+				GraphBFS.directionOptimizing(1, 1) }){
+			GraphCSR<Integer> c = g.freeze();
+			c.setTraversal(f);
+			if( GraphDiameter.sequential(c)!=expected )
+				return "sequential()="+GraphDiameter.sequential(c)+
+					   " invece di "+expected;
+			for(int threads=1; threads<=4; threads++)
+				if( GraphDiameter.parallel(c, threads)!=expected )
+					return "parallel(g, "+threads+")="+
+						   GraphDiameter.parallel(c, threads)+" invece di "+expected;
+			int shared = GraphDiameter.parallel(c, pool, new AtomicBoolean(false));
+			if( shared!=expected )
+				return "parallel(g, pool)="+shared+" invece di "+expected;
+		}
+		if( g.graphDiameter(2)!=expected ) return "graphDiameter(2) errato";
+		return null;
+	}
+
+
+	/* l'interruzione lancia CancellationException e non blocca il pool */
+	private static String cancel(ForkJoinPool pool, Random rnd)
+	{
+		GraphCSR<Integer> c = ReferenceGraph.random(rnd, 3000, 6000).freeze();
+		try{
+			GraphDiameter.parallel(c, pool, new AtomicBoolean(true));
+			return "cancel già vero ignorato";
+		}
+		catch(CancellationException exc){}
+
+		AtomicBoolean flag = new AtomicBoolean(false);
+		Thread stopper = new Thread(()->{
+			try{ Thread.sleep(20); }
+			catch(InterruptedException exc){}
+			flag.set(true);
+		});
+		stopper.start();
+		try{
+			GraphDiameter.parallel(c, pool, flag);
+			if( flag.get() ) return "calcolo concluso dopo cancel";
+		}
+		catch(CancellationException exc){}
+		try{ stopper.join(); }
+		catch(InterruptedException exc){}
+
+		GraphCSR<Integer> small = ReferenceGraph.random(rnd, 50, 60).freeze();
+		int expected = GraphDiameter.sequential(small);
+		if( GraphDiameter.parallel(small, pool, new AtomicBoolean(false))!=expected )
+			return "pool inutilizzabile dopo l'interruzione";
+		try{
+			GraphDiameter.parallel(small, 0);
+			return "parallelism 0 accettato";
+		}
+		catch(IllegalArgumentException exc){}
+		return null;
+	}
+}
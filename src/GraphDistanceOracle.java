@@ -0,0 +1,353 @@
+/* GraphDistanceOracle indice delle distanze basato su landmark */
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CompletableFuture;
+
+
+public class GraphDistanceOracle<E extends Comparable<E>>
+{
+	/*
+		OVERVIEW:= indice non modificabile delle distanze di una versione di
+				   un GraphMap<E>: per k vertici landmark l memorizza d(l,x)
+				   perogni vertice x e ricava in O(k) limiti inferiori e
+				   superiori di d(v,w) dalla disuguaglianza triangolare;
+				   opzionalmente memorizza le etichette del Pruned Landmark
+				   Labeling, che danno la distanza esatta.
+
+		AF:= <G,L> dove G = csr, versione version di source,
+					  L = {landmark[0], ..., landmark[k-1]}
+
+		IR:= source!=null && csr!=null && landmark!=null && dist!=null
+			 && dist.length==landmark.length
+			 && perogni 0<=i<k => dist[i][x]==d(landmark[i],x) in csr,
+								  -1 se x non è raggiungibile
+			 && (hubs==null && hubDist==null) ||
+				(perogni x => hubs[x] ordinato e, perogni coppia <s,t>,
+							   d(s,t)==min{hubDist[s][a]+hubDist[t][b] |
+										   hubs[s][a]==hubs[t][b]})
+	*/
+
+	/***************************************************************************
+			Criteri di scelta dei landmark.
+	***************************************************************************/
+	public enum Selection
+	{
+		DEGREE,		/* i k vertici di grado maggiore */
+		RANDOM		/* k vertici scelti a caso */
+	}
+
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private final GraphMap<E> source;
+	private final long version;
+	private final GraphCSR<E> csr;
+	private final Selection selection;
+	private final boolean exact;
+	private final int[] landmark;
+	private final int[][] dist;
+	private int[][] hubs;
+	private int[][] hubDist;
+
+
+	/***************************************************************************
+							Costruttore:
+			costruisce l'indice sulla versione corrente di g con k
+			landmark scelti secondo selection e, se exact==true,
+			anche le etichette per le distanze esatte.
+	***************************************************************************/
+	public GraphDistanceOracle(GraphMap<E> g, int k, Selection selection,
+							   boolean exact)
+	{
+		this(g, g.freeze(), g.modCount(), k, selection, exact);
+	}
+	/*
+		EFFECTS: congela g in una istantanea CSR ed esegue una BFS da ognuno
+				 dei landmark (ed il Pruned Landmark Labeling se exact).
+				 Se g==null || selection==null lancia NullPointerException
+				 (unchecked).
+				 Se k<1 lancia IllegalArgumentException (unchecked).
+	*/
+
+	private GraphDistanceOracle(GraphMap<E> g, GraphCSR<E> csr, long version,
+								int k, Selection selection, boolean exact)
+	{
+		if( selection==null )
+			throw new NullPointerException("passato oggetto nullo");
+		if( k<1 ) throw new IllegalArgumentException(k+" landmark");
+		this.source = g;
+		this.csr = csr;
+		this.version = version;
+		this.selection = selection;
+		this.exact = exact;
+
+		int n = csr.numVertex();
+		Integer[] order = byDegree(csr);
+		if( selection==Selection.RANDOM ){
+			Random rnd = new Random(version);
+			for(int i=n-1; i>0; i--){
+				int j = rnd.nextInt(i+1);
+				Integer aux = order[i];
+				order[i] = order[j];
+				order[j] = aux;
+			}
+		}
+		landmark = new int[Math.min(k, n)];
+		for(int i=0; i<landmark.length; i++) landmark[i] = order[i];
+
+		dist = new int[landmark.length][];
+		IntStream.range(0, landmark.length).parallel().forEach(i->{
+			GraphBFS bfs = csr.getTraversal().create(csr);
+			bfs.run(landmark[i]);
+			int[] d = new int[n];
+			for(int x=0; x<n; x++) d[x] = bfs.distance(x);
+			dist[i] = d;
+		});
+
+		if( exact ) label(Arrays.stream(byDegree(csr))
+								.mapToInt(Integer::intValue)
+								.toArray());
+	}
+
+
+	/***************************************************************************
+			Restituisce gli id dei vertici in ordine di grado decrescente.
+	***************************************************************************/
+	private static Integer[] byDegree(GraphCSR<?> csr)
+	{
+		Integer[] order = new Integer[csr.numVertex()];
+		for(int i=0; i<order.length; i++) order[i] = i;
+		Arrays.sort(order, (a, b)->Integer.compare(
+			csr.off[b+1]-csr.off[b], csr.off[a+1]-csr.off[a]
+		));
+		return order;
+	}
+
+
+	/***************************************************************************
+			Pruned Landmark Labeling (Akiba, Iwata, Yoshida): una BFS per
+			vertice, nell'ordine passato, che si interrompe sui vertici
+			la cui distanza è già coperta dalle etichette esistenti.
+	***************************************************************************/
+	private void label(int[] order)
+	{
+		int n = csr.numVertex();
+		int[] size = new int[n],
+			  tmp = new int[n],
+			  d = new int[n],
+			  queue = new int[n];
+		hubs = new int[n][];
+		hubDist = new int[n][];
+		for(int x=0; x<n; x++){
+			hubs[x] = new int[2];
+			hubDist[x] = new int[2];
+		}
+		Arrays.fill(tmp, Integer.MAX_VALUE);
+		Arrays.fill(d, -1);
+
+		for(int r=0; r<n; r++){
+			int root = order[r];
+			for(int a=0; a<size[root]; a++)
+				tmp[hubs[root][a]] = hubDist[root][a];
+
+			int head = 0,
+				tail = 0;
+			queue[tail++] = root;
+			d[root] = 0;
+			while( head<tail ){
+				int u = queue[head++];
+				int best = Integer.MAX_VALUE;
+				for(int a=0; a<size[u]; a++)
+					if( tmp[hubs[u][a]]!=Integer.MAX_VALUE )
+						best = Math.min(best, tmp[hubs[u][a]]+hubDist[u][a]);
+				if( best<=d[u] ) continue;
+
+				if( size[u]==hubs[u].length ){
+					hubs[u] = Arrays.copyOf(hubs[u], 2*size[u]);
+					hubDist[u] = Arrays.copyOf(hubDist[u], 2*size[u]);
+				}
+				hubs[u][size[u]] = r;
+				hubDist[u][size[u]] = d[u];
+				size[u]++;
+				if( u==root ) tmp[r] = 0;
+
+				for(int k=csr.off[u]; k<csr.off[u+1]; k++){
+					int x = csr.adj[k];
+					if( d[x]<0 ){
+						d[x] = d[u]+1;
+						queue[tail++] = x;
+					}
+				}
+			}
+
+			for(int k=0; k<tail; k++) d[queue[k]] = -1;
+			for(int a=0; a<size[root]; a++) tmp[hubs[root][a]] = Integer.MAX_VALUE;
+		}
+		for(int x=0; x<n; x++){
+			hubs[x] = Arrays.copyOf(hubs[x], size[x]);
+			hubDist[x] = Arrays.copyOf(hubDist[x], size[x]);
+		}
+	}
+	/*
+		MODIFIES: hubs, hubDist
+		EFFECTS: le etichette usano come hub il rango r del vertice in order,
+				 cosicché ogni hubs[x] risulta ordinato in modo crescente.
+	*/
+
+
+	/***************************************************************************
+				Lancia una eccezione in caso il vertice non sia
+				indicizzato, altrimenti ne restituisce l'id.
+	***************************************************************************/
+	private int checkVertex(E v)
+	{
+		int i = csr.id(v);
+		if( i<0 ) throw new IllegalArgumentException(v+" non e' indicizzato");
+		return i;
+	}
+
+
+	/***************************************************************************
+			Restituisce un limite superiore della distanza tra v e w.
+	***************************************************************************/
+	public int upperBound(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w),
+			best = Integer.MAX_VALUE;
+		if( i==j ) return 0;
+		for(int[] d: dist){
+			if( (d[i]<0)!=(d[j]<0) ) return -1;
+			if( d[i]>=0 ) best = Math.min(best, d[i]+d[j]);
+		}
+		return best;
+	}
+	/*
+		EFFECTS: restituisce min{d(v,l)+d(l,w)} sui landmark l raggiungibili
+				 da entrambi; -1 se un landmark dimostra che v e w non sono
+				 connessi, Integer.MAX_VALUE se nessun landmark li raggiunge.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono indicizzati lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce un limite inferiore della distanza tra v e w.
+	***************************************************************************/
+	public int lowerBound(E v, E w)
+	{
+		int i = checkVertex(v),
+			j = checkVertex(w),
+			best = i==j ? 0 : 1;
+		for(int[] d: dist){
+			if( (d[i]<0)!=(d[j]<0) ) return -1;
+			if( d[i]>=0 ) best = Math.max(best, Math.abs(d[i]-d[j]));
+		}
+		return best;
+	}
+	/*
+		EFFECTS: restituisce max{|d(v,l)-d(l,w)|} sui landmark l (almeno 1
+				 se v!=w); -1 se un landmark dimostra che v e w non sono
+				 connessi.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono indicizzati lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce la distanza esatta tra v e w
+			usando le etichette del Pruned Landmark Labeling.
+	***************************************************************************/
+	public int distance(E v, E w)
+	{
+		if( !exact )
+			throw new IllegalStateException("indice senza distanze esatte");
+		int i = checkVertex(v),
+			j = checkVertex(w),
+			best = Integer.MAX_VALUE;
+		int[] hi = hubs[i],
+			  hj = hubs[j];
+		for(int a=0, b=0; a<hi.length && b<hj.length; ){
+			if( hi[a]<hj[b] ) a++;
+			else if( hi[a]>hj[b] ) b++;
+			else{
+				best = Math.min(best, hubDist[i][a]+hubDist[j][b]);
+				a++;
+				b++;
+			}
+		}
+		return best==Integer.MAX_VALUE ? -1 : best;
+	}
+	/*
+		EFFECTS: restituisce la distanza tra v e w nella versione indicizzata,
+				 -1 se non sono connessi.
+				 Se l'indice è stato costruito con exact==false lancia
+				 IllegalStateException (unchecked).
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono indicizzati lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce true se il grafo è stato modificato dopo la
+			costruzione dell'indice.
+	***************************************************************************/
+	public boolean isStale()
+	{
+		return source.modCount()!=version;
+	}
+
+
+	/***************************************************************************
+			Restituiscono il numero di landmark e la versione indicizzata.
+	***************************************************************************/
+	public int numLandmarks()
+	{
+		return landmark.length;
+	}
+
+	public long version()
+	{
+		return version;
+	}
+
+
+	/***************************************************************************
+			Ricostruisce l'indice sulla versione corrente del grafo.
+	***************************************************************************/
+	public GraphDistanceOracle<E> rebuild()
+	{
+		return new GraphDistanceOracle<E>(source, landmark.length, selection,
+										  exact);
+	}
+
+
+	/***************************************************************************
+			Ricostruisce l'indice in background sull'executor passato.
+	***************************************************************************/
+	public CompletableFuture<GraphDistanceOracle<E>> rebuildAsync(Executor ex)
+	{
+		if( ex==null ) throw new NullPointerException("passato oggetto nullo");
+		GraphCSR<E> snapshot = source.freeze();
+		long current = source.modCount();
+		int k = landmark.length;
+		return CompletableFuture.supplyAsync(()->
+			new GraphDistanceOracle<E>(source, snapshot, current, k,
+									   selection, exact), ex
+		);
+	}
+	/*
+		EFFECTS: congela il grafo nel thread chiamante (O(V+E)), poi esegue su
+				 ex le BFS e l'etichettatura, restituendo il nuovo indice
+				 tramite un CompletableFuture; il grafo può essere modificato
+				 mentre la costruzione è in corso.
+				 Se ex==null lancia NullPointerException (unchecked).
+	*/
+}
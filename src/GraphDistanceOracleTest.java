@@ -0,0 +1,119 @@
+/* GraphDistanceOracleTest prova dell'indice delle distanze a landmark */
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphDistanceOracle: su grafi casuali,
+		anche sconnessi, confronta per ogni coppia di vertici i limiti
+		inferiore e superiore e la distanza esatta con la BFS del modello
+		ReferenceGraph, con entrambi i criteri di scelta e diversi
+		numeri di landmark; verifica poi isStale(), rebuild() e che
+		rebuildAsync() indicizzi la versione del momento della chiamata.
+		Uso: java GraphDistanceOracleTest [grafi] [seme]
+*******************************************************************************/
+public class GraphDistanceOracleTest
+{
+	public static void
+	main(String[] args) throws InterruptedException, ExecutionException
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 100;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			int n = 1+rnd.nextInt(60);
+			GraphMap<Integer> g = ReferenceGraph.random(rnd, n, rnd.nextInt(2*n));
+			ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+			for(GraphDistanceOracle.Selection s: GraphDistanceOracle.Selection.values()){
+				int k = 1+rnd.nextInt(n+2);
+				error = bounds(new GraphDistanceOracle<Integer>(g, k, s, t%2==0),
+							   ref, t%2==0);
+				if( error!=null ){
+					error = "grafo "+t+", "+s+", "+k+" landmark: "+error;
+					break;
+				}
+			}
+		}
+		if( error==null ) error = versions(rnd);
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* limiti e distanze esatte su tutte le coppie */
+	private static String bounds(GraphDistanceOracle<Integer> o,
+								 ReferenceGraph<Integer> ref, boolean exact)
+	{
+		for(Integer v: ref.vertices()){
+			Map<Integer, Integer> dist = ref.distances(v);
+			for(Integer w: ref.vertices()){
+				int d = dist.getOrDefault(w, -1),
+					lower = o.lowerBound(v, w),
+					upper = o.upperBound(v, w);
+				if( d<0 ){
+					if( upper!=-1 && upper!=Integer.MAX_VALUE )
+						return "upperBound("+v+", "+w+")="+upper+
+							   " per vertici non connessi";
+				}
+				else if( lower<0 || lower>d || upper<d )
+					return "limiti ["+lower+", "+upper+"] per d("+v+", "+w+")="+d;
+				if( exact && o.distance(v, w)!=d )
+					return "distance("+v+", "+w+")="+o.distance(v, w)+
+						   " invece di "+d;
+			}
+		}
+		if( !exact )
+			try{
+				o.distance(ref.vertices().first(), ref.vertices().first());
+				return "distance() senza etichette";
+			}
+			catch(IllegalStateException exc){}
+		return null;
+	}
+
+
+	/* isStale(), rebuild() e rebuildAsync() */
+	private static String versions(Random rnd)
+		throws InterruptedException, ExecutionException
+	{
+		GraphMap<Integer> g = ReferenceGraph.random(rnd, 40, 50);
+		GraphDistanceOracle<Integer> o = new GraphDistanceOracle<Integer>(
+			g, 4, GraphDistanceOracle.Selection.DEGREE, true
+		);
+		if( o.isStale() || o.version()!=g.modCount() )
+			return "indice appena costruito già scaduto";
+		g.addVertex(40);
+		g.addEdge(40, 0);
+		if( !o.isStale() ) return "isStale() falso dopo una modifica";
+		try{
+			o.upperBound(40, 0);
+			return "vertice non indicizzato accettato";
+		}
+		catch(IllegalArgumentException exc){}
+
+		GraphDistanceOracle<Integer> r = o.rebuild();
+		if( r.isStale() || r.distance(40, 0)!=1 )
+			return "rebuild() non indicizza la versione corrente";
+
+		ReferenceGraph<Integer> before = new ReferenceGraph<Integer>(g);
+		ExecutorService ex = Executors.newSingleThreadExecutor();
+		try{
+			CompletableFuture<GraphDistanceOracle<Integer>> f =
+				o.rebuildAsync(ex);
+			g.removeVertex(0);
+			GraphDistanceOracle<Integer> a = f.get();
+			if( !a.isStale() ) return "rebuildAsync() non segnala la modifica";
+			String error = bounds(a, before, true);
+			if( error!=null ) return "rebuildAsync(): "+error;
+		}
+		finally{ ex.shutdown(); }
+		return null;
+	}
+}
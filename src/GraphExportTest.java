@@ -0,0 +1,260 @@
+/* GraphExportTest prova dei formati di esportazione di Graphs */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova di Graphs.export(): esporta grafi casuali,
+		con nomi pieni di caratteri da proteggere (virgolette, '\',
+		TAB, a capo, '<', '&', ...), in ciascuno dei formati di
+		GraphExporter, interi o ristretti ad un sottoinsieme di vertici,
+		rilegge l'output con un piccolo analizzatore per formato e lo
+		confronta con il sottografo indotto del modello ReferenceGraph;
+		verifica anche il resoconto e che la versione su file scriva
+		lo stesso testo in UTF-8.
+		Uso: java GraphExportTest [grafi] [seme]
+*******************************************************************************/
+public class GraphExportTest
+{
+	private static final String ALPHABET = "abcxyz \"\\\t\n\r<>&'-:è世 ";
+
+	public static void
+	main(String[] args) throws IOException
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+		File file = File.createTempFile("graph", ".out");
+		file.deleteOnExit();
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			GraphMap<String> g = random(rnd);
+			Set<String> subset = null;
+			if( t%2==1 ){
+				subset = new TreeSet<String>();
+				for(String v: g) if( rnd.nextInt(3)>0 ) subset.add(v);
+				subset.add("assente");
+			}
+			ReferenceGraph<String> expected = new ReferenceGraph<String>(g);
+			if( subset!=null )
+				for(String v: g) if( !subset.contains(v) ) expected.removeVertex(v);
+
+			for(int f=0; f<4 && error==null; f++){
+				StringWriter out = new StringWriter();
+				Graphs.ExportReport r = Graphs.export(g, format(f), out, subset);
+				String text = out.toString();
+				ReferenceGraph<String> read = parse(f, text);
+				error = read==null ? "output non analizzabile" : compare(expected, read);
+				if( error==null && (r.vertices()!=expected.numVertex() ||
+					r.edges()!=expected.numEdge() ||
+					r.omittedVertices()!=g.numVertex()-expected.numVertex() ||
+					r.omittedEdges()!=g.numEdge()-expected.numEdge() ||
+					r.isComplete()!=(expected.numVertex()==g.numVertex())) )
+					error = "resoconto errato: "+r;
+				if( error==null ){
+					Graphs.export(g, format(f), file, subset);
+					if( !new String(Files.readAllBytes(file.toPath()),
+									StandardCharsets.UTF_8).equals(text) )
+						error = "export() su file diverso da quello su Writer";
+				}
+				if( error!=null )
+					error = "grafo "+t+", "+format(f).extension()+": "+error;
+			}
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	private static GraphExporter format(int f)
+	{
+		switch( f ){
+			case 0: return GraphExporter.edgeList();
+			case 1: return GraphExporter.dot();
+			case 2: return GraphExporter.graphML();
+			default: return GraphExporter.json();
+		}
+	}
+
+
+	/* stessi vertici ed archi, senza verifiche di ordine sul grafo letto */
+	private static String compare(ReferenceGraph<String> expected,
+								  ReferenceGraph<String> read)
+	{
+		if( !expected.vertices().equals(read.vertices()) )
+			return "vertici "+read.vertices()+" invece di "+expected.vertices();
+		for(String v: expected.vertices())
+			if( !expected.adjacentVertex(v).equals(read.adjacentVertex(v)) )
+				return "adiacenti di "+v+" "+read.adjacentVertex(v)+
+					   " invece di "+expected.adjacentVertex(v);
+		return null;
+	}
+
+
+	/* grafo casuale con nomi da proteggere in ogni formato */
+	private static GraphMap<String> random(Random rnd)
+	{
+		GraphMap<String> g = new GraphMap<String>(GraphMap.Validation.OFF);
+		for(int i=rnd.nextInt(40); i>0; i--){
+			StringBuilder name = new StringBuilder();
+			for(int k=rnd.nextInt(5); k>=0; k--)
+				name.append(ALPHABET.charAt(rnd.nextInt(ALPHABET.length())));
+			if( !g.existsVertex(name.toString()) ) g.addVertex(name.toString());
+		}
+		String[] vs = g.listVertex().toArray(new String[0]);
+		for(int k=vs.length<2 ? 0 : rnd.nextInt(3*vs.length); k>0; k--){
+			String v = vs[rnd.nextInt(vs.length)],
+				   w = vs[rnd.nextInt(vs.length)];
+			if( !v.equals(w) && !g.existsEdge(v, w) ) g.addEdge(v, w);
+		}
+		return g;
+	}
+
+
+	/***************************************************************************
+			Analizzatori dei quattro formati: restituiscono il grafo
+			letto, o null se il testo non rispetta il formato.
+	***************************************************************************/
+	private static ReferenceGraph<String> parse(int f, String text)
+	{
+		ReferenceGraph<String> g = new ReferenceGraph<String>();
+		List<String> tokens = new ArrayList<String>(),
+					 body;
+		switch( f ){
+			case 0:
+				for(String line: lines(text, "", "")){
+					String[] part = line.split("\t", -1);
+					if( part.length>2 ) return null;
+					for(String p: part) tokens.add(unescape(p, 0, p.length()));
+					if( !add(g, tokens) ) return null;
+				}
+				return g;
+			case 1:
+				body = lines(text, "graph G {\n", "}\n");
+				if( body==null ) return null;
+				for(String line: body)
+					if( !quoted(line, false, tokens) || !add(g, tokens) ) return null;
+				return g;
+			case 2:
+				body = lines(text,
+					"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"+
+					"<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n"+
+					"<graph id=\"G\" edgedefault=\"undirected\">\n",
+					"</graph>\n</graphml>\n");
+				if( body==null ) return null;
+				for(String line: body)
+					if( !quoted(line, true, tokens) || !add(g, tokens) ) return null;
+				return g;
+			default:
+				String begin = "{\"nodes\":[",
+					   middle = "],\n\"edges\":[",
+					   end = "]}\n";
+				int m = text.indexOf(middle);
+				if( !text.startsWith(begin) || !text.endsWith(end) || m<0 )
+					return null;
+				if( !quoted(text.substring(begin.length(), m), false, tokens) )
+					return null;
+				for(String v: tokens) g.addVertex(v);
+				tokens.clear();
+				if( !quoted(text.substring(m+middle.length(),
+											text.length()-end.length()),
+							false, tokens) || tokens.size()%2!=0 )
+					return null;
+				for(int k=0; k<tokens.size(); k+=2)
+					if( !g.addEdge(tokens.get(k), tokens.get(k+1)) ) return null;
+				return g;
+		}
+	}
+
+	/* righe non vuote fra l'intestazione e la chiusura del documento,
+	   null se queste mancano */
+	private static List<String> lines(String text, String begin, String end)
+	{
+		if( !text.startsWith(begin) || !text.endsWith(end) ) return null;
+		List<String> lines = new ArrayList<String>();
+		String body = text.substring(begin.length(), text.length()-end.length());
+		for(String line: body.split("\n")) if( !line.isEmpty() ) lines.add(line);
+		return lines;
+	}
+
+	/* un token è un vertice, due un arco (ciascuno una sola volta) */
+	private static boolean add(ReferenceGraph<String> g, List<String> tokens)
+	{
+		int size = tokens.size();
+		for(String v: tokens) g.addVertex(v);
+		boolean ok = size==1 ||
+					 size==2 && g.addEdge(tokens.get(0), tokens.get(1));
+		tokens.clear();
+		return ok;
+	}
+
+	/* estrae in tokens le stringhe fra virgolette di s; escape '\' per
+	   DOT e JSON, entità per XML */
+	private static boolean quoted(String s, boolean xml, List<String> tokens)
+	{
+		for(int k=s.indexOf('"'); k>=0; k=s.indexOf('"', k+1)){
+			int j = k+1;
+			while( j<s.length() && s.charAt(j)!='"' )
+				j += !xml && s.charAt(j)=='\\' ? 2 : 1;
+			if( j>=s.length() ) return false;
+			tokens.add(xml ? entities(s.substring(k+1, j))
+						   : unescape(s, k+1, j));
+			k = j;
+		}
+		return true;
+	}
+
+	private static String unescape(String s, int from, int to)
+	{
+		StringBuilder sb = new StringBuilder();
+		for(int k=from; k<to; k++){
+			char c = s.charAt(k);
+			if( c!='\\' ){
+				sb.append(c);
+				continue;
+			}
+			c = s.charAt(++k);
+			switch( c ){
+				case 't': sb.append('\t'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 'u':
+					sb.append((char)Integer.parseInt(s.substring(k+1, k+5), 16));
+					k += 4;
+					break;
+				default: sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String entities(String s)
+	{
+		StringBuilder sb = new StringBuilder();
+		for(int k=0; k<s.length(); k++){
+			char c = s.charAt(k);
+			if( c!='&' ){
+				sb.append(c);
+				continue;
+			}
+			int j = s.indexOf(';', k);
+			String e = s.substring(k+1, j);
+			sb.append(e.equals("amp") ? '&' : e.equals("lt") ? '<' :
+					  e.equals("gt") ? '>' : e.equals("quot") ? '"' :
+					  e.equals("apos") ? '\'' :
+					  (char)Integer.parseInt(e.substring(1)));
+			k = j;
+		}
+		return sb.toString();
+	}
+}
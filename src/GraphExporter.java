@@ -0,0 +1,333 @@
+/* GraphExporter formati di esportazione a flusso dei grafi */
+
+import java.io.Writer;
+import java.io.IOException;
+
+
+/*******************************************************************************
+		Formato di esportazione di un grafo, usato da Graphs.export():
+		riceve in ordine begin(), un vertex() per vertice esportato,
+		edges(), un edge() per arco esportato ed infine end(), e scrive
+		ogni elemento appena lo riceve, senza accumulare l'output.
+		Ogni istanza mantiene lo stato di una sola esportazione alla
+		volta: se ne crea una nuova con le factory per ogni file.
+*******************************************************************************/
+public abstract class GraphExporter
+{
+	/***************************************************************************
+				Passi dell'esportazione, invocati da Graphs.export().
+	***************************************************************************/
+	protected abstract void begin(Writer out) throws IOException;
+
+	protected abstract void vertex(Writer out, String v, boolean isolated)
+									throws IOException;
+
+	protected void edges(Writer out) throws IOException
+	{
+	}
+
+	protected abstract void edge(Writer out, String v, String w)
+									throws IOException;
+
+	protected abstract void end(Writer out) throws IOException;
+	/*
+		EFFECTS: scrivono in out rispettivamente l'inizio del documento, il
+				 vertice v (isolated==true se nessun arco esportato lo tocca),
+				 il passaggio dalla sezione dei vertici a quella degli archi,
+				 l'arco non orientato <v,w> (con v<w, scritto una sola volta)
+				 e la fine del documento.
+				 In caso sopraggiunga un errore di I/O, rilanciano una
+				 IOException (checked) al chiamante.
+	*/
+
+
+	/***************************************************************************
+				Estensione di file consigliata per il formato.
+	***************************************************************************/
+	public abstract String extension();
+
+
+	/***************************************************************************
+			Scrive s come stringa letterale JSON (valida anche in
+			javascript), con i caratteri speciali e '<', '>', '&'
+			sostituiti da sequenze di escape.
+	***************************************************************************/
+	static void writeJson(Writer out, String s) throws IOException
+	{
+		out.write('"');
+		int from = 0;
+		for(int k=0; k<s.length(); k++){
+			char c = s.charAt(k);
+			if( c>=0x20 && c!='"' && c!='\\' && c!='<' && c!='>' && c!='&' &&
+				c!=0x2028 && c!=0x2029 ) continue;
+			out.write(s, from, k-from);
+			switch(c){
+				case '"': out.write("\\\""); break;
+				case '\\': out.write("\\\\"); break;
+				case '\n': out.write("\\n"); break;
+				case '\r': out.write("\\r"); break;
+				case '\t': out.write("\\t"); break;
+				default: out.write(String.format("\\u%04x", (int)c));
+			}
+			from = k+1;
+		}
+		out.write(s, from, s.length()-from);
+		out.write('"');
+	}
+
+
+	/***************************************************************************
+			Elenco degli archi: una riga "v<TAB>w" per arco ed una riga
+			"v" per ogni vertice isolato; '\', TAB ed a capo nei nomi
+			sono scritti come \\, \t, \n e \r.
+	***************************************************************************/
+	private static class EdgeList extends GraphExporter
+	{
+		private static void write(Writer out, String s) throws IOException
+		{
+			int from = 0;
+			for(int k=0; k<s.length(); k++){
+				char c = s.charAt(k);
+				if( c!='\\' && c!='\t' && c!='\n' && c!='\r' ) continue;
+				out.write(s, from, k-from);
+				out.write(c=='\\' ? "\\\\" :
+						  c=='\t' ? "\\t" :
+						  c=='\n' ? "\\n" : "\\r");
+				from = k+1;
+			}
+			out.write(s, from, s.length()-from);
+		}
+
+		protected void begin(Writer out)
+		{
+		}
+
+		protected void vertex(Writer out, String v, boolean isolated)
+								throws IOException
+		{
+			if( !isolated ) return;
+			write(out, v);
+			out.write('\n');
+		}
+
+		protected void edge(Writer out, String v, String w) throws IOException
+		{
+			write(out, v);
+			out.write('\t');
+			write(out, w);
+			out.write('\n');
+		}
+
+		protected void end(Writer out)
+		{
+		}
+
+		public String extension()
+		{
+			return "tsv";
+		}
+	}
+
+
+	/***************************************************************************
+			Graphviz DOT: un grafo non orientato con un nodo per vertice
+			e un arco "v" -- "w" per arco, con identificatori fra
+			virgolette.
+	***************************************************************************/
+	private static class Dot extends GraphExporter
+	{
+		private static void write(Writer out, String s) throws IOException
+		{
+			out.write('"');
+			int from = 0;
+			for(int k=0; k<s.length(); k++){
+				char c = s.charAt(k);
+				if( c!='"' && c!='\\' && c!='\n' && c!='\r' ) continue;
+				out.write(s, from, k-from);
+				out.write(c=='"' ? "\\\"" :
+						  c=='\\' ? "\\\\" :
+						  c=='\n' ? "\\n" : "\\r");
+				from = k+1;
+			}
+			out.write(s, from, s.length()-from);
+			out.write('"');
+		}
+
+		protected void begin(Writer out) throws IOException
+		{
+			out.write("graph G {\n");
+		}
+
+		protected void vertex(Writer out, String v, boolean isolated)
+								throws IOException
+		{
+			out.write('\t');
+			write(out, v);
+			out.write(";\n");
+		}
+
+		protected void edge(Writer out, String v, String w) throws IOException
+		{
+			out.write('\t');
+			write(out, v);
+			out.write(" -- ");
+			write(out, w);
+			out.write(";\n");
+		}
+
+		protected void end(Writer out) throws IOException
+		{
+			out.write("}\n");
+		}
+
+		public String extension()
+		{
+			return "dot";
+		}
+	}
+
+
+	/***************************************************************************
+			GraphML: un elemento node per vertice (con il nome come id)
+			e un elemento edge per arco, in un grafo non orientato;
+			i caratteri non ammessi in XML vengono scartati.
+	***************************************************************************/
+	private static class GraphML extends GraphExporter
+	{
+		private static void write(Writer out, String s) throws IOException
+		{
+			out.write('"');
+			int from = 0;
+			for(int k=0; k<s.length(); k++){
+				char c = s.charAt(k);
+				if( c>=0x20 && c!='&' && c!='<' && c!='>' && c!='"' &&
+					c!='\'' && c!=0xFFFE && c!=0xFFFF ) continue;
+				out.write(s, from, k-from);
+				switch(c){
+					case '&': out.write("&amp;"); break;
+					case '<': out.write("&lt;"); break;
+					case '>': out.write("&gt;"); break;
+					case '"': out.write("&quot;"); break;
+					case '\'': out.write("&apos;"); break;
+					case '\t': case '\n': case '\r':
+						out.write("&#"+(int)c+";");
+						break;
+					default:
+				}
+				from = k+1;
+			}
+			out.write(s, from, s.length()-from);
+			out.write('"');
+		}
+
+		protected void begin(Writer out) throws IOException
+		{
+			out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"+
+					  "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n"+
+					  "<graph id=\"G\" edgedefault=\"undirected\">\n");
+		}
+
+		protected void vertex(Writer out, String v, boolean isolated)
+								throws IOException
+		{
+			out.write("<node id=");
+			write(out, v);
+			out.write("/>\n");
+		}
+
+		protected void edge(Writer out, String v, String w) throws IOException
+		{
+			out.write("<edge source=");
+			write(out, v);
+			out.write(" target=");
+			write(out, w);
+			out.write("/>\n");
+		}
+
+		protected void end(Writer out) throws IOException
+		{
+			out.write("</graph>\n</graphml>\n");
+		}
+
+		public String extension()
+		{
+			return "graphml";
+		}
+	}
+
+
+	/***************************************************************************
+			JSON: {"nodes":["v",...],"edges":[["v","w"],...]}.
+	***************************************************************************/
+	private static class Json extends GraphExporter
+	{
+		private long count;
+
+		protected void begin(Writer out) throws IOException
+		{
+			count = 0;
+			out.write("{\"nodes\":[");
+		}
+
+		protected void vertex(Writer out, String v, boolean isolated)
+								throws IOException
+		{
+			if( count++>0 ) out.write(',');
+			writeJson(out, v);
+		}
+
+		protected void edges(Writer out) throws IOException
+		{
+			count = 0;
+			out.write("],\n\"edges\":[");
+		}
+
+		protected void edge(Writer out, String v, String w) throws IOException
+		{
+			out.write(count++>0 ? ",\n[" : "\n[");
+			writeJson(out, v);
+			out.write(',');
+			writeJson(out, w);
+			out.write(']');
+		}
+
+		protected void end(Writer out) throws IOException
+		{
+			out.write("]}\n");
+		}
+
+		public String extension()
+		{
+			return "json";
+		}
+	}
+
+
+	/***************************************************************************
+							Factory dei formati disponibili.
+	***************************************************************************/
+	public static GraphExporter edgeList()
+	{
+		return new EdgeList();
+	}
+
+	public static GraphExporter dot()
+	{
+		return new Dot();
+	}
+
+	public static GraphExporter graphML()
+	{
+		return new GraphML();
+	}
+
+	public static GraphExporter json()
+	{
+		return new Json();
+	}
+	/*
+		EFFECTS: restituiscono un nuovo esportatore rispettivamente nei
+				 formati elenco degli archi (TSV), Graphviz DOT, GraphML
+				 e JSON.
+	*/
+}
@@ -0,0 +1,207 @@
+/* GraphHyperANF funzione di vicinato approssimata su GraphCSR<E> */
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/*******************************************************************************
+		Classe di funzioni statiche per il calcolo approssimato della
+		funzione di vicinato N(t) (numero di coppie a distanza <= t)
+		con contatori HyperLogLog per vertice (algoritmo HyperANF).
+*******************************************************************************/
+public class GraphHyperANF
+{
+	/***************************************************************************
+			Risultato di HyperANF: la funzione di vicinato stimata e
+			le statistiche sulle distanze che se ne ricavano.
+	***************************************************************************/
+	public static final class Result
+	{
+		private final double[] neighbourhood;
+
+		Result(double[] neighbourhood)
+		{
+			this.neighbourhood = neighbourhood;
+		}
+
+		/* N(t) stimato per t=0..iterations() */
+		public double[] neighbourhoodFunction()
+		{
+			return neighbourhood.clone();
+		}
+
+		/* numero stimato di coppie ordinate a distanza esattamente t,
+		   per t=0..iterations() */
+		public double[] distanceDistribution()
+		{
+			double[] d = new double[neighbourhood.length];
+			d[0] = neighbourhood[0];
+			for(int t=1; t<d.length; t++)
+				d[t] = Math.max(0, neighbourhood[t]-neighbourhood[t-1]);
+			return d;
+		}
+
+		/* iterazioni prima della stabilizzazione dei contatori:
+		   limite inferiore stimato del diametro */
+		public int iterations()
+		{
+			return neighbourhood.length-1;
+		}
+
+		/* distanza media fra le coppie di vertici distinti connessi */
+		public double averageDistance()
+		{
+			double[] d = distanceDistribution();
+			double pairs = 0,
+				   sum = 0;
+			for(int t=1; t<d.length; t++){
+				pairs += d[t];
+				sum += t*d[t];
+			}
+			return pairs==0 ? 0 : sum/pairs;
+		}
+
+		/* diametro effettivo: minimo t (interpolato) entro cui si trova
+		   la frazione alpha delle coppie connesse */
+		public double effectiveDiameter(double alpha)
+		{
+			if( !(alpha>0 && alpha<=1) )
+				throw new IllegalArgumentException(alpha+" non in (0,1]");
+			double target = alpha*neighbourhood[neighbourhood.length-1];
+			for(int t=0; t<neighbourhood.length; t++)
+				if( neighbourhood[t]>=target ){
+					if( t==0 ) return 0;
+					double step = neighbourhood[t]-neighbourhood[t-1];
+					return step<=0
+						? t
+						: t-1+(target-neighbourhood[t-1])/step;
+				}
+			return neighbourhood.length-1;
+		}
+
+		public double effectiveDiameter()
+		{
+			return effectiveDiameter(0.9);
+		}
+
+		public String toString()
+		{
+			return "diametro effettivo ~ "+effectiveDiameter()+
+				   ", distanza media ~ "+averageDistance()+
+				   ", iterazioni = "+iterations();
+		}
+	}
+
+
+	/***************************************************************************
+			Stima HyperLogLog della cardinalità del contatore di m
+			registri che inizia all'indice base di reg.
+	***************************************************************************/
+	private static double estimate(byte[] reg, int base, int m)
+	{
+		double sum = 0;
+		int zeros = 0;
+		for(int j=base; j<base+m; j++){
+			sum += 1.0/(1L<<reg[j]);
+			if( reg[j]==0 ) zeros++;
+		}
+		double alpha = m==16 ? 0.673
+					 : m==32 ? 0.697
+					 : m==64 ? 0.709
+					 : 0.7213/(1+1.079/m),
+			   e = alpha*m*m/sum;
+		if( e<=2.5*m && zeros>0 ) e = m*Math.log((double)m/zeros);
+		return e;
+	}
+
+
+	/***************************************************************************
+							Hash a 64 bit (SplitMix64).
+	***************************************************************************/
+	private static long hash(long x)
+	{
+		x += 0x9E3779B97F4A7C15L;
+		x = (x^(x>>>30))*0xBF58476D1CE4E5B9L;
+		x = (x^(x>>>27))*0x94D049BB133111EBL;
+		return x^(x>>>31);
+	}
+
+
+	/***************************************************************************
+			Calcola la funzione di vicinato di g con contatori di
+			2^log2m registri per vertice.
+	***************************************************************************/
+	public static Result run(GraphCSR<?> g, int log2m, long seed)
+	{
+		if( log2m<4 || log2m>16 )
+			throw new IllegalArgumentException(log2m+" non in [4,16]");
+		int n = g.numVertex(),
+			m = 1<<log2m;
+		if( n==0 ) return new Result(new double[]{0});
+		if( (long)n*m>Integer.MAX_VALUE )
+			throw new IllegalArgumentException(log2m+" troppo grande per "+n+
+											   " vertici");
+
+		byte[] cur = new byte[n*m],
+			   next = new byte[n*m];
+		for(int v=0; v<n; v++){
+			long h = hash(v^seed);
+			int j = (int)(h>>>(64-log2m));
+			long rest = (h<<log2m)|(1L<<(log2m-1));
+			cur[v*m+j] = (byte)(Long.numberOfLeadingZeros(rest)+1);
+		}
+
+		double[] nf = new double[n+1];
+		nf[0] = total(cur, n, m);
+		int t = 0;
+		for(;;){
+			final byte[] src = cur,
+						 dst = next;
+			AtomicBoolean changed = new AtomicBoolean(false);
+			IntStream.range(0, n).parallel().forEach(v->{
+				int base = v*m;
+				System.arraycopy(src, base, dst, base, m);
+				boolean mod = false;
+				for(int k=g.off[v]; k<g.off[v+1]; k++){
+					int other = g.adj[k]*m;
+					for(int j=0; j<m; j++)
+						if( src[other+j]>dst[base+j] ){
+							dst[base+j] = src[other+j];
+							mod = true;
+						}
+				}
+				if( mod ) changed.set(true);
+			});
+			if( !changed.get() ) break;
+			cur = dst;
+			next = src;
+			t++;
+			nf[t] = Math.max(nf[t-1], total(cur, n, m));
+		}
+		return new Result(Arrays.copyOf(nf, t+1));
+	}
+	/*
+		EFFECTS: inizializza il contatore di ogni vertice v con {v}, poi ad
+				 ogni iterazione t unisce (massimo registro per registro) il
+				 contatore di v con quelli dei suoi adiacenti, ottenendo una
+				 stima della palla di raggio t attorno a v; N(t) è la somma
+				 delle stime. Termina quando nessun contatore cambia.
+				 L'errore relativo standard di ogni contatore è circa
+				 1.04/sqrt(2^log2m), la memoria occupata 2*N*2^log2m byte.
+				 Se log2m non appartiene a [4,16] o se N*2^log2m supera
+				 Integer.MAX_VALUE lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Somma delle stime dei contatori di tutti i vertici.
+	***************************************************************************/
+	private static double total(byte[] reg, int n, int m)
+	{
+		return IntStream.range(0, n).parallel()
+								   .mapToDouble(v->estimate(reg, v*m, m))
+								   .sum();
+	}
+}
@@ -0,0 +1,603 @@
+/* GraphJournal registro persistente delle modifiche di un GraphMap<String> */
+
+import java.util.Set;
+import java.util.Arrays;
+import java.io.File;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.lang.reflect.MalformedParametersException;
+
+
+public class GraphJournal implements GraphListener<String>, Closeable
+{
+	/*
+		OVERVIEW:= registro write-ahead delle modifiche di un GraphMap<String>
+				   in una directory: checkpoint-<g>.bin contiene il grafo
+				   completo alla generazione g, nel formato di
+				   Graphs.saveBinary(), e journal-<g>.log le modifiche
+				   successive, un record binario per modifica; il recupero
+				   carica l'ultimo checkpoint e riapplica i record.
+
+				   Record: byte tipo, varint lunghezza e byte UTF-8 di v,
+				   (per gli archi) varint lunghezza e byte UTF-8 di w,
+				   int CRC32 big-endian dei byte precedenti; un record
+				   troncato o con CRC errato chiude il registro (scrittura
+				   interrotta da un crash) e viene scartato.
+
+				   Il primo errore di scrittura o di fsync interrompe il
+				   registro: non si sa più quali record siano su disco e
+				   dopo un fsync fallito il sistema può aver già scartato
+				   le pagine sporche, quindi non si riprova; l'errore viene
+				   rilanciato dalle chiamate successive.
+
+		AF:= <G,g> dove G = graph, g = generation
+
+		IR:= graph!=null && log!=null se il registro è aperto
+			 && failure==null => checkpoint-<generation>.bin + record di
+				journal-<generation>.log + record in buf == graph
+	*/
+
+	/***************************************************************************
+				Politiche di sincronizzazione (fsync) dei record.
+	***************************************************************************/
+	public enum Durability
+	{
+		SYNC,		/* fsync dopo ogni record */
+		GROUP,		/* fsync ogni groupSize record o ogni groupMillis ms */
+		ASYNC		/* fsync solo ai checkpoint ed alla chiusura */
+	}
+
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private static final byte ADD_VERTEX = 1,
+							  REMOVE_VERTEX = 2,
+							  ADD_EDGE = 3,
+							  REMOVE_EDGE = 4,
+							  ISOLATE = 5,
+							  CLEAR = 6;
+
+	private final File dir;
+	private final Durability durability;
+	private final GraphMap<String> graph;
+	private final ByteBuffer buf = ByteBuffer.allocate(1<<16);
+	private final CRC32 crc = new CRC32();
+	private byte[] record = new byte[256];
+	private FileChannel log;
+	private long generation;
+	private int groupSize = 128;
+	private long groupMillis = 10;
+	private long checkpointEvery = 0;
+	private long records = 0;
+	private int pending = 0;
+	private long lastSync = System.nanoTime();
+	private ScheduledExecutorService flusher = null;
+	private IOException failure = null;
+
+
+	/***************************************************************************
+							Costruttore:
+				recupera il grafo dalla directory ed apre il registro.
+	***************************************************************************/
+	private GraphJournal(File dir, Durability durability) throws IOException
+	{
+		this.dir = dir;
+		this.durability = durability;
+		generation = latest(dir);
+		graph = load(dir, generation);
+		File file = file(dir, "journal", generation);
+		log = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+							   StandardOpenOption.WRITE);
+		try{
+			log.truncate(replay(file, graph));
+			log.position(log.size());
+		}
+		catch(IOException | RuntimeException exc){
+			log.close();
+			throw exc;
+		}
+		graph.addListener(this);
+		if( durability==Durability.GROUP ) schedule();
+	}
+
+
+	/***************************************************************************
+			Apre (o crea) il registro nella directory passata.
+	***************************************************************************/
+	public static GraphJournal open(File dir, Durability durability)
+										throws IOException
+	{
+		if( dir==null || durability==null )
+			throw new NullPointerException("passato oggetto nullo");
+		if( !dir.isDirectory() && !dir.mkdirs() )
+			throw new IOException(dir+": directory non creata");
+		long g = latest(dir);
+		for(File f: dir.listFiles())
+			if( f.getName().endsWith(".tmp") || (
+					f.getName().matches("(checkpoint|journal)-[0-9]+\\..*") &&
+					generation(f.getName())<g) )
+				Files.deleteIfExists(f.toPath());
+		return new GraphJournal(dir, durability);
+	}
+	/*
+		EFFECTS: cancella i file temporanei e quelli delle generazioni
+				 precedenti lasciati da un crash, recupera il grafo (l'ultimo
+				 checkpoint più i record validi del registro corrispondente,
+				 scartando un'eventuale coda troncata) e lo restituisce
+				 tramite graph(), con questo registro già in ascolto delle
+				 sue modifiche.
+				 Se dir==null || durability==null lancia NullPointerException
+				 (unchecked).
+				 In caso sopraggiunga un errore di I/O o il registro sia
+				 incoerente col checkpoint, rilancia una IOException
+				 (checked) al chiamante.
+	*/
+
+
+	/***************************************************************************
+			Recupera il grafo dalla directory senza aprire il registro.
+	***************************************************************************/
+	public static GraphMap<String> recover(File dir) throws IOException
+	{
+		if( dir==null ) throw new NullPointerException("passato oggetto nullo");
+		long g = latest(dir);
+		GraphMap<String> graph = load(dir, g);
+		File file = file(dir, "journal", g);
+		if( file.exists() ) replay(file, graph);
+		return graph;
+	}
+	/*
+		EFFECTS: restituisce il grafo registrato in dir, senza modificare i
+				 file; un grafo vuoto se dir non contiene un registro.
+				 Se dir==null lancia NullPointerException (unchecked).
+				 In caso sopraggiunga un errore di I/O o il registro sia
+				 incoerente, rilancia una IOException (checked) al chiamante.
+	*/
+
+
+	/***************************************************************************
+			Restituiscono il nome dei file di una generazione e
+			l'ultima generazione con un checkpoint completo.
+	***************************************************************************/
+	private static File file(File dir, String kind, long g)
+	{
+		String ext = kind.equals("journal") ? ".log" : ".bin";
+		return new File(dir, kind+"-"+g+ext);
+	}
+
+	private static long generation(String name)
+	{
+		return Long.parseLong(name.substring(name.indexOf('-')+1,
+											 name.indexOf('.')));
+	}
+
+	private static long latest(File dir)
+	{
+		long g = 0;
+		String[] names = dir.list();
+		if( names!=null )
+			for(String name: names)
+				if( name.matches("checkpoint-[0-9]+\\.bin") )
+					g = Math.max(g, generation(name));
+		return g;
+	}
+
+	private static GraphMap<String> load(File dir, long g) throws IOException
+	{
+		File f = file(dir, "checkpoint", g);
+		return f.exists() ? Graphs.loadBinary(f) : new GraphMap<String>();
+	}
+
+
+	/***************************************************************************
+			Riapplica al grafo i record validi del file e restituisce
+			la lunghezza della parte valida.
+	***************************************************************************/
+	private static long replay(File file, GraphMap<String> graph)
+								throws IOException
+	{
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		CRC32 sum = new CRC32();
+		GraphMap.Validation mode = graph.getValidation();
+		graph.setValidation(GraphMap.Validation.DEFERRED);
+		long count = 0;
+		try{
+			while( in.hasRemaining() ){
+				int start = in.position();
+				String v, w = null;
+				byte type;
+				try{
+					type = in.get();
+					v = string(in);
+					if( type==ADD_EDGE || type==REMOVE_EDGE ) w = string(in);
+					sum.reset();
+					sum.update(in.array(), start, in.position()-start);
+					if( in.getInt()!=(int)sum.getValue() ){
+						in.position(start);
+						break;
+					}
+				}
+				catch(BufferUnderflowException | IllegalArgumentException exc){
+					in.position(start);
+					break;
+				}
+				try{
+					switch(type){
+						case ADD_VERTEX: graph.addVertex(v); break;
+						case REMOVE_VERTEX: graph.removeVertex(v); break;
+						case ADD_EDGE: graph.addEdge(v, w); break;
+						case REMOVE_EDGE: graph.removeEdge(v, w); break;
+						case ISOLATE: graph.isolateVertex(v); break;
+						case CLEAR: graph.removeAllVertex(); break;
+						default:
+							throw new IOException(file+": tipo "+type+
+												  " sconosciuto");
+					}
+				}
+				catch(IllegalArgumentException | MalformedParametersException exc){
+					throw new IOException(file+": record "+count+
+										  " incoerente", exc);
+				}
+				count++;
+			}
+		}
+		finally{
+			graph.setValidation(mode);
+		}
+		return in.position();
+	}
+	/*
+		MODIFIES: graph
+		EFFECTS: legge i record in ordine fermandosi al primo troncato o con
+				 CRC errato, rimandando la verifica dell'invariante alla fine.
+				 Se un record non è applicabile al grafo, o ha un tipo
+				 sconosciuto, lancia IOException (checked).
+	*/
+
+	private static String string(ByteBuffer in)
+	{
+		long len = 0;
+		for(int shift=0; ; shift+=7){
+			if( shift>28 ) throw new IllegalArgumentException("varint");
+			byte b = in.get();
+			len |= (long)(b&0x7F)<<shift;
+			if( b>=0 ) break;
+		}
+		if( len>in.remaining() ) throw new BufferUnderflowException();
+		String s = new String(in.array(), in.position(), (int)len,
+							  StandardCharsets.UTF_8);
+		in.position(in.position()+(int)len);
+		return s;
+	}
+
+
+	/***************************************************************************
+				Restituisce il grafo recuperato e registrato.
+	***************************************************************************/
+	public GraphMap<String> graph()
+	{
+		return graph;
+	}
+
+
+	/***************************************************************************
+			Impostano il group commit (politica GROUP) ed il numero di
+			record dopo cui eseguire automaticamente un checkpoint.
+	***************************************************************************/
+	public synchronized void setGroupCommit(int size, long millis)
+	{
+		if( size<1 || millis<1 )
+			throw new IllegalArgumentException(size+" record, "+millis+" ms");
+		groupSize = size;
+		groupMillis = millis;
+		if( flusher!=null ){
+			flusher.shutdown();
+			schedule();
+		}
+	}
+
+	public synchronized void setCheckpointInterval(long records)
+	{
+		if( records<0 ) throw new IllegalArgumentException(records+" record");
+		checkpointEvery = records;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: con la politica GROUP l'fsync avviene dopo size record o,
+				 al più tardi, millis ms dopo il primo record non
+				 sincronizzato (di default 128 record e 10 ms); con
+				 records>0 ogni records record viene eseguito un
+				 checkpoint (di default 0: solo con checkpoint()).
+				 Se size<1 || millis<1 || records<0 lanciano
+				 IllegalArgumentException (unchecked).
+	*/
+
+	private void schedule()
+	{
+		flusher = Executors.newSingleThreadScheduledExecutor(r->{
+			Thread t = new Thread(r, "GraphJournal-flusher");
+			t.setDaemon(true);
+			return t;
+		});
+		flusher.scheduleWithFixedDelay(()->{
+			try{ tick(); }
+			catch(IOException exc){ /* in failure, rilanciata da append() */ }
+		}, groupMillis, groupMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void tick() throws IOException
+	{
+		if( log!=null && failure==null && pending>0 ) sync();
+	}
+
+
+	/***************************************************************************
+				Accoda un record e applica la politica di fsync.
+	***************************************************************************/
+	private synchronized void append(byte type, String v, String w)
+	{
+		if( log==null ) throw new IllegalStateException("registro chiuso");
+		if( failure!=null ) throw new UncheckedIOException(broken());
+		int n = 0;
+		record[n++] = type;
+		n = put(v, n);
+		if( w!=null ) n = put(w, n);
+		crc.reset();
+		crc.update(record, 0, n);
+		reserve(n+4);
+		int sum = (int)crc.getValue();
+		record[n++] = (byte)(sum>>>24);
+		record[n++] = (byte)(sum>>>16);
+		record[n++] = (byte)(sum>>>8);
+		record[n++] = (byte)sum;
+
+		try{
+			if( n>buf.remaining() ) flush();
+			if( n>buf.capacity() ) write(ByteBuffer.wrap(record, 0, n));
+			else buf.put(record, 0, n);
+			pending++;
+			records++;
+			if( durability==Durability.SYNC ||
+				(durability==Durability.GROUP &&
+				 (pending>=groupSize ||
+				  System.nanoTime()-lastSync>=groupMillis*1000000L)) )
+				sync();
+			if( checkpointEvery>0 && records>=checkpointEvery ) checkpoint();
+		}
+		catch(IOException exc){
+			throw new UncheckedIOException(exc);
+		}
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: il record viene scritto nel buffer in memoria, svuotato nel
+				 file quando è pieno, ad ogni fsync ed alla chiusura.
+				 Se il registro è chiuso lancia IllegalStateException
+				 (unchecked); in caso sopraggiunga un errore di I/O lancia
+				 UncheckedIOException (unchecked): la modifica è già stata
+				 applicata al grafo ma potrebbe non essere registrata.
+				 Se il registro è interrotto da un errore di I/O
+				 precedente, anche dell'fsync periodico di GROUP, lancia
+				 UncheckedIOException (unchecked) senza scrivere.
+	*/
+
+	private int put(String s, int n)
+	{
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		reserve(n+5+b.length);
+		for(int len=b.length; ; len>>>=7){
+			if( (len&~0x7F)==0 ){
+				record[n++] = (byte)len;
+				break;
+			}
+			record[n++] = (byte)((len&0x7F)|0x80);
+		}
+		System.arraycopy(b, 0, record, n, b.length);
+		return n+b.length;
+	}
+
+	private void reserve(int n)
+	{
+		if( n>record.length )
+			record = Arrays.copyOf(record, Math.max(n, 2*record.length));
+	}
+
+	private void flush() throws IOException
+	{
+		buf.flip();
+		try{ write(buf); }
+		finally{ buf.compact(); }
+	}
+
+	private void write(ByteBuffer b) throws IOException
+	{
+		try{
+			while( b.hasRemaining() ) log.write(b);
+		}
+		catch(IOException exc){
+			failure = exc;
+			throw exc;
+		}
+	}
+
+	private IOException broken()
+	{
+		return new IOException(dir+": registro interrotto da un errore di I/O",
+							   failure);
+	}
+
+
+	/***************************************************************************
+			Scrive nel file i record in memoria e li sincronizza su disco.
+	***************************************************************************/
+	public synchronized void sync() throws IOException
+	{
+		if( log==null ) throw new IllegalStateException("registro chiuso");
+		if( failure!=null ) throw broken();
+		flush();
+		try{ log.force(false); }
+		catch(IOException exc){
+			failure = exc;
+			throw exc;
+		}
+		pending = 0;
+		lastSync = System.nanoTime();
+	}
+	/*
+		EFFECTS: al ritorno tutte le modifiche notificate sono su disco.
+				 Se il registro è chiuso lancia IllegalStateException
+				 (unchecked).
+				 In caso sopraggiunga un errore di I/O, rilancia una IOException
+				 (checked) al chiamante ed interrompe il registro; se è già
+				 interrotto lancia IOException (checked) con l'errore
+				 originale come causa, senza riprovare l'fsync.
+	*/
+
+
+	/***************************************************************************
+			Salva un checkpoint del grafo ed inizia un nuovo registro.
+	***************************************************************************/
+	public synchronized void checkpoint() throws IOException
+	{
+		if( log==null ) throw new IllegalStateException("registro chiuso");
+		sync();
+		long next = generation+1;
+		File tmp = new File(dir, "checkpoint-"+next+".tmp"),
+			 bin = file(dir, "checkpoint", next);
+		Graphs.saveBinary(graph, tmp);
+		try( FileChannel ch = FileChannel.open(tmp.toPath(),
+											   StandardOpenOption.WRITE) ){
+			ch.force(true);
+		}
+		Files.move(tmp.toPath(), bin.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+
+		FileChannel old = log;
+		log = FileChannel.open(file(dir, "journal", next).toPath(),
+							   StandardOpenOption.CREATE,
+							   StandardOpenOption.WRITE,
+							   StandardOpenOption.TRUNCATE_EXISTING);
+		old.close();
+		Files.deleteIfExists(file(dir, "journal", generation).toPath());
+		Files.deleteIfExists(file(dir, "checkpoint", generation).toPath());
+		generation = next;
+		records = 0;
+	}
+	/*
+		MODIFIES: this, dir
+		EFFECTS: scrive il grafo in un file temporaneo, lo sincronizza e lo
+				 rinomina atomicamente nel checkpoint della generazione
+				 successiva; solo dopo apre il nuovo registro e cancella i
+				 file della generazione precedente, cosicché un crash in
+				 qualsiasi punto lascia un checkpoint completo col proprio
+				 registro.
+				 Se il registro è chiuso lancia IllegalStateException
+				 (unchecked).
+				 In caso sopraggiunga un errore di I/O, rilancia una IOException
+				 (checked) al chiamante.
+	*/
+
+	private void syncDirectory()
+	{
+		try( FileChannel ch = FileChannel.open(dir.toPath(),
+											   StandardOpenOption.READ) ){
+			ch.force(true);
+		}
+		catch(IOException exc){
+			/* non supportato su tutti i sistemi: la rinomina resta atomica */
+		}
+	}
+
+
+	/***************************************************************************
+			Restituiscono la generazione del checkpoint corrente ed il
+			numero di record scritti dopo di esso.
+	***************************************************************************/
+	public synchronized long generation()
+	{
+		return generation;
+	}
+
+	public synchronized long records()
+	{
+		return records;
+	}
+
+
+	/***************************************************************************
+			Sincronizza e chiude il registro, che smette di ascoltare
+			le modifiche del grafo.
+	***************************************************************************/
+	public synchronized void close() throws IOException
+	{
+		if( log==null ) return;
+		graph.removeListener(this);
+		if( flusher!=null ) flusher.shutdown();
+		try{ sync(); }
+		finally{
+			log.close();
+			log = null;
+		}
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: chiude il file anche se l'ultimo fsync fallisce o se il
+				 registro è interrotto; in tal caso rilancia la IOException
+				 (checked) di sync().
+	*/
+
+
+	/***************************************************************************
+			Implementazione di GraphListener<String>: un record per
+			modifica; una sostituzione in blocco del grafo produce
+			un checkpoint.
+	***************************************************************************/
+	public void vertexAdded(String v)
+	{
+		append(ADD_VERTEX, v, null);
+	}
+
+	public void vertexRemoved(String v, Set<String> neighbours)
+	{
+		append(REMOVE_VERTEX, v, null);
+	}
+
+	public void vertexIsolated(String v, Set<String> neighbours)
+	{
+		append(ISOLATE, v, null);
+	}
+
+	public void edgeAdded(String v, String w)
+	{
+		append(ADD_EDGE, v, w);
+	}
+
+	public void edgeRemoved(String v, String w)
+	{
+		append(REMOVE_EDGE, v, w);
+	}
+
+	public void cleared()
+	{
+		append(CLEAR, "", null);
+	}
+
+	public synchronized void reloaded()
+	{
+		try{ checkpoint(); }
+		catch(IOException exc){ throw new UncheckedIOException(exc); }
+	}
+}
@@ -0,0 +1,97 @@
+/* GraphJournalBenchmark confronto fra addEdge in memoria e registrato */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+
+/*******************************************************************************
+		Misura la velocità di addEdge() su un GraphMap<String> in memoria
+		e con un GraphJournal per ciascuna politica di fsync, poi il
+		tempo di recupero, e verifica che il grafo recuperato sia uguale
+		all'originale.
+		Uso: java GraphJournalBenchmark [vertici] [archi] [archi SYNC]
+*******************************************************************************/
+public class GraphJournalBenchmark
+{
+	public static void
+	main(String[] args) throws IOException
+	{
+		int n = args.length>0 ? Integer.parseInt(args[0]) : 20000,
+			m = args.length>1 ? Integer.parseInt(args[1]) : 200000,
+			sync = args.length>2 ? Integer.parseInt(args[2]) : 2000;
+
+		String[][] pairs = pairs(n, m);
+		double base = run(null, null, n, pairs);
+		System.out.printf("%-10s %10.0f archi/s%n", "memoria", base);
+
+		boolean ok = true;
+		for(GraphJournal.Durability d: GraphJournal.Durability.values()){
+			String[][] p = d==GraphJournal.Durability.SYNC
+				? Arrays.copyOf(pairs, Math.min(sync, m))
+				: pairs;
+			File dir = Files.createTempDirectory("journal").toFile();
+			double rate = run(dir, d, n, p);
+
+			long t0 = System.nanoTime();
+			GraphMap<String> g = GraphJournal.recover(dir);
+			long t1 = System.nanoTime();
+			GraphMap<String> expected = new GraphMap<String>(
+				GraphMap.Validation.OFF
+			);
+			for(int i=0; i<n; i++) expected.addVertex("v"+i);
+			for(String[] e: p)
+				if( !expected.existsEdge(e[0], e[1]) )
+					expected.addEdge(e[0], e[1]);
+			boolean same = g.equals(expected);
+			ok &= same;
+			System.out.printf("%-10s %10.0f archi/s (%.1f%% della memoria),"+
+							  " recupero %d ms, %s%n",
+							  d, rate, 100*rate/base, (t1-t0)/1000000,
+							  same ? "uguale" : "DIVERSO");
+			for(File f: dir.listFiles()) f.delete();
+			dir.delete();
+		}
+		if( !ok ) System.exit(1);
+	}
+
+
+	/* coppie casuali di vertici distinti */
+	private static String[][] pairs(int n, int m)
+	{
+		Random rnd = new Random(42);
+		String[][] p = new String[m][];
+		for(int k=0; k<m; k++){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(n-1);
+			if( w>=v ) w++;
+			p[k] = new String[]{ "v"+v, "v"+w };
+		}
+		return p;
+	}
+
+
+	/* archi aggiunti al secondo; in memoria se dir==null */
+	private static double run(File dir, GraphJournal.Durability d, int n,
+							  String[][] pairs) throws IOException
+	{
+		GraphJournal j = dir==null ? null : GraphJournal.open(dir, d);
+		GraphMap<String> g = j==null ? new GraphMap<String>() : j.graph();
+		g.setValidation(GraphMap.Validation.OFF);
+		for(int i=0; i<n; i++) g.addVertex("v"+i);
+		if( j!=null ) j.checkpoint();
+
+		long t0 = System.nanoTime();
+		int added = 0;
+		for(String[] e: pairs)
+			if( !g.existsEdge(e[0], e[1]) ){
+				g.addEdge(e[0], e[1]);
+				added++;
+			}
+		if( j!=null ) j.close();
+		long t1 = System.nanoTime();
+		return added*1e9/(t1-t0);
+	}
+}
@@ -0,0 +1,84 @@
+/* GraphListener<E> notifiche delle modifiche di un GraphMap<E> */
+
+import java.util.Set;
+
+public interface GraphListener<E>
+{
+	/*
+		OVERVIEW: osservatore delle modifiche di un GraphMap<E>, registrato
+				  con GraphMap.addListener(): ogni metodo viene invocato
+				  nel thread che modifica il grafo, dopo che la modifica è
+				  stata applicata e verificata; le modifiche eseguite in una
+				  Transaction vengono notificate, nell'ordine, solo al
+				  commit riuscito.
+				  Tutti i metodi hanno di default un corpo vuoto.
+	*/
+
+
+	/***************************************************************************
+					Notifica l'aggiunta di un vertice isolato.
+	***************************************************************************/
+	public default void
+	vertexAdded(E v)
+	{
+	}
+
+
+	/***************************************************************************
+			Notifica la rimozione di un vertice e dei suoi archi.
+	***************************************************************************/
+	public default void
+	vertexRemoved(E v, Set<E> neighbours)
+	{
+	}
+	/*
+		EFFECTS: neighbours è la vista non modificabile degli adiacenti che v
+				 aveva prima della rimozione.
+	*/
+
+
+	/***************************************************************************
+					Notifica la rimozione di tutti gli archi di un vertice.
+	***************************************************************************/
+	public default void
+	vertexIsolated(E v, Set<E> neighbours)
+	{
+	}
+	/*
+		EFFECTS: neighbours è la vista non modificabile degli adiacenti che v
+				 aveva prima dell'invocazione di isolateVertex().
+	*/
+
+
+	/***************************************************************************
+					Notificano l'aggiunta e la rimozione di un arco.
+	***************************************************************************/
+	public default void
+	edgeAdded(E v, E w)
+	{
+	}
+
+	public default void
+	edgeRemoved(E v, E w)
+	{
+	}
+
+
+	/***************************************************************************
+			Notifica la rimozione di tutti i vertici (removeAllVertex()).
+	***************************************************************************/
+	public default void
+	cleared()
+	{
+	}
+
+
+	/***************************************************************************
+			Notifica la sostituzione in blocco del contenuto del grafo
+			(ad esempio da GraphMapBuilder.fill() su un grafo vuoto).
+	***************************************************************************/
+	public default void
+	reloaded()
+	{
+	}
+}
@@ -8,10 +8,18 @@ import java.util.TreeSet;
 import java.util.Queue;
 import java.util.Deque;
 import java.util.List;
+import java.util.ArrayList;
 import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
 import java.util.NavigableSet;
 import java.util.Collections;
 import java.util.stream.Stream;
+import java.util.function.Consumer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.IdentityHashMap;
 import java.lang.reflect.MalformedParametersException;
 
 
@@ -44,11 +52,36 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				perogni y appartenente a st.get(x) => x appartiene a st.get(y)
 	*/
 
+	/***************************************************************************
+			Politiche di verifica dell'invariante di rappresentazione,
+			selezionabili per singola istanza.
+	***************************************************************************/
+	public enum Validation
+	{
+		OFF,		/* nessuna verifica */
+		SAMPLED,	/* verifica locale O(log d), con probabilita' p gli adiacenti
+					   di un vertice, a rotazione (O(d log d)) */
+		DEFERRED,	/* verifica rimandata alla chiamata di validate() */
+		FULL		/* repOk() dopo ogni modifica (default) */
+	}
+
+
 	/***************************************************************************
 								Variabili di classe.
 	***************************************************************************/
-	private TreeMap<E, TreeSet<E>> st;
+	private VersionedMap<E, TreeSet<E>> st;
 	private int num_edge;
+	private Validation validation = Validation.FULL;
+	private double sampleRate = 0.01;
+	private boolean dirty = false;
+	private E sample = null;
+	private GraphBFS.Factory traversal = GraphBFS.directionOptimizing();
+	private long mod_count = 0;
+	private PathCache cache = null;
+	private List<GraphListener<? super E>> listeners = null;
+	private ConnectivityIndex<E> components = null;
+	private Set<TreeSet<E>> owned = null;
+	private final AtomicInteger live = new AtomicInteger(0);
 
 
 	/***************************************************************************
@@ -82,19 +115,274 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	*/
 
 
+	/***************************************************************************
+			Controlla localmente l'invariante sulla coppia <v,w>
+			appena modificata, in tempo O(log d).
+	***************************************************************************/
+	private void edgeOk(E v, E w)
+	{
+		if( v.compareTo(w)==0											||
+			st.get(v).contains(w)!=st.get(w).contains(v)				||
+			num_edge<0													||
+			(long)num_edge > (long)st.size()*(st.size()-1)/2
+		) throw new RepInvariantException("infranto repInvariant");
+	}
+	/*
+		EFFECTS: se v==w, se <v,w> è presente in una sola delle due direzioni
+				 o se num_edge è fuori dai limiti,
+				 lancia RepInvariantException (unchecked)
+	*/
+
+
+	/***************************************************************************
+			Controlla localmente l'invariante sugli adiacenti del vertice v
+			appena modificato, in tempo O(d log d).
+	***************************************************************************/
+	private void vertexOk(E v)
+	{
+		if( num_edge<0 || (long)num_edge > (long)st.size()*(st.size()-1)/2 )
+			throw new RepInvariantException("infranto repInvariant");
+		TreeSet<E> friends = st.get(v);
+		if( friends==null ) return;
+		for(E friend: friends)
+			if( friend==null					||
+				friend.compareTo(v)==0			||
+				!st.containsKey(friend)			||
+				!st.get(friend).contains(v)
+			) throw new RepInvariantException("infranto repInvariant");
+	}
+	/*
+		EFFECTS: se un adiacente di v è nullo, coincide con v, non è un
+				 vertice o non ha v fra i propri adiacenti,
+				 oppure se num_edge è fuori dai limiti,
+				 lancia RepInvariantException (unchecked)
+	*/
+
+
+	/***************************************************************************
+			Controlla localmente l'invariante sugli ex adiacenti friends
+			del vertice v appena isolato o rimosso, in tempo O(d log d).
+	***************************************************************************/
+	private void neighboursOk(E v, Set<E> friends)
+	{
+		if( num_edge<0 || (long)num_edge > (long)st.size()*(st.size()-1)/2 )
+			throw new RepInvariantException("infranto repInvariant");
+		TreeSet<E> own = st.get(v);
+		if( own!=null && !own.isEmpty() )
+			throw new RepInvariantException("infranto repInvariant");
+		for(E friend: friends)
+			if( friend==null					||
+				!st.containsKey(friend)			||
+				st.get(friend).contains(v)
+			) throw new RepInvariantException("infranto repInvariant");
+	}
+	/*
+		EFFECTS: se v è ancora un vertice con adiacenti, se un suo ex
+				 adiacente è nullo, non è più un vertice o ha ancora v fra i
+				 propri adiacenti, oppure se num_edge è fuori dai limiti,
+				 lancia RepInvariantException (unchecked)
+	*/
+
+
+	/***************************************************************************
+			Applicano la politica di verifica corrente dopo una modifica:
+			su un arco, su un vertice, sugli ex adiacenti di un vertice
+			isolato o rimosso o sull'intero grafo.
+	***************************************************************************/
+	private void validateEdge(E v, E w)
+	{
+		switch(validation){
+			case OFF: return;
+			case DEFERRED: dirty = true; return;
+			case SAMPLED:
+				edgeOk(v, w);
+				if( sampled() ) sampleOk();
+				return;
+			default: repOk();
+		}
+	}
+
+	private void validateVertex(E v)
+	{
+		switch(validation){
+			case OFF: return;
+			case DEFERRED: dirty = true; return;
+			case SAMPLED:
+				vertexOk(v);
+				if( sampled() ) sampleOk();
+				return;
+			default: repOk();
+		}
+	}
+
+	private void validateNeighbours(E v, Set<E> friends)
+	{
+		switch(validation){
+			case OFF: return;
+			case DEFERRED: dirty = true; return;
+			case SAMPLED:
+				neighboursOk(v, friends);
+				if( sampled() ) sampleOk();
+				return;
+			default: repOk();
+		}
+	}
+
+	private void validateAll()
+	{
+		switch(validation){
+			case OFF: return;
+			case DEFERRED: dirty = true; return;
+			case SAMPLED:
+				if( sampled() ) sampleOk();
+				return;
+			default: repOk();
+		}
+	}
+
+	private boolean sampled()
+	{
+		return ThreadLocalRandom.current().nextDouble() < sampleRate;
+	}
+
+	/* verifica gli adiacenti del vertice successivo a sample, ripartendo
+	   dal primo alla fine, cosicché i controlli a campione coprono via
+	   via l'intero grafo */
+	private void sampleOk()
+	{
+		if( st.isEmpty() ) return;
+		E v = sample==null ? null : st.higherKey(sample);
+		if( v==null ) v = st.firstKey();
+		sample = v;
+		vertexOk(v);
+	}
+	/*
+		EFFECTS: con OFF non verifica nulla, con DEFERRED segna il grafo come
+				 da verificare, con FULL esegue repOk(); con SAMPLED esegue il
+				 controllo locale e con probabilita' sampleRate controlla
+				 anche gli adiacenti del prossimo vertice della scansione
+				 circolare, per un costo atteso O(log d + p d log d) per
+				 modifica invece di O(p (V+E)).
+	*/
+
+
+	/***************************************************************************
+				Imposta la politica di verifica dell'invariante.
+	***************************************************************************/
+	public void setValidation(Validation mode)
+	{
+		if( mode==null ) throw new NullPointerException("passato oggetto nullo");
+		if( validation==Validation.DEFERRED && mode!=Validation.DEFERRED )
+			validate();
+		validation = mode;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: imposta mode come politica di verifica; se si abbandona
+				 DEFERRED esegue prima le verifiche rimandate.
+				 Se mode==null lancia NullPointerException (unchecked).
+				 Se le verifiche rimandate falliscono lancia
+				 RepInvariantException (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituisce la politica di verifica dell'invariante.
+	***************************************************************************/
+	public Validation getValidation()
+	{
+		return validation;
+	}
+
+
+	/***************************************************************************
+			Imposta la probabilita' della verifica a campione di un
+			vertice dopo ogni modifica nella politica SAMPLED.
+	***************************************************************************/
+	public void setSampleRate(double p)
+	{
+		if( !(p>=0 && p<=1) )
+			throw new IllegalArgumentException(p+" non e' una probabilita'");
+		sampleRate = p;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: imposta sampleRate=p.
+				 Se p non appartiene a [0,1] lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Esegue le verifiche rimandate (commit della politica DEFERRED).
+	***************************************************************************/
+	public void validate()
+	{
+		repOk();
+		dirty = false;
+	}
+	/*
+		EFFECTS: esegue repOk() indipendentemente dalla politica corrente e
+				 azzera lo stato di verifica pendente.
+				 Se l'invariante è infranto lancia RepInvariantException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il contatore delle modifiche subite dal grafo.
+	***************************************************************************/
+	public long modCount()
+	{
+		return mod_count;
+	}
+	/*
+		EFFECTS: restituisce il numero di operazioni di modifica eseguite su
+				 this; due letture uguali garantiscono che fra di esse il
+				 grafo non è cambiato.
+	*/
+
+
+	/***************************************************************************
+			Restituisce true se ci sono modifiche non ancora verificate.
+	***************************************************************************/
+	public boolean isDirty()
+	{
+		return dirty;
+	}
+
+
 	/***************************************************************************
 							Costruttore1:
 							istanzia un GraphMap vuoto.
 	***************************************************************************/
 	public GraphMap()
 	{
-		this.st = new TreeMap<E, TreeSet<E>>();
+		this.st = new VersionedMap<E, TreeSet<E>>();
 		this.num_edge = 0;
 		repOk();
 	}
 	/*
 		MODIFIES: this
-		EFFECTS: alloca un Treemap<E, TreeSet<E>> vuoto e setta num_edge a 0.
+		EFFECTS: alloca una VersionedMap<E, TreeSet<E>> vuota e setta
+				 num_edge a 0.
+	*/
+
+
+	/***************************************************************************
+							Costruttore3:
+							istanzia un GraphMap vuoto con la
+							politica di verifica passata.
+	***************************************************************************/
+	public GraphMap(Validation mode)
+	{
+		this();
+		setValidation(mode);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: come Costruttore1, poi imposta mode come politica di verifica.
+				 Se mode==null lancia NullPointerException (unchecked).
 	*/
 
 
@@ -126,12 +414,119 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	}
 	/*
 		MODIFIES: this
-		EFFECTS: alloca un Treemap<E. TreeSet<E>>
+		EFFECTS: alloca una VersionedMap<E, TreeSet<E>>
 				 tale che st.keySet()==vertexes && st.values()==adjoints,
 				 rispettando l'ordine di iterazione
 	*/
 
 
+	/***************************************************************************
+		Costruttore4:
+		istanzia un GraphMap sulle strutture già costruite e simmetriche
+		passate per argomento (usato da GraphMapBuilder).
+	***************************************************************************/
+	GraphMap(TreeMap<E, TreeSet<E>> st, int num_edge)
+	{
+		this.st = new VersionedMap<E, TreeSet<E>>(st);
+		this.num_edge = num_edge;
+		repOk();
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: adotta gli insiemi di st e num_edge senza copiarli, con
+				 un solo repOk(); la mappa è convertita in O(V).
+				 Se l'invariante è infranto lancia RepInvariantException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+		Costruttore5:
+		istanzia una vista che condivide le strutture di un altro grafo
+		(usato da Snapshot), senza verifiche.
+	***************************************************************************/
+	private GraphMap(GraphMap<E> g)
+	{
+		this.st = g.st.share();
+		this.num_edge = g.num_edge;
+		this.mod_count = g.mod_count;
+		this.traversal = g.traversal;
+		this.validation = Validation.OFF;
+	}
+
+
+	/***************************************************************************
+			Sostituisce il contenuto del grafo con le strutture già
+			costruite e simmetriche passate (usato da GraphMapBuilder).
+	***************************************************************************/
+	void install(TreeMap<E, TreeSet<E>> st, int num_edge)
+	{
+		this.st = new VersionedMap<E, TreeSet<E>>(st);
+		this.num_edge = num_edge;
+		mod_count++;
+		validateAll();
+		if( listeners!=null )
+			for(GraphListener<? super E> l: listeners) l.reloaded();
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: adotta gli insiemi di st e num_edge senza copiarli, con
+				 una sola verifica secondo la politica corrente; la mappa è
+				 convertita in O(V).
+	*/
+
+
+	/***************************************************************************
+		Copia su scrittura delle strutture condivise con le istantanee:
+		map() restituisce la mappa da modificare, che ricrea da sé i
+		nodi ancora condivisi con un'istantanea (VersionedMap); set(v) restituisce l'insieme degli adiacenti di v da
+		modificare, copiandolo se non è stato creato dopo l'ultima
+		istantanea; fresh() crea un nuovo insieme vuoto.
+		Quando tutte le istantanee sono chiuse le copie non servono più
+		e le strutture vengono di nuovo modificate sul posto.
+	***************************************************************************/
+	private VersionedMap<E, TreeSet<E>> map()
+	{
+		release();
+		return st;
+	}
+
+	private TreeSet<E> set(E v)
+	{
+		release();
+		Set<TreeSet<E>> mine = owned;
+		TreeSet<E> friends = st.get(v);
+		if( mine==null || mine.contains(friends) ) return friends;
+		friends = new TreeSet<E>(friends);
+		map().put(v, friends);
+		mine.add(friends);
+		return friends;
+	}
+
+	private TreeSet<E> fresh()
+	{
+		TreeSet<E> friends = new TreeSet<E>();
+		if( owned!=null ) owned.add(friends);
+		return friends;
+	}
+
+	private void release()
+	{
+		if( owned!=null && live.get()==0 ){
+			owned = null;
+			st.reclaim();
+		}
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: dopo una istantanea ogni modifica della mappa ricrea i
+				 soli nodi condivisi sul proprio cammino, in O(log V), ed
+				 ogni insieme toccato viene copiato in O(d) una sola volta
+				 per istantanea; le strutture condivise non vengono mai
+				 modificate finché un'istantanea è aperta.
+	*/
+
+
 	/***************************************************************************
 			Override iterator di Iterable<E>:
 			restituisce un iteratore sugli elementi di tipo E del grafo.
@@ -224,8 +619,11 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		if( existsVertex(v) )
 			throw new MalformedParametersException(v+" e' gia' presente");
-		st.put(v, new TreeSet<E>());
-		repOk();
+		map().put(v, fresh());
+		mod_count++;
+		validateVertex(v);
+		if( listeners!=null )
+			for(GraphListener<? super E> l: listeners) l.vertexAdded(v);
 	}
 	/*
 		MODIFIES: st.keySet(), st.values()
@@ -243,10 +641,9 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		if(vertexes==null)
 			throw new NullPointerException("passato insieme nullo");
-		vertexes.forEach(v->{
-			addVertex(v);
-		});
-		repOk();
+		Transaction t = begin();
+		vertexes.forEach(v->t.addVertex(v));
+		t.commit();
 	}
 	/*
 		MODIFIES: st.keySet(), st.values()
@@ -257,6 +654,8 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				 se v==null lancia NullPointerException,
 				 se prima dell'invocazione st.containsKey(v)==true lancia
 				 MalformedParametersException (unchecked).
+				 Le operazioni sono eseguite in una sola Transaction: se una
+				 di esse fallisce il grafo resta invariato.
 	*/
 
 
@@ -268,11 +667,9 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		if(neighbours==null)
 			throw new NullPointerException("passato insieme nullo");
-		addVertex(v);
-		neighbours.forEach(w->{
-			addEdge(v, w);
-		});
-		repOk();
+		Transaction t = begin().addVertex(v);
+		neighbours.forEach(w->t.addEdge(v, w));
+		t.commit();
 	}
 	/*
 		MODIFIES: this
@@ -287,6 +684,8 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				 se w==null lancia NullPointerException (unchecked),
 				 se st.containsKey(w)==false lancia MalformedParametersException
 				 (unchecked).
+				 Le operazioni sono eseguite in una sola Transaction: se una
+				 di esse fallisce il grafo resta invariato.
 	*/
 
 
@@ -296,12 +695,17 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	public void removeVertex(E v)
 	{
 		checkVertex(v);
-		for(E neighbour: st.get(v)){
-			st.get(neighbour).remove(v);
+		TreeSet<E> friends = st.get(v);
+		for(E neighbour: friends){
+			set(neighbour).remove(v);
 			num_edge--;
 		}
-		st.remove(v);
-		repOk();
+		map().remove(v);
+		mod_count++;
+		validateNeighbours(v, friends);
+		if( listeners!=null )
+			for(GraphListener<? super E> l: listeners)
+				l.vertexRemoved(v, Collections.unmodifiableSet(friends));
 	}
 	/*
 		MODIFIES: this
@@ -322,10 +726,9 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		if(vertexes==null)
 			throw new NullPointerException("passato insieme nullo");
-		vertexes.forEach(v->{
-			removeVertex(v);
-		});
-		repOk();
+		Transaction t = begin();
+		vertexes.forEach(v->t.removeVertex(v));
+		t.commit();
 	}
 	/*
 		MODIFIES: this
@@ -339,6 +742,8 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				 NullPointerException (unchecked),
 				 se prima dell'invocazione st.containsKey(v)==false lancia
 				 MalformedParametersException (unchecked).
+				 Le operazioni sono eseguite in una sola Transaction: se una
+				 di esse fallisce il grafo resta invariato.
 	*/
 
 
@@ -347,13 +752,17 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	***************************************************************************/
 	public void removeAllVertex()
 	{
-		this.st = new TreeMap<E, TreeSet<E>>();
+		this.st = new VersionedMap<E, TreeSet<E>>();
 		this.num_edge = 0;
-		repOk();
+		mod_count++;
+		validateAll();
+		if( listeners!=null )
+			for(GraphListener<? super E> l: listeners) l.cleared();
 	}
 	/*
 		MODIFIES: this
-		EFFECTS: alloca un nuovo TreeMap<E, TreeSet<E>> vuoto da assegnare a st
+		EFFECTS: alloca una nuova VersionedMap<E, TreeSet<E>> vuota da
+				 assegnare a st
 				 e azzera il contatore num_edge.
 	*/
 
@@ -366,10 +775,16 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 		if( existsEdge(v, w) )
 			throw new MalformedParametersException( "<"+v+", "+w+">"+
 													" è già presente" );
-		st.get(v).add(w);
-		st.get(w).add(v);
+		if( v.compareTo(w)==0 )
+			throw new MalformedParametersException( "<"+v+", "+w+">"+
+													" è un cappio" );
+		set(v).add(w);
+		set(w).add(v);
 		num_edge++;
-		repOk();
+		mod_count++;
+		validateEdge(v, w);
+		if( listeners!=null )
+			for(GraphListener<? super E> l: listeners) l.edgeAdded(v, w);
 	}
 	/*
 		MODIFIES: st.values(), num_edge
@@ -381,7 +796,7 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				 lancia IllegalArgumentException (unchecked).
 				 Se prima dell'invocazione
 				 st.get(w).contains(v)==true && st.get(v).contains(w)==true
-				 lancia MalformedParametersException (unchecked).
+				 oppure se v==w lancia MalformedParametersException (unchecked).
 	*/
 
 
@@ -393,10 +808,9 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		if(neighbours==null)
 			throw new NullPointerException("passato insieme nullo");
-		neighbours.forEach(w->{
-			addEdge(v, w);
-		});
-		repOk();
+		Transaction t = begin();
+		neighbours.forEach(w->t.addEdge(v, w));
+		t.commit();
 	}
 	/*
 		MODIFIES: st.values(), num_edge
@@ -410,6 +824,8 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				 se w==null lancia NullPointerException (unchecked),
 				 se st.containsKey(w)==false lancia MalformedParametersException
 				 (unchecked).
+				 Le operazioni sono eseguite in una sola Transaction: se una
+				 di esse fallisce il grafo resta invariato.
 	*/
 
 
@@ -420,12 +836,16 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		checkVertex(v);
 		checkVertex(w);
-		if( !st.get(v).remove(w) )
+		if( !st.get(v).contains(w) )
 			throw new MalformedParametersException( "<"+v+", "+w+">"+
 													" non è presente" );
+		set(v).remove(w);
 		num_edge--;
-		st.get(w).remove(v);
-		repOk();
+		set(w).remove(v);
+		mod_count++;
+		validateEdge(v, w);
+		if( listeners!=null )
+			for(GraphListener<? super E> l: listeners) l.edgeRemoved(v, w);
 	}
 	/*
 		MODIFIES: st.values(), num_edge
@@ -446,10 +866,9 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		if(neighbours==null)
 			throw new NullPointerException("passato insieme nullo");
-		neighbours.forEach(w->{
-			removeEdge(v, w);
-		});
-		repOk();
+		Transaction t = begin();
+		neighbours.forEach(w->t.removeEdge(v, w));
+		t.commit();
 	}
 	/*
 		MODIFIES: st.values(), num_edge
@@ -466,6 +885,8 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				 lancia IllegalArgumentException (unchecked),
 				 se prima dell'invocazione st.get(v).contains(w)==false
 				 lancia MalformedParametersException (unchecked).
+				 Le operazioni sono eseguite in una sola Transaction: se una
+				 di esse fallisce il grafo resta invariato.
 	*/
 
 
@@ -475,12 +896,17 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	public void isolateVertex(E v)
 	{
 		checkVertex(v);
-		st.get(v).forEach(friend->{
-			st.get(friend).remove(v);
+		TreeSet<E> friends = st.get(v);
+		friends.forEach(friend->{
+			set(friend).remove(v);
 			num_edge--;
 		});
-		st.put(v, new TreeSet<E>());
-		repOk();
+		map().put(v, fresh());
+		mod_count++;
+		validateNeighbours(v, friends);
+		if( listeners!=null )
+			for(GraphListener<? super E> l: listeners)
+				l.vertexIsolated(v, Collections.unmodifiableSet(friends));
 	}
 	/*
 		MODIFIES: st.values(), num_edge
@@ -493,65 +919,464 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 
 
 	/***************************************************************************
-			Restituisce il grado del vertice (numero archi del vertice).
+			Operazione elementare di una transazione, usata sia nella
+			coda delle operazioni da eseguire che nel registro per
+			annullarle (friends sono gli adiacenti di un vertice rimosso).
 	***************************************************************************/
-	public int degreeVertex(E v)
+	private static final class Op<E>
 	{
-		checkVertex(v);
-		return st.get(v).size();
+		static final int ADD_VERTEX = 0,
+						 REMOVE_VERTEX = 1,
+						 ADD_EDGE = 2,
+						 REMOVE_EDGE = 3;
+
+		final int kind;
+		final E v, w;
+		TreeSet<E> friends;
+
+		Op(int kind, E v, E w)
+		{
+			this.kind = kind;
+			this.v = v;
+			this.w = w;
+		}
 	}
-	/*
-		EFFECTS: restituisce st.get.size()
-				 pari alla cardinalità dell'insieme deli adiacenti a v.
-				 Se v==null lancia NullPointerException (unchecked).
-				 Se st.containsKey(v)==false
-				 lancia IllegalArgumentException (unchecked).
-	*/
 
 
 	/***************************************************************************
-					Restituisce l'elenco dei vertici del grafo.
+		Transazione: accoda aggiunte e rimozioni di vertici ed archi e le
+		applica tutte insieme con commit(), con una sola verifica finale
+		dell'invariante; se una operazione o la verifica falliscono, le
+		operazioni già applicate vengono annullate in ordine inverso e il
+		grafo torna com'era prima del commit.
 	***************************************************************************/
-	public NavigableSet<E> listVertex()
+	public final class Transaction
 	{
-		return Collections.unmodifiableNavigableSet(st.navigableKeySet());
+		private final ArrayList<Op<E>> ops = new ArrayList<Op<E>>();
+		private boolean open = true;
+
+		private Transaction()
+		{
+		}
+
+		private Transaction queue(int kind, E v, E w)
+		{
+			if( !open )
+				throw new IllegalStateException("transazione gia' conclusa");
+			if( v==null || (kind>=Op.ADD_EDGE && w==null) )
+				throw new NullPointerException("passato oggetto nullo");
+			ops.add(new Op<E>(kind, v, w));
+			return this;
+		}
+
+		public Transaction addVertex(E v)
+		{
+			return queue(Op.ADD_VERTEX, v, null);
+		}
+
+		public Transaction removeVertex(E v)
+		{
+			return queue(Op.REMOVE_VERTEX, v, null);
+		}
+
+		public Transaction addEdge(E v, E w)
+		{
+			return queue(Op.ADD_EDGE, v, w);
+		}
+
+		public Transaction removeEdge(E v, E w)
+		{
+			return queue(Op.REMOVE_EDGE, v, w);
+		}
+		/*
+			MODIFIES: this
+			EFFECTS: accodano l'operazione omonima di GraphMap senza
+					 eseguirla e restituiscono this per concatenare le
+					 chiamate.
+					 Se v==null || w==null lanciano NullPointerException
+					 (unchecked).
+					 Se la transazione è già conclusa lanciano
+					 IllegalStateException (unchecked).
+		*/
+
+		public int size()
+		{
+			return ops.size();
+		}
+
+		public boolean isOpen()
+		{
+			return open;
+		}
+
+		/* scarta le operazioni accodate e conclude la transazione */
+		public void abort()
+		{
+			ops.clear();
+			open = false;
+		}
+
+		public void commit()
+		{
+			if( !open )
+				throw new IllegalStateException("transazione gia' conclusa");
+			open = false;
+			if( ops.isEmpty() ) return;
+			ArrayList<Op<E>> undo = new ArrayList<Op<E>>(ops.size());
+			try{
+				for(Op<E> op: ops) undo.add(apply(op));
+				mod_count++;
+				validateAll();
+			}
+			catch(RuntimeException exc){
+				for(int k=undo.size()-1; k>=0; k--) revert(undo.get(k));
+				mod_count++;
+				throw exc;
+			}
+			finally{ ops.clear(); }
+			if( listeners!=null )
+				for(Op<E> inv: undo) fire(inv);
+		}
+		/*
+			MODIFIES: GraphMap.this
+			EFFECTS: applica in ordine le operazioni accodate, con gli stessi
+					 controlli ed eccezioni dei metodi omonimi di GraphMap,
+					 registrando per ciascuna l'operazione inversa; poi esegue
+					 una sola verifica secondo la politica corrente.
+					 Se una operazione o la verifica lanciano una eccezione,
+					 annulla le operazioni applicate e la rilancia.
+					 Se la transazione è già conclusa lancia
+					 IllegalStateException (unchecked).
+		*/
 	}
-	/*
-		EFFECTS: restituisce un insieme navigabile non modificabile
-				 dei vertici del grafo.
-	*/
 
 
 	/***************************************************************************
-				Restituisce l'elenco degli adiacenti di un vertice.
+				Apre una nuova transazione sul grafo.
 	***************************************************************************/
-	public NavigableSet<E> adjacentVertex(E v)
+	public Transaction begin()
 	{
-		checkVertex(v);
-		return Collections.unmodifiableNavigableSet(st.get(v));
+		return new Transaction();
 	}
-	/*
-		EFFECTS: restituisce un insieme navigabile non modificabile
-				 degli adiacenti di un vertice.
-	*/
 
 
 	/***************************************************************************
-		Classe privata di oggetti che tengono traccia di:
-		distanza e percorso di ciascun vertice da una radice scelta del grafo.
-		E' da intendersi come una efficiente rappresentazione di un
-		MinimunSpanningTree costruito con l'algoritmo di ricerca BFS. 
+			Applica una operazione senza verifiche dell'invariante e ne
+			restituisce l'inversa; revert() applica una operazione inversa.
 	***************************************************************************/
-	private class Path{
-		Map<E, Integer> distMap = new TreeMap<E, Integer>();
-		Map<E, E> prevMap = new TreeMap<E, E>();
+	private Op<E> apply(Op<E> op)
+	{
+		E v = op.v,
+		  w = op.w;
+		switch(op.kind){
+			case Op.ADD_VERTEX:
+				if( st.containsKey(v) )
+					throw new MalformedParametersException(v+" e' gia' presente");
+				map().put(v, fresh());
+				return new Op<E>(Op.REMOVE_VERTEX, v, null);
+			case Op.REMOVE_VERTEX:{
+				checkVertex(v);
+				TreeSet<E> friends = map().remove(v);
+				for(E friend: friends) set(friend).remove(v);
+				num_edge -= friends.size();
+				Op<E> inv = new Op<E>(Op.ADD_VERTEX, v, null);
+				inv.friends = friends;
+				return inv;
+			}
+			case Op.ADD_EDGE:
+				if( existsEdge(v, w) )
+					throw new MalformedParametersException( "<"+v+", "+w+">"+
+															" è già presente" );
+				if( v.compareTo(w)==0 )
+					throw new MalformedParametersException( "<"+v+", "+w+">"+
+															" è un cappio" );
+				set(v).add(w);
+				set(w).add(v);
+				num_edge++;
+				return new Op<E>(Op.REMOVE_EDGE, v, w);
+			default:
+				checkVertex(v);
+				checkVertex(w);
+				if( !st.get(v).contains(w) )
+					throw new MalformedParametersException( "<"+v+", "+w+">"+
+															" non è presente" );
+				set(v).remove(w);
+				set(w).remove(v);
+				num_edge--;
+				return new Op<E>(Op.ADD_EDGE, v, w);
+		}
+	}
+
+	private void revert(Op<E> op)
+	{
+		switch(op.kind){
+			case Op.ADD_VERTEX:
+				map().put(op.v, op.friends);
+				for(E friend: op.friends) set(friend).add(op.v);
+				num_edge += op.friends.size();
+				return;
+			case Op.REMOVE_VERTEX:
+				map().remove(op.v);
+				return;
+			case Op.ADD_EDGE:
+				set(op.v).add(op.w);
+				set(op.w).add(op.v);
+				num_edge++;
+				return;
+			default:
+				set(op.v).remove(op.w);
+				set(op.w).remove(op.v);
+				num_edge--;
+		}
+	}
+
+	private void fire(Op<E> inv)
+	{
+		for(GraphListener<? super E> l: listeners)
+			switch(inv.kind){
+				case Op.REMOVE_VERTEX: l.vertexAdded(inv.v); break;
+				case Op.ADD_VERTEX:
+					l.vertexRemoved(inv.v,
+									Collections.unmodifiableSet(inv.friends));
+					break;
+				case Op.REMOVE_EDGE: l.edgeAdded(inv.v, inv.w); break;
+				default: l.edgeRemoved(inv.v, inv.w);
+			}
+	}
+	/*
+		EFFECTS: notifica ai listener l'operazione di cui inv è l'inversa.
+	*/
+
+
+	/***************************************************************************
+			Registrano e rimuovono un osservatore delle modifiche.
+	***************************************************************************/
+	public void addListener(GraphListener<? super E> l)
+	{
+		if( l==null ) throw new NullPointerException("passato oggetto nullo");
+		List<GraphListener<? super E>> copy =
+			new ArrayList<GraphListener<? super E>>();
+		if( listeners!=null ) copy.addAll(listeners);
+		copy.add(l);
+		listeners = copy;
+	}
+
+	public boolean removeListener(GraphListener<? super E> l)
+	{
+		if( listeners==null || !listeners.contains(l) ) return false;
+		List<GraphListener<? super E>> copy =
+			new ArrayList<GraphListener<? super E>>(listeners);
+		copy.remove(l);
+		listeners = copy.isEmpty() ? null : copy;
+		return true;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: addListener() aggiunge l in coda agli osservatori, che
+				 vengono notificati nell'ordine di registrazione dopo ogni
+				 modifica riuscita; removeListener() restituisce true se l
+				 era registrato e lo rimuove.
+				 La lista viene copiata ad ogni registrazione, cosicché un
+				 osservatore può rimuoversi durante una notifica.
+				 Se l==null addListener() lancia NullPointerException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Istantanea in sola lettura del grafo ad una certa versione:
+			condivide la mappa e gli insiemi degli adiacenti con il
+			grafo, che li copia prima di modificarli finché
+			l'istantanea resta aperta: della mappa solo i nodi sul
+			cammino della modifica (O(log V)), ogni insieme (O(d)) al
+			primo accesso.
+	***************************************************************************/
+	public static final class Snapshot<E extends Comparable<E>>
+								extends GraphMap<E> implements AutoCloseable
+	{
+		private final AtomicInteger live;
+		private final AtomicBoolean open = new AtomicBoolean(true);
+
+		private Snapshot(GraphMap<E> g)
+		{
+			super(g);
+			this.live = g.live;
+		}
+
+		private static UnsupportedOperationException readOnly()
+		{
+			return new UnsupportedOperationException("istantanea non modificabile");
+		}
+
+		public void addVertex(E v)
+		{
+			throw readOnly();
+		}
+
+		public void removeVertex(E v)
+		{
+			throw readOnly();
+		}
+
+		public void removeAllVertex()
+		{
+			throw readOnly();
+		}
+
+		public void addEdge(E v, E w)
+		{
+			throw readOnly();
+		}
+
+		public void removeEdge(E v, E w)
+		{
+			throw readOnly();
+		}
+
+		public void isolateVertex(E v)
+		{
+			throw readOnly();
+		}
+
+		public GraphMap<E>.Transaction begin()
+		{
+			throw readOnly();
+		}
+
+		void install(TreeMap<E, TreeSet<E>> st, int num_edge)
+		{
+			throw readOnly();
+		}
+
+		public Snapshot<E> snapshot()
+		{
+			throw readOnly();
+		}
+		/*
+			EFFECTS: lanciano UnsupportedOperationException (unchecked); i
+					 metodi di modifica in blocco falliscono tramite begin().
+		*/
+
+		/* versione (modCount()) del grafo fotografata */
+		public long version()
+		{
+			return modCount();
+		}
+
+		public boolean isOpen()
+		{
+			return open.get();
+		}
+
+		public void close()
+		{
+			if( !open.compareAndSet(true, false) ) return;
+			((GraphMap<E>) this).st.close();
+			live.decrementAndGet();
+		}
+
+		public int numEdge()
+		{
+			if( !open.get() ) throw new IllegalStateException("istantanea chiusa");
+			return super.numEdge();
+		}
+		/*
+			MODIFIES: this
+			EFFECTS: rilascia l'istantanea (idempotente): il grafo smette di
+					 copiare le strutture quando tutte le sue istantanee sono
+					 chiuse e le versioni non più raggiungibili vengono
+					 recuperate dal garbage collector.
+					 L'uso dell'istantanea dopo close() lancia
+					 IllegalStateException (unchecked).
+		*/
+	}
+
+
+	/***************************************************************************
+				Restituisce un'istantanea in sola lettura del grafo.
+	***************************************************************************/
+	public Snapshot<E> snapshot()
+	{
+		live.incrementAndGet();
+		owned = Collections.newSetFromMap(
+			new IdentityHashMap<TreeSet<E>, Boolean>()
+		);
+		return new Snapshot<E>(this);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: restituisce in O(1) una vista del grafo nello stato corrente,
+				 leggibile anche da altri thread mentre il grafo continua ad
+				 essere modificato; va invocato dal thread che modifica il
+				 grafo e chiuso con close() (try-with-resources) al termine
+				 delle letture.
+				 Il costo è a carico delle modifiche successive: ciascuna
+				 ricrea i nodi della mappa dei vertici ancora condivisi sul
+				 proprio cammino, in O(log V), e copia gli insiemi di
+				 adiacenti che tocca per la prima volta, in O(d).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il grado del vertice (numero archi del vertice).
+	***************************************************************************/
+	public int degreeVertex(E v)
+	{
+		checkVertex(v);
+		return st.get(v).size();
+	}
+	/*
+		EFFECTS: restituisce st.get.size()
+				 pari alla cardinalità dell'insieme deli adiacenti a v.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se st.containsKey(v)==false
+				 lancia IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Restituisce l'elenco dei vertici del grafo.
+	***************************************************************************/
+	public NavigableSet<E> listVertex()
+	{
+		return Collections.unmodifiableNavigableSet(st.navigableKeySet());
+	}
+	/*
+		EFFECTS: restituisce un insieme navigabile non modificabile
+				 dei vertici del grafo.
+	*/
+
+
+	/***************************************************************************
+				Restituisce l'elenco degli adiacenti di un vertice.
+	***************************************************************************/
+	public NavigableSet<E> adjacentVertex(E v)
+	{
+		checkVertex(v);
+		return Collections.unmodifiableNavigableSet(st.get(v));
+	}
+	/*
+		EFFECTS: restituisce un insieme navigabile non modificabile
+				 degli adiacenti di un vertice.
+	*/
+
+
+	/***************************************************************************
+		Classe privata di oggetti che tengono traccia di:
+		distanza e percorso di ciascun vertice da una radice scelta del grafo.
+		E' da intendersi come una efficiente rappresentazione di un
+		MinimunSpanningTree costruito con l'algoritmo di ricerca BFS. 
+	***************************************************************************/
+	private class Path{
+		Map<E, Integer> distMap = new TreeMap<E, Integer>();
+		Map<E, E> prevMap = new TreeMap<E, E>();
 
 		/* Costruttore:
 		   istanzia un Path partendo dalla radice passata come primo elemento
 		   dei variadic-arguments vrt; se i variadic dovessero essere due,
 		   viene costruito un Path parziale da utilizzare per info sullo
 		   specifico elemento passato come secondo argomento dei variadic. */
-		Path(TreeMap<E, TreeSet<E>> st, Comparable ... vrt)
+		Path(VersionedMap<E, TreeSet<E>> st, Comparable ... vrt)
 		{
 			@SuppressWarnings("unchecked")
 			E[] _vrt = (E[]) vrt;
@@ -575,6 +1400,299 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	}
 
 
+	/***************************************************************************
+		Classe privata della cache LRU dei Path completi (alberi BFS)
+		indicizzati per radice: limitata sia nel numero di alberi sia nel
+		numero totale di vertici memorizzati, e svuotata quando il
+		contatore delle modifiche del grafo cambia.
+	***************************************************************************/
+	private class PathCache extends LinkedHashMap<E, Path>
+	{
+		private static final long serialVersionUID = 1L;
+
+		final int maxTrees;
+		final long maxEntries;
+		long entries = 0,
+			 hits = 0,
+			 misses = 0,
+			 evictions = 0,
+			 invalidations = 0,
+			 version;
+
+		PathCache(int maxTrees, long maxEntries)
+		{
+			super(16, 0.75f, true);
+			this.maxTrees = maxTrees;
+			this.maxEntries = maxEntries;
+			this.version = mod_count;
+		}
+
+		Path lookup(E root)
+		{
+			if( version!=mod_count ){
+				if( !isEmpty() ) invalidations++;
+				clear();
+				entries = 0;
+				version = mod_count;
+			}
+			Path p = get(root);
+			if( p!=null ){
+				hits++;
+				return p;
+			}
+			misses++;
+			p = new Path(st, root);
+			put(root, p);
+			entries += p.distMap.size();
+			Iterator<Map.Entry<E, Path>> i = entrySet().iterator();
+			while( (size()>maxTrees || entries>maxEntries) && size()>1 ){
+				Path old = i.next().getValue();
+				entries -= old.distMap.size();
+				i.remove();
+				evictions++;
+			}
+			return p;
+		}
+	}
+
+
+	/***************************************************************************
+			Statistiche della cache degli alberi BFS.
+	***************************************************************************/
+	public static final class CacheStats
+	{
+		private final long hits, misses, evictions, invalidations,
+						   trees, entries;
+
+		CacheStats(long hits, long misses, long evictions,
+				   long invalidations, long trees, long entries)
+		{
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.invalidations = invalidations;
+			this.trees = trees;
+			this.entries = entries;
+		}
+
+		public long hits(){ return hits; }
+		public long misses(){ return misses; }
+		public long evictions(){ return evictions; }
+		public long invalidations(){ return invalidations; }
+		public long trees(){ return trees; }
+		public long entries(){ return entries; }
+
+		public double hitRate()
+		{
+			return hits+misses==0 ? 0 : (double)hits/(hits+misses);
+		}
+
+		/* stima: due nodi di TreeMap (distanza e predecessore) per vertice */
+		public long estimatedBytes()
+		{
+			return entries*2*40;
+		}
+
+		public String toString()
+		{
+			return "hit = "+hits+", miss = "+misses+
+				   ", hit rate = "+hitRate()+
+				   ", evizioni = "+evictions+
+				   ", invalidazioni = "+invalidations+
+				   ", alberi = "+trees+", vertici = "+entries+
+				   ", memoria ~ "+estimatedBytes()+" byte";
+		}
+	}
+
+
+	/***************************************************************************
+			Attiva la cache degli alberi BFS per le interrogazioni
+			distanceInBetween e pathInBetween ripetute dalla stessa radice.
+	***************************************************************************/
+	public void enablePathCache(int maxTrees, long maxEntries)
+	{
+		if( maxTrees<1 || maxEntries<1 )
+			throw new IllegalArgumentException("limiti della cache non validi");
+		cache = new PathCache(maxTrees, maxEntries);
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: alloca una cache vuota che conserva al più maxTrees alberi e
+				 al più maxEntries vertici in totale (salvo l'ultimo albero
+				 calcolato), scartando quelli usati meno di recente.
+				 Se maxTrees<1 || maxEntries<1 lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Disattiva la cache degli alberi BFS.
+	***************************************************************************/
+	public void disablePathCache()
+	{
+		cache = null;
+	}
+
+
+	/***************************************************************************
+			Attiva l'indice delle componenti connesse, aggiornato ad ogni
+			modifica, con cui distanceInBetween e pathInBetween
+			rispondono in O(α(n)) per vertici non connessi.
+	***************************************************************************/
+	public ComponentIndex<E> enableComponentIndex()
+	{
+		if( components instanceof ComponentIndex )
+			return (ComponentIndex<E>) components;
+		disableComponentIndex();
+		ComponentIndex<E> index = new ComponentIndex<E>(this);
+		components = index;
+		return index;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: costruisce l'indice in O((V+E) α(V)) se non è già attivo e
+				 lo restituisce, per le interrogazioni connected(),
+				 componentOf(), componentCount() e componentSizes(); sostituisce
+				 l'eventuale DynamicConnectivity attivo.
+				 Adatto a carichi con poche rimozioni: ognuna costringe a
+				 ricalcolare l'intera componente toccata.
+	*/
+
+
+	/***************************************************************************
+			Attiva l'indice completamente dinamico delle componenti
+			connesse, che mantiene anche le rimozioni in tempo
+			polilogaritmico.
+	***************************************************************************/
+	public DynamicConnectivity<E> enableDynamicConnectivity()
+	{
+		if( components instanceof DynamicConnectivity )
+			return (DynamicConnectivity<E>) components;
+		disableComponentIndex();
+		DynamicConnectivity<E> index = new DynamicConnectivity<E>(this);
+		components = index;
+		return index;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: costruisce l'indice in O((V+E) log V) se non è già attivo e
+				 lo restituisce; sostituisce l'eventuale ComponentIndex attivo.
+				 Ogni modifica costa O(log^2 V) ammortizzato, ogni
+				 interrogazione O(log V): conviene a ComponentIndex quando
+				 le rimozioni di archi sono frequenti.
+	*/
+
+
+	/***************************************************************************
+			Disattiva l'indice delle componenti connesse, qualunque sia
+			quello attivo.
+	***************************************************************************/
+	public void disableComponentIndex()
+	{
+		if( components!=null ) components.detach();
+		components = null;
+	}
+
+
+	/***************************************************************************
+			Restituisce l'indice delle componenti connesse,
+			null se non è attivo.
+	***************************************************************************/
+	public ConnectivityIndex<E> componentIndex()
+	{
+		return components;
+	}
+
+
+	/***************************************************************************
+			Restituisce le statistiche della cache degli alberi BFS,
+			null se la cache non è attiva.
+	***************************************************************************/
+	public CacheStats pathCacheStats()
+	{
+		if( cache==null ) return null;
+		return new CacheStats(cache.hits, cache.misses, cache.evictions,
+							  cache.invalidations, cache.size(), cache.entries);
+	}
+
+
+	/***************************************************************************
+		Classe privata di oggetti che rappresentano un cammino minimo tra
+		due vertici trovato con una BFS bidirezionale: ad ogni passo viene
+		espanso di un intero livello il lato con la frontiera più piccola,
+		fino all'incontro delle due visite.
+	***************************************************************************/
+	private class BiPath{
+		Map<E, Integer> distA = new TreeMap<E, Integer>(),
+						distB = new TreeMap<E, Integer>();
+		Map<E, E> prevA = new TreeMap<E, E>(),
+				  prevB = new TreeMap<E, E>();
+		E meetA = null,
+		  meetB = null;
+		int dist = -1;
+
+		/* Costruttore:
+		   istanzia un BiPath tra v (lato A) e w (lato B); se i due vertici
+		   non sono connessi dist resta -1. */
+		BiPath(VersionedMap<E, TreeSet<E>> st, E v, E w)
+		{
+			distA.put(v, 0);
+			distB.put(w, 0);
+			if( v.compareTo(w)==0 ){
+				meetA = meetB = v;
+				dist = 0;
+				return;
+			}
+			Deque<E> frontA = new ArrayDeque<E>(),
+					 frontB = new ArrayDeque<E>();
+			frontA.add(v);
+			frontB.add(w);
+			while( dist<0 && !frontA.isEmpty() && !frontB.isEmpty() )
+				if( frontA.size()<=frontB.size() )
+					frontA = expand(st, frontA, distA, prevA, distB, true);
+				else
+					frontB = expand(st, frontB, distB, prevB, distA, false);
+		}
+
+		/* espande un livello della frontiera front, registrando il miglior
+		   arco <u,x> con x già raggiunto dall'altro lato */
+		private Deque<E> expand(VersionedMap<E, TreeSet<E>> st, Deque<E> front,
+								Map<E, Integer> dist, Map<E, E> prev,
+								Map<E, Integer> other, boolean sideA)
+		{
+			Deque<E> next = new ArrayDeque<E>();
+			for(E u: front)
+				for(E x: st.get(u)){
+					Integer d = other.get(x);
+					if( d!=null && (this.dist<0 ||
+									dist.get(u)+1+d<this.dist) ){
+						this.dist = dist.get(u)+1+d;
+						meetA = sideA ? u : x;
+						meetB = sideA ? x : u;
+					}
+					if( !dist.containsKey(x) ){
+						dist.put(x, dist.get(u)+1);
+						prev.put(x, u);
+						next.add(x);
+					}
+				}
+			return next;
+		}
+
+		/* vertici intermedi del cammino, da v a w esclusi */
+		Deque<E> inner(E v, E w)
+		{
+			Deque<E> stackPath = new ArrayDeque<E>();
+			if( dist<=0 ) return stackPath;
+			for(E x=meetA; x.compareTo(v)!=0; x=prevA.get(x))
+				stackPath.addFirst(x);
+			for(E x=meetB; x.compareTo(w)!=0; x=prevB.get(x))
+				stackPath.addLast(x);
+			return stackPath;
+		}
+	}
+
+
 	/***************************************************************************
 		Restituisce la distanza tra due vertici,
 		-1 se i due vertici non appartengono al medesimo sottografo connesso.
@@ -583,13 +1701,19 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		checkVertex(v);
 		checkVertex(w);
-		Path p = new Path(this.st, v, w);
-		return p.distMap.getOrDefault(w, -1);
+		if( components!=null && !components.connected(v, w) ) return -1;
+		if( cache!=null )
+			return cache.lookup(v).distMap.getOrDefault(w, -1);
+		return new BiPath(this.st, v, w).dist;
 	}
 	/*
-		EFFECTS: restituisce il valore associato a w
-				 nella mappa delle distanze creata usando la radice v,
-				 -1 se w non è mappato.
+		EFFECTS: se l'indice delle componenti è attivo e v e w non sono
+				 connessi restituisce subito -1;
+				 se la cache è attiva restituisce il valore associato a w
+				 nella mappa delle distanze dell'albero BFS di radice v,
+				 altrimenti la lunghezza del cammino minimo tra v e w
+				 trovato con una BFS bidirezionale;
+				 -1 se w non è raggiungibile da v.
 				 Se v==null || w==null lancia NullPointerException (unchecked).
 				 Se st.containsKey(v)==false || st.containsKey(w)==false
 				 lancia IllegalArgumentException (unchecked).
@@ -604,7 +1728,10 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		checkVertex(v);
 		checkVertex(w);
-		Path p = new Path(this.st, v, w);
+		if( components!=null && !components.connected(v, w) )
+			return new ArrayDeque<E>();
+		if( cache==null ) return new BiPath(this.st, v, w).inner(v, w);
+		Path p = cache.lookup(v);
 		Deque<E> stackPath = new ArrayDeque<E>();
 		while( (w=p.prevMap.get(w))!=null && w.compareTo(v)!=0 )
 			stackPath.addFirst(w);
@@ -612,7 +1739,10 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	}
 	/*
 		EFFECTS: restituisce una Deque<E> contenente i vertici intermedi
-				 nel percorso tra v e w.
+				 di un cammino minimo tra v e w, ricavato dall'albero BFS di
+				 radice v se la cache è attiva o da una BFS bidirezionale
+				 altrimenti; vuota se v e w non sono connessi (subito, senza
+				 visite, se l'indice delle componenti è attivo).
 				 Se v==null || w==null lancia NullPointerException (unchecked).
 				 Se st.containsKey(v)==false || st.containsKey(w)==false
 				 lancia IllegalArgumentException (unchecked).
@@ -625,22 +1755,141 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	***************************************************************************/
 	public int graphDiameter()
 	{
-		int max=0;
-		for( Map.Entry<E, TreeSet<E>> keyValue: st.entrySet() ){
-			Path p = new Path(this.st, keyValue.getKey());
-			final int aux = max;
-			max = p.distMap.values().stream()
-									.max(Integer::compareTo)
-									/* .max(i->Integer.compareTo(i)) */
-									.filter(tempMax->tempMax>aux)
-									.orElse(max);
-		}
-		return max;
+		return diameterInfo().diameter();
+	}
+	/*
+		EFFECTS: costruisce l'istantanea CSR del grafo e ne restituisce la
+				 maggiore delle eccentricità, calcolata per ogni componente
+				 connessa con l'algoritmo BoundingDiameters.
+	*/
+
+
+	/***************************************************************************
+			Restituisce il diametro del grafo insieme al numero di
+			visite BFS necessarie a calcolarlo.
+	***************************************************************************/
+	public GraphDiameter.Result diameterInfo()
+	{
+		return GraphDiameter.bounding(freeze());
+	}
+	/*
+		EFFECTS: restituisce il risultato di GraphDiameter.bounding() sulla
+				 istantanea CSR di this.
+	*/
+
+
+	/***************************************************************************
+			Restituisce una stima della distribuzione delle distanze,
+			della distanza media e del diametro effettivo del grafo
+			con contatori HyperLogLog di 2^log2m registri.
+	***************************************************************************/
+	public GraphHyperANF.Result approximateDistances(int log2m)
+	{
+		return GraphHyperANF.run(freeze(), log2m, 0);
 	}
 	/*
-		EFFECTS: perogni v appartenente a st.keySet() calcola il cammino minimo
-				 maggiore usando la mappa delle distanze e
-				 restituisce il più grande di quelli trovati.
+		EFFECTS: restituisce il risultato di GraphHyperANF.run() sulla
+				 istantanea CSR di this; l'errore decresce e la memoria
+				 cresce al crescere di log2m.
+				 Se log2m non appartiene a [4,16] lancia
+				 IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce i triangoli per vertice e totali e i
+			coefficienti di clustering, calcolati in parallelo.
+	***************************************************************************/
+	public GraphTriangles.Result<E> triangles()
+	{
+		return GraphTriangles.run(freeze());
+	}
+	/*
+		EFFECTS: restituisce il risultato di GraphTriangles.run() sulla
+				 istantanea CSR di this, calcolato sul pool comune; le
+				 modifiche successive a this non si riflettono sul
+				 risultato.
+	*/
+
+
+	/***************************************************************************
+			Come triangles(), su parallelism thread.
+	***************************************************************************/
+	public GraphTriangles.Result<E> triangles(int parallelism)
+	{
+		return GraphTriangles.run(freeze(), parallelism);
+	}
+	/*
+		EFFECTS: Se parallelism<1 lancia IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il diametro del grafo calcolato in parallelo
+			su parallelism thread.
+	***************************************************************************/
+	public int graphDiameter(int parallelism)
+	{
+		return GraphDiameter.parallel(freeze(), parallelism);
+	}
+	/*
+		EFFECTS: restituisce lo stesso valore di graphDiameter(), distribuendo
+				 le BFS sui thread di un ForkJoinPool temporaneo.
+				 Se parallelism<1 lancia IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il diametro del grafo calcolato in parallelo
+			sul pool passato, interrompibile tramite cancel.
+	***************************************************************************/
+	public int graphDiameter(ForkJoinPool pool, AtomicBoolean cancel)
+	{
+		return GraphDiameter.parallel(freeze(), pool, cancel);
+	}
+	/*
+		EFFECTS: restituisce lo stesso valore di graphDiameter(), distribuendo
+				 le BFS sui thread di pool.
+				 Se pool==null || cancel==null lancia NullPointerException
+				 (unchecked).
+				 Se cancel diventa true durante il calcolo lancia
+				 CancellationException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce una istantanea non modificabile del grafo in
+			formato CSR (Compressed Sparse Row) con id interi dei vertici.
+	***************************************************************************/
+	public GraphCSR<E> freeze()
+	{
+		GraphCSR<E> csr = new GraphCSR<E>(this);
+		csr.setTraversal(traversal);
+		return csr;
+	}
+	/*
+		EFFECTS: restituisce un GraphCSR<E> con gli stessi vertici e archi
+				 di this e lo stesso motore BFS; le modifiche successive a
+				 this non si riflettono sull'istantanea.
+	*/
+
+
+	/***************************************************************************
+			Imposta il motore BFS usato dalle analisi sull'istantanea
+			CSR (diametro e visite a sorgente singola).
+	***************************************************************************/
+	public void setTraversal(GraphBFS.Factory traversal)
+	{
+		if( traversal==null )
+			throw new NullPointerException("passato oggetto nullo");
+		this.traversal = traversal;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: imposta la Factory dei motori BFS passata alle istantanee
+				 restituite da freeze(); di default è
+				 GraphBFS.directionOptimizing().
+				 Se traversal==null lancia NullPointerException (unchecked).
 	*/
 
 
@@ -652,18 +1901,102 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 	{
 		checkVertex(v);
 		checkVertex(w);
-		return st.get(v).stream()
-						.filter(x->st.get(w).contains(x));
+		List<E> common = new ArrayList<E>();
+		intersect(st.get(v), st.get(w), common::add);
+		return common.stream();
 	}
 	/*
 		EFFECTS: restituisce uno Stream<E> contenete tutti i vertici x tali che
-				 st.get(v).contains(x)==true && st.get(w).contains(x)==true.
+				 st.get(v).contains(x)==true && st.get(w).contains(x)==true,
+				 in ordine crescente, calcolati con intersect().
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se st.containsKey(v)==false || st.containsKey(w)==false
+				 lancia IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Dati due nodi, restituisce il numero dei loro vicini comuni.
+	***************************************************************************/
+	public int countCommonNeighbours(E v, E w)
+	{
+		checkVertex(v);
+		checkVertex(w);
+		return intersect(st.get(v), st.get(w), null);
+	}
+	/*
+		EFFECTS: restituisce commonNeighbours(v, w).count() senza costruire
+				 l'intersezione.
 				 Se v==null || w==null lancia NullPointerException (unchecked).
 				 Se st.containsKey(v)==false || st.containsKey(w)==false
 				 lancia IllegalArgumentException (unchecked).
 	*/
 
 
+	/***************************************************************************
+			Interseca due insiemi ordinati di adiacenti partendo dal
+			più piccolo: fusione lineare per dimensioni simili, salti
+			con ceiling() alternati fra i due insiemi per dimensioni
+			sbilanciate.
+	***************************************************************************/
+	private int intersect(TreeSet<E> a, TreeSet<E> b, Consumer<E> sink)
+	{
+		if( a.size()>b.size() ){
+			TreeSet<E> aux = a;
+			a = b;
+			b = aux;
+		}
+		if( a.isEmpty() ) return 0;
+		int n = 0;
+
+		if( (long)a.size()*(32-Integer.numberOfLeadingZeros(b.size()))
+			>=b.size() ){
+			Iterator<E> i = a.iterator(),
+						j = b.iterator();
+			E x = i.next(),
+			  y = j.next();
+			while( true ){
+				int c = x.compareTo(y);
+				if( c<=0 ){
+					if( c==0 ){
+						if( sink!=null ) sink.accept(x);
+						n++;
+						if( !j.hasNext() ) break;
+						y = j.next();
+					}
+					if( !i.hasNext() ) break;
+					x = i.next();
+				}
+				else{
+					if( !j.hasNext() ) break;
+					y = j.next();
+				}
+			}
+			return n;
+		}
+
+		for(E x=a.first(); x!=null; ){
+			E y = b.ceiling(x);
+			if( y==null ) break;
+			if( x.compareTo(y)==0 ){
+				if( sink!=null ) sink.accept(x);
+				n++;
+				x = a.higher(x);
+			}
+			else x = a.ceiling(y);
+		}
+		return n;
+	}
+	/*
+		EFFECTS: passa a sink (se non null) gli elementi comuni ad a e b, in
+				 ordine crescente, e ne restituisce il numero.
+				 Con m<=M le dimensioni dei due insiemi, la fusione costa
+				 O(m+M) ed è scelta quando m log M >= M, altrimenti ogni salto
+				 costa O(log M) e i salti sono al più 2m, come una ricerca
+				 esponenziale sul TreeSet più grande.
+	*/
+
+
 	/***************************************************************************
 				Restituisce un array di Object contenente i nodi
 				in ordine crescente di comparazione (compareTo).
@@ -719,20 +2052,3 @@ public class GraphMap<E extends Comparable<E>> implements Iterable<E>, Graph<E>
 				 false altrimenti.
 	*/
 }
-
-
-/*******************************************************************************
-	Eccezione runtime per la gestione dell'invariante di rappresentazione
-*******************************************************************************/
-class RepInvariantException extends RuntimeException
-{
-	public RepInvariantException()
-	{
-		super();
-	}
-	
-	public RepInvariantException(String str)
-	{
-		super(str);
-	}
-}
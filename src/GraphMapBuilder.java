@@ -0,0 +1,326 @@
+/* GraphMapBuilder costruzione in blocco di GraphMap<E> */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+public class GraphMapBuilder<E extends Comparable<E>>
+{
+	/*
+		OVERVIEW:= raccoglitore modificabile di vertici e coppie <v,w> in
+				   qualsiasi ordine, anche ripetute, da cui costruire un
+				   GraphMap<E> in una sola passata O(E log E): le coppie
+				   vengono ordinate, i duplicati ed i cappi scartati ed ogni
+				   arco inserito in entrambe le direzioni.
+
+		AF:= <V,A> dove V = vertexes unito {pairs[i]} unito looped,
+						A = {<pairs[2i],pairs[2i+1]>} senza cappi, non orientati
+
+		IR:= vertexes!=null && pairs!=null && looped!=null
+			 && pairs.size() pari
+			 && perogni x appartenente a vertexes, pairs o looped => x!=null
+			 && perogni i => pairs[2i].compareTo(pairs[2i+1])!=0
+	*/
+
+	/***************************************************************************
+								Variabili di istanza.
+	***************************************************************************/
+	private final ArrayList<E> vertexes = new ArrayList<E>();
+	private final ArrayList<E> pairs = new ArrayList<E>();
+	private final ArrayList<E> looped = new ArrayList<E>();
+	private long loops = 0;
+	private int num_edge = 0;
+	private boolean declared = false;
+
+
+	/***************************************************************************
+			Richiede che gli estremi degli archi siano stati aggiunti
+			anche con addVertex() (o siano già vertici del grafo passato
+			a fill()), come nel formato testuale dei grafi.
+	***************************************************************************/
+	public GraphMapBuilder<E> rejectUndeclared()
+	{
+		declared = true;
+		return this;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: da questo momento build() e fill() lanciano
+				 IllegalArgumentException (unchecked), senza modificare alcun
+				 grafo, se un estremo di una coppia o di un cappio raccolto
+				 non è un vertice dichiarato; restituisce this.
+	*/
+
+
+	/***************************************************************************
+						Aggiunge un vertice, anche se già presente.
+	***************************************************************************/
+	public GraphMapBuilder<E> addVertex(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		vertexes.add(v);
+		return this;
+	}
+
+
+	/***************************************************************************
+				Aggiunge l'arco <v,w> ed i suoi estremi, anche se già
+				presenti; i cappi aggiungono solo il vertice.
+	***************************************************************************/
+	public GraphMapBuilder<E> addEdge(E v, E w)
+	{
+		if( v==null || w==null )
+			throw new NullPointerException("passato oggetto nullo");
+		if( v.compareTo(w)==0 ){
+			looped.add(v);
+			loops++;
+			return this;
+		}
+		pairs.add(v);
+		pairs.add(w);
+		return this;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: restituiscono this per concatenare le chiamate.
+				 Se v==null || w==null lanciano NullPointerException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituiscono il numero di coppie raccolte e di cappi scartati.
+	***************************************************************************/
+	public long numPairs()
+	{
+		return pairs.size()/2;
+	}
+
+	public long droppedLoops()
+	{
+		return loops;
+	}
+
+
+	/***************************************************************************
+			Vista ordinata e non modificabile degli adiacenti di un
+			vertice, cioè degli elementi key[from..to) decodificati:
+			passata al costruttore di TreeSet ne permette la
+			costruzione in tempo lineare invece che O(d log d).
+	***************************************************************************/
+	private static class Run<E extends Comparable<E>> extends AbstractSet<E>
+													  implements SortedSet<E>
+	{
+		private final ArrayList<E> name;
+		private final long[] key;
+		private final int from, to;
+
+		Run(ArrayList<E> name, long[] key, int from, int to)
+		{
+			this.name = name;
+			this.key = key;
+			this.from = from;
+			this.to = to;
+		}
+
+		public int size()
+		{
+			return to-from;
+		}
+
+		public Iterator<E> iterator()
+		{
+			return new Iterator<E>(){
+				private int k = from;
+				public boolean hasNext(){ return k<to; }
+				public E next()
+				{
+					if( k>=to ) throw new NoSuchElementException();
+					return name.get((int)key[k++]);
+				}
+			};
+		}
+
+		public Comparator<? super E> comparator()
+		{
+			return null;
+		}
+
+		public E first()
+		{
+			if( from==to ) throw new NoSuchElementException();
+			return name.get((int)key[from]);
+		}
+
+		public E last()
+		{
+			if( from==to ) throw new NoSuchElementException();
+			return name.get((int)key[to-1]);
+		}
+
+		/* primo indice di [from,to) con elemento >= v */
+		private int lower(E v)
+		{
+			if( v==null ) throw new NullPointerException("passato oggetto nullo");
+			int lo = from,
+				hi = to;
+			while( lo<hi ){
+				int mid = (lo+hi)>>>1;
+				if( name.get((int)key[mid]).compareTo(v)<0 ) lo = mid+1;
+				else hi = mid;
+			}
+			return lo;
+		}
+
+		public SortedSet<E> subSet(E v, E w)
+		{
+			if( v.compareTo(w)>0 )
+				throw new IllegalArgumentException(v+" maggiore di "+w);
+			return new Run<E>(name, key, lower(v), lower(w));
+		}
+
+		public SortedSet<E> headSet(E w)
+		{
+			return new Run<E>(name, key, from, lower(w));
+		}
+
+		public SortedSet<E> tailSet(E v)
+		{
+			return new Run<E>(name, key, lower(v), to);
+		}
+	}
+	/*
+		EFFECTS: subSet(), headSet() e tailSet() restituiscono viste sugli
+				 intervalli [v,w), [first,w) e [v,last] con una ricerca
+				 binaria; se v==null || w==null lanciano
+				 NullPointerException (unchecked), subSet() se v>w lancia
+				 IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Costruisce le strutture del grafo: numera i vertici distinti
+			con una sola ricerca in un TreeMap per elemento, poi ordina
+			come long le coppie di id in entrambe le direzioni, toglie i
+			duplicati e costruisce ogni insieme di adiacenti in tempo
+			lineare; il numero di archi distinti viene lasciato in
+			num_edge. Con rejectUndeclared() gli estremi non dichiarati
+			devono appartenere a g (se non nullo).
+	***************************************************************************/
+	private TreeMap<E, TreeSet<E>> table(Graph<E> g)
+	{
+		TreeMap<E, Integer> ids = new TreeMap<E, Integer>();
+		ArrayList<E> seen = new ArrayList<E>();
+		for(E v: vertexes)
+			if( ids.putIfAbsent(v, seen.size())==null ) seen.add(v);
+		for(E v: looped) id(v, ids, seen, g);
+		int[] pid = new int[pairs.size()];
+		for(int k=0; k<pid.length; k++) pid[k] = id(pairs.get(k), ids, seen, g);
+
+		int[] rank = new int[seen.size()];
+		ArrayList<E> name = new ArrayList<E>(seen.size());
+		for(Map.Entry<E, Integer> e: ids.entrySet()){
+			rank[e.getValue()] = name.size();
+			name.add(e.getKey());
+		}
+
+		long[] key = new long[pid.length];
+		for(int k=0; k<pid.length; k+=2){
+			long a = rank[pid[k]],
+				 b = rank[pid[k+1]];
+			key[k] = a<<32|b;
+			key[k+1] = b<<32|a;
+		}
+		Arrays.sort(key);
+		int m = 0;
+		for(int k=0; k<key.length; k++)
+			if( m==0 || key[k]!=key[m-1] ) key[m++] = key[k];
+
+		TreeMap<E, TreeSet<E>> st = new TreeMap<E, TreeSet<E>>();
+		for(int v=0, k=0; v<name.size(); v++){
+			int from = k;
+			while( k<m && (int)(key[k]>>>32)==v ) k++;
+			st.put(name.get(v), new TreeSet<E>(new Run<E>(name, key, from, k)));
+		}
+		num_edge = m/2;
+		return st;
+	}
+
+	private int id(E v, TreeMap<E, Integer> ids, ArrayList<E> seen, Graph<E> g)
+	{
+		Integer id = ids.get(v);
+		if( id!=null ) return id;
+		if( declared && (g==null || !g.existsVertex(v)) )
+			throw new IllegalArgumentException(v+" non e' un vertice");
+		ids.put(v, seen.size());
+		seen.add(v);
+		return seen.size()-1;
+	}
+
+
+	/***************************************************************************
+					Costruisce un nuovo GraphMap<E>.
+	***************************************************************************/
+	public GraphMap<E> build()
+	{
+		TreeMap<E, TreeSet<E>> st = table(null);
+		return new GraphMap<E>(st, num_edge);
+	}
+	/*
+		EFFECTS: restituisce il grafo con i vertici e gli archi raccolti,
+				 costruito in tempo O((V+E) log(V+E)) con un solo repOk();
+				 il builder resta utilizzabile.
+				 Con rejectUndeclared(), se un estremo non è stato aggiunto
+				 con addVertex() lancia IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Aggiunge i vertici e gli archi raccolti al grafo passato.
+	***************************************************************************/
+	public void fill(Graph<E> g)
+	{
+		if( g==null ) throw new NullPointerException("passato oggetto nullo");
+		TreeMap<E, TreeSet<E>> st = table(g);
+
+		if( g instanceof GraphMap && g.numVertex()==0 ){
+			((GraphMap<E>) g).install(st, num_edge);
+			return;
+		}
+
+		GraphMap<E> gm = g instanceof GraphMap ? (GraphMap<E>) g : null;
+		GraphMap.Validation mode = gm!=null ? gm.getValidation() : null;
+		if( gm!=null ) gm.setValidation(GraphMap.Validation.DEFERRED);
+		try{
+			for(E v: st.keySet())
+				if( !g.existsVertex(v) ) g.addVertex(v);
+			st.forEach((v, friends)->{
+				for(E w: friends.tailSet(v, false))
+					if( !g.existsEdge(v, w) ) g.addEdge(v, w);
+			});
+		}
+		finally{
+			if( gm!=null ) gm.setValidation(mode);
+		}
+	}
+	/*
+		MODIFIES: g
+		EFFECTS: se g è un GraphMap vuoto gli assegna direttamente le strutture
+				 costruite, con una sola verifica secondo la sua politica;
+				 altrimenti aggiunge a g i vertici e gli archi mancanti (una
+				 volta ciascuno, dal vertice minore), rimandando la verifica
+				 alla fine se g è un GraphMap.
+				 Se g==null lancia NullPointerException (unchecked).
+				 Con rejectUndeclared(), se un estremo non è stato aggiunto
+				 con addVertex() né è un vertice di g lancia
+				 IllegalArgumentException (unchecked) e g resta invariato.
+	*/
+}
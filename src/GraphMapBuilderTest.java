@@ -0,0 +1,152 @@
+/* GraphMapBuilderTest prova della costruzione in blocco dei grafi */
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphMapBuilder: raccoglie coppie casuali
+		in qualsiasi ordine, con duplicati, archi in entrambe le
+		direzioni e cappi, e confronta build() e fill() (in un GraphMap
+		vuoto, in un GraphMap ed in un GraphArray già popolati) con il
+		modello ReferenceGraph; verifica infine rejectUndeclared(),
+		che accetta gli estremi già vertici del grafo e rifiuta gli
+		altri lasciando il grafo invariato.
+		Uso: java GraphMapBuilderTest [grafi] [seme]
+*******************************************************************************/
+public class GraphMapBuilderTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 300;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			error = collect(rnd);
+			if( error==null ) error = undeclared(rnd);
+			if( error!=null ) error = "prova "+t+": "+error;
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* build() e fill() a partire dalle stesse coppie */
+	private static String collect(Random rnd)
+	{
+		int n = 1+rnd.nextInt(80);
+		GraphMapBuilder<Integer> b = new GraphMapBuilder<Integer>();
+		ReferenceGraph<Integer> expected = new ReferenceGraph<Integer>();
+		long pairs = 0,
+			 loops = 0;
+		for(int k=rnd.nextInt(n); k>0; k--){
+			int v = rnd.nextInt(n);
+			b.addVertex(v);
+			expected.addVertex(v);
+		}
+		for(int k=rnd.nextInt(4*n); k>0; k--){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(4)==0 ? v : rnd.nextInt(n);
+			int repeat = rnd.nextInt(5)==0 ? 2 : 1;
+			for(int r=0; r<repeat; r++){
+				if( rnd.nextBoolean() ) b.addEdge(v, w);
+				else b.addEdge(w, v);
+				expected.addVertex(v);
+				expected.addVertex(w);
+				expected.addEdge(v, w);
+				if( v==w ) loops++;
+				else pairs++;
+			}
+		}
+		if( b.numPairs()!=pairs || b.droppedLoops()!=loops )
+			return "numPairs()="+b.numPairs()+", droppedLoops()="+
+				   b.droppedLoops()+" invece di "+pairs+", "+loops;
+
+		String error = expected.compare(b.build());
+		if( error!=null ) return "build(): "+error;
+		error = expected.compare(b.build());
+		if( error!=null ) return "seconda build(): "+error;
+
+		GraphMap<Integer> empty = new GraphMap<Integer>();
+		b.fill(empty);
+		error = expected.compare(empty);
+		if( error!=null ) return "fill() in un grafo vuoto: "+error;
+
+		GraphMap<Integer> base = ReferenceGraph.random(rnd, n+5, n);
+		ReferenceGraph<Integer> merged = new ReferenceGraph<Integer>(base);
+		for(Integer v: expected.vertices()){
+			merged.addVertex(v);
+			for(Integer w: expected.adjacentVertex(v)){
+				merged.addVertex(w);
+				merged.addEdge(v, w);
+			}
+		}
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.FULL);
+		GraphArray<Integer> a = new GraphArray<Integer>(GraphMap.Validation.OFF);
+		for(Integer v: base.listVertex()){
+			g.addVertex(v);
+			a.addVertex(v);
+		}
+		for(Integer v: base.listVertex())
+			for(Integer w: base.adjacentVertex(v))
+				if( v<w ){
+					g.addEdge(v, w);
+					a.addEdge(v, w);
+				}
+		b.fill(g);
+		error = merged.compare(g);
+		if( error!=null ) return "fill() in un GraphMap: "+error;
+		if( g.getValidation()!=GraphMap.Validation.FULL )
+			return "fill() non ripristina la politica di verifica";
+		b.fill(a);
+		error = merged.compare(a);
+		return error==null ? null : "fill() in un GraphArray: "+error;
+	}
+
+
+	/* rejectUndeclared(): estremi dichiarati, già nel grafo o mancanti */
+	private static String undeclared(Random rnd)
+	{
+		int n = 2+rnd.nextInt(30);
+		GraphMap<Integer> g = ReferenceGraph.random(rnd, n, n);
+		ReferenceGraph<Integer> expected = new ReferenceGraph<Integer>(g);
+		GraphMapBuilder<Integer> b = new GraphMapBuilder<Integer>()
+											.rejectUndeclared();
+		List<Integer> declared = new ArrayList<Integer>();
+		for(int v=n; v<2*n; v++)
+			if( rnd.nextBoolean() ){
+				b.addVertex(v);
+				expected.addVertex(v);
+				declared.add(v);
+			}
+		declared.add(0);
+		for(int k=rnd.nextInt(3*n); k>0; k--){
+			int v = declared.get(rnd.nextInt(declared.size())),
+				w = rnd.nextInt(n);
+			b.addEdge(v, w);
+			expected.addEdge(v, w);
+		}
+		b.fill(g);
+		String error = expected.compare(g);
+		if( error!=null ) return "fill() con estremi nel grafo: "+error;
+		b.addEdge(0, 3*n);
+		try{
+			b.fill(g);
+			return "estremo non dichiarato accettato da fill()";
+		}
+		catch(IllegalArgumentException exc){
+			error = expected.compare(g);
+			if( error!=null ) return "fill() fallita modifica il grafo: "+error;
+		}
+		try{
+			b.build();
+			return "estremo non dichiarato accettato da build()";
+		}
+		catch(IllegalArgumentException exc){}
+		return null;
+	}
+}
@@ -0,0 +1,170 @@
+/* GraphMapSnapshotTest prova dell'isolamento delle istantanee di GraphMap */
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.lang.reflect.MalformedParametersException;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphMap.snapshot(): esegue modifiche
+		casuali su un GraphMap<Integer> tenendo aperte alcune istantanee,
+		ciascuna con il modello ReferenceGraph dello stato al momento in
+		cui è stata presa, e dopo ogni passo verifica che nessuna sia
+		cambiata; poi un thread lettore confronta le istantanee con i
+		modelli mentre il grafo continua ad essere modificato.
+		Uso: java GraphMapSnapshotTest [passi] [vertici] [seme]
+*******************************************************************************/
+public class GraphMapSnapshotTest
+{
+	public static void
+	main(String[] args) throws InterruptedException
+	{
+		int steps = args.length>0 ? Integer.parseInt(args[0]) : 20000,
+			n = args.length>1 ? Integer.parseInt(args[1]) : 30;
+		long seed = args.length>2 ? Long.parseLong(args[2]) : 42;
+
+		String error = readOnly();
+		if( error==null ) error = random(steps, n, new Random(seed));
+		if( error==null ) error = concurrent(steps, n, new Random(seed));
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* istantanea aperta con il modello del grafo nello stesso istante */
+	private static class Frozen
+	{
+		final GraphMap.Snapshot<Integer> snapshot;
+		final ReferenceGraph<Integer> state;
+		final long version;
+
+		Frozen(GraphMap<Integer> g)
+		{
+			state = new ReferenceGraph<Integer>(g);
+			version = g.modCount();
+			snapshot = g.snapshot();
+		}
+	}
+
+
+	/* le istantanee non si modificano e dopo close() non si leggono */
+	private static String readOnly()
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>();
+		g.addVertex(1);
+		GraphMap.Snapshot<Integer> s = g.snapshot();
+		List<Runnable> writes = List.of(
+			()->s.addVertex(2), ()->s.removeVertex(1), ()->s.addEdge(1, 2),
+			()->s.removeEdge(1, 2), ()->s.isolateVertex(1),
+			()->s.removeAllVertex(), ()->s.begin(), ()->s.snapshot()
+		);
+		for(Runnable w: writes)
+			try{
+				w.run();
+				return "istantanea modificata";
+			}
+			catch(UnsupportedOperationException exc){}
+		s.close();
+		s.close();
+		if( s.isOpen() ) return "istantanea aperta dopo close()";
+		List<Runnable> reads = List.of(
+			()->s.numVertex(), ()->s.numEdge(), ()->s.existsVertex(1),
+			()->s.adjacentVertex(1), ()->s.listVertex(), ()->s.iterator()
+		);
+		for(Runnable r: reads)
+			try{
+				r.run();
+				return "istantanea letta dopo close()";
+			}
+			catch(IllegalStateException exc){}
+		return null;
+	}
+
+
+	/* modifiche casuali con istantanee aperte e chiuse a caso */
+	private static String random(int steps, int n, Random rnd)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		List<Frozen> open = new ArrayList<Frozen>();
+
+		for(int s=0; s<steps; s++){
+			if( rnd.nextInt(20)==0 && open.size()<5 ) open.add(new Frozen(g));
+			if( rnd.nextInt(25)==0 && !open.isEmpty() )
+				open.remove(rnd.nextInt(open.size())).snapshot.close();
+			modify(g, rnd.nextInt(n), rnd.nextInt(n), rnd);
+
+			for(Frozen f: open){
+				String error = f.state.compare(f.snapshot);
+				if( error==null && f.snapshot.version()!=f.version )
+					error = "version() "+f.snapshot.version()+
+							" invece di "+f.version;
+				if( error!=null ) return "passo "+s+": istantanea "+error;
+			}
+		}
+		for(Frozen f: open) f.snapshot.close();
+		return null;
+	}
+
+
+	/* un lettore confronta le istantanee mentre il grafo cambia */
+	private static String concurrent(int steps, int n, Random rnd)
+		throws InterruptedException
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		AtomicReference<String> error = new AtomicReference<String>();
+		AtomicReference<Frozen> current = new AtomicReference<Frozen>();
+		boolean[] done = new boolean[1];
+
+		Thread reader = new Thread(()->{
+			for(;;){
+				Frozen f = current.getAndSet(null);
+				if( f==null ){
+					synchronized(done){
+						if( done[0] ) return;
+					}
+					Thread.onSpinWait();
+					continue;
+				}
+				String e = f.state.compare(f.snapshot);
+				if( e!=null ) error.compareAndSet(null, e);
+				f.snapshot.close();
+			}
+		});
+		reader.start();
+
+		for(int s=0; s<steps && error.get()==null; s++){
+			if( s%50==0 ){
+				Frozen f = current.getAndSet(new Frozen(g));
+				if( f!=null ) f.snapshot.close();
+			}
+			modify(g, rnd.nextInt(n), rnd.nextInt(n), rnd);
+		}
+		synchronized(done){
+			done[0] = true;
+		}
+		reader.join();
+		Frozen f = current.getAndSet(null);
+		if( f!=null ) f.snapshot.close();
+		return error.get()==null ? null : "lettore concorrente: "+error.get();
+	}
+
+
+	/* modifica casuale, le eccezioni attese sono ignorate */
+	private static void modify(GraphMap<Integer> g, int v, int w, Random rnd)
+	{
+		try{
+			switch( rnd.nextInt(20) ){
+				case 0: g.removeVertex(v); break;
+				case 1: g.isolateVertex(v); break;
+				case 2: if( rnd.nextInt(20)==0 ) g.removeAllVertex(); break;
+				case 3: g.begin().addVertex(v).addEdge(v, w).commit(); break;
+				case 4: case 5: case 6: g.addVertex(v); break;
+				case 7: case 8: case 9: case 10: g.removeEdge(v, w); break;
+				default: g.addEdge(v, w);
+			}
+		}
+		catch(IllegalArgumentException | MalformedParametersException exc){}
+	}
+}
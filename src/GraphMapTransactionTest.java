@@ -0,0 +1,248 @@
+/* GraphMapTransactionTest prova delle transazioni e degli osservatori */
+
+import java.util.Set;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.Random;
+import java.lang.reflect.MalformedParametersException;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphMap.Transaction e di GraphListener:
+		esegue transazioni casuali su un GraphMap<Integer> e le
+		confronta con il modello ReferenceGraph. Una transazione
+		riuscita deve produrre lo stato del modello e notificare, nell'ordine
+		delle operazioni e poi di registrazione, gli stessi eventi a tutti gli
+		osservatori; una fallita deve rilanciare l'eccezione della prima
+		operazione errata, lasciare il grafo invariato e non notificare
+		nulla.
+		Uso: java GraphMapTransactionTest [transazioni] [vertici] [seme]
+*******************************************************************************/
+public class GraphMapTransactionTest
+{
+	public static void
+	main(String[] args)
+	{
+		int count = args.length>0 ? Integer.parseInt(args[0]) : 20000,
+			n = args.length>1 ? Integer.parseInt(args[1]) : 12;
+		long seed = args.length>2 ? Long.parseLong(args[2]) : 42;
+
+		String error = concluded();
+		if( error==null ) error = random(count, n, new Random(seed));
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* osservatore che registra gli eventi, preceduti dal nome, in un
+	   registro comune */
+	private static class Recorder implements GraphListener<Integer>
+	{
+		final String name;
+		final List<String> log;
+
+		Recorder(String name, List<String> log)
+		{
+			this.name = name;
+			this.log = log;
+		}
+
+		public void vertexAdded(Integer v)
+		{
+			log.add(name+" +"+v);
+		}
+
+		public void vertexRemoved(Integer v, Set<Integer> neighbours)
+		{
+			log.add(name+" -"+v+" "+neighbours);
+		}
+
+		public void vertexIsolated(Integer v, Set<Integer> neighbours)
+		{
+			log.add(name+" ~"+v+" "+neighbours);
+		}
+
+		public void edgeAdded(Integer v, Integer w)
+		{
+			log.add(name+" +<"+v+", "+w+">");
+		}
+
+		public void edgeRemoved(Integer v, Integer w)
+		{
+			log.add(name+" -<"+v+", "+w+">");
+		}
+
+		public void cleared()
+		{
+			log.add(name+" clear");
+		}
+	}
+
+
+	/* commit() ed abort() concludono la transazione */
+	private static String concluded()
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>();
+		List<String> log = new ArrayList<String>();
+		g.addListener(new Recorder("a", log));
+
+		GraphMap<Integer>.Transaction t = g.begin().addVertex(1).addVertex(2);
+		t.abort();
+		if( t.isOpen() || g.numVertex()!=0 || !log.isEmpty() )
+			return "abort() ha modificato il grafo";
+		t = g.begin().addVertex(1);
+		t.commit();
+		try{
+			t.commit();
+			return "secondo commit() accettato";
+		}
+		catch(IllegalStateException exc){}
+		try{
+			t.addVertex(3);
+			return "operazione accodata dopo commit()";
+		}
+		catch(IllegalStateException exc){}
+		return null;
+	}
+
+
+	/* transazioni casuali confrontate con il modello */
+	private static String random(int count, int n, Random rnd)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>();
+		ReferenceGraph<Integer> model = new ReferenceGraph<Integer>();
+		List<String> log = new ArrayList<String>();
+		Recorder a = new Recorder("a", log),
+				 b = new Recorder("b", log);
+		g.addListener(a);
+		g.addListener(b);
+
+		/* un osservatore che si rimuove alla prima notifica la riceve
+		   comunque, gli altri continuano a riceverle tutte */
+		List<String> once = new ArrayList<String>();
+		g.addListener(new GraphListener<Integer>(){
+			public void vertexAdded(Integer v)
+			{
+				once.add("+"+v);
+				g.removeListener(this);
+			}
+		});
+		g.addVertex(0);
+		model.addVertex(0);
+		if( !once.equals(List.of("+0")) || !log.equals(List.of("a +0", "b +0")) )
+			return "rimozione durante la notifica: "+once+", "+log;
+
+		for(int t=0; t<count; t++){
+			log.clear();
+			if( rnd.nextInt(50)==0 ){
+				String error = direct(g, model, log, rnd.nextInt(n), rnd);
+				if( error!=null ) return "modifica diretta "+t+": "+error;
+				continue;
+			}
+
+			GraphMap<Integer>.Transaction tx = g.begin();
+			ReferenceGraph<Integer> next = model.copy();
+			List<String> events = new ArrayList<String>();
+			String expected = null;
+			for(int k=rnd.nextInt(6); k>=0; k--){
+				int op = rnd.nextInt(4),
+					v = rnd.nextInt(n),
+					w = rnd.nextInt(n);
+				switch( op ){
+					case 0: tx.addVertex(v); break;
+					case 1: tx.removeVertex(v); break;
+					case 2: tx.addEdge(v, w); break;
+					default: tx.removeEdge(v, w);
+				}
+				if( expected==null ) expected = simulate(next, events, op, v, w);
+			}
+
+			long version = g.modCount();
+			String got = "";
+			try{
+				tx.commit();
+			}
+			catch(IllegalArgumentException | MalformedParametersException exc){
+				got = exc.getClass().getSimpleName();
+			}
+			if( expected==null ) expected = "";
+			if( !got.equals(expected) )
+				return "transazione "+t+": "+(got.isEmpty() ? "nessuna" : got)+
+					   " invece di "+(expected.isEmpty() ? "nessuna" : expected);
+			if( tx.isOpen() ) return "transazione "+t+" ancora aperta";
+
+			List<String> fired = new ArrayList<String>();
+			if( expected.isEmpty() ){
+				model = next;
+				for(String e: events){
+					fired.add("a "+e);
+					fired.add("b "+e);
+				}
+			}
+			if( !log.equals(fired) )
+				return "transazione "+t+": eventi "+log+" invece di "+fired;
+			String error = model.compare(g);
+			if( error!=null ) return "transazione "+t+": "+error;
+			if( tx.size()>0 ) return "transazione "+t+": operazioni non scartate";
+			if( !expected.isEmpty() && g.modCount()==version )
+				return "transazione "+t+": annullamento senza nuova versione";
+		}
+		return null;
+	}
+
+
+	/* applica op al modello come GraphMap.Transaction, accodando l'evento;
+	   restituisce l'eccezione attesa, null se nessuna */
+	private static String simulate(ReferenceGraph<Integer> m,
+								   List<String> events, int op, int v, int w)
+	{
+		String illegal = IllegalArgumentException.class.getSimpleName(),
+			   malformed = MalformedParametersException.class.getSimpleName();
+		switch( op ){
+			case 0:
+				if( !m.addVertex(v) ) return malformed;
+				events.add("+"+v);
+				return null;
+			case 1:{
+				TreeSet<Integer> friends = m.removeVertex(v);
+				if( friends==null ) return illegal;
+				events.add("-"+v+" "+friends);
+				return null;
+			}
+			case 2:
+				if( !m.existsVertex(v) || !m.existsVertex(w) ) return illegal;
+				if( !m.addEdge(v, w) ) return malformed;
+				events.add("+<"+v+", "+w+">");
+				return null;
+			default:
+				if( !m.existsVertex(v) || !m.existsVertex(w) ) return illegal;
+				if( !m.removeEdge(v, w) ) return malformed;
+				events.add("-<"+v+", "+w+">");
+				return null;
+		}
+	}
+
+
+	/* isolateVertex() e removeAllVertex() fuori da una transazione */
+	private static String direct(GraphMap<Integer> g,
+								 ReferenceGraph<Integer> model,
+								 List<String> log, int v, Random rnd)
+	{
+		List<String> fired = new ArrayList<String>();
+		if( rnd.nextInt(10)==0 ){
+			g.removeAllVertex();
+			model.clear();
+			fired.add("a clear");
+			fired.add("b clear");
+		}
+		else if( model.existsVertex(v) ){
+			String e = "~"+v+" "+model.isolateVertex(v);
+			g.isolateVertex(v);
+			fired.add("a "+e);
+			fired.add("b "+e);
+		}
+		if( !log.equals(fired) ) return "eventi "+log+" invece di "+fired;
+		return model.compare(g);
+	}
+}
@@ -0,0 +1,347 @@
+/* GraphTriangles conteggio dei triangoli e coefficienti di clustering */
+
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+
+/*******************************************************************************
+		Classe di funzioni statiche per il conteggio dei triangoli di un
+		GraphCSR<E> con l'algoritmo forward: ogni arco è orientato dal
+		vertice di grado minore a quello di grado maggiore e ogni
+		triangolo è trovato una sola volta intersecando per fusione gli
+		adiacenti uscenti ordinati dei suoi due vertici di rango minore.
+*******************************************************************************/
+public class GraphTriangles
+{
+	/***************************************************************************
+			Risultato del conteggio: triangoli per vertice e totali,
+			coefficienti di clustering locali e globale.
+	***************************************************************************/
+	public static final class Result<E extends Comparable<E>>
+	{
+		private final GraphCSR<E> g;
+		private final long[] triangles;
+		private final long total, wedges;
+
+		Result(GraphCSR<E> g, long[] triangles, long total)
+		{
+			this.g = g;
+			this.triangles = triangles;
+			this.total = total;
+			long w = 0;
+			for(int i=0; i<triangles.length; i++) w += pairs(degree(i));
+			this.wedges = w;
+		}
+
+		private int degree(int i)
+		{
+			return g.off[i+1]-g.off[i];
+		}
+
+		private static long pairs(long d)
+		{
+			return d*(d-1)/2;
+		}
+
+		private int id(E v)
+		{
+			int i = g.id(v);
+			if( i<0 ) throw new IllegalArgumentException(v+" non e' un vertice");
+			return i;
+		}
+
+		/* numero di triangoli del grafo */
+		public long triangles()
+		{
+			return total;
+		}
+
+		/* numero di triangoli che contengono v */
+		public long triangles(E v)
+		{
+			return triangles[id(v)];
+		}
+
+		/* coefficiente di clustering locale di v: frazione delle coppie
+		   di adiacenti di v che sono a loro volta adiacenti, 0 se v ha
+		   meno di due adiacenti */
+		public double localClustering(E v)
+		{
+			int i = id(v);
+			long p = pairs(degree(i));
+			return p==0 ? 0 : (double)triangles[i]/p;
+		}
+
+		/* coefficiente di clustering globale (transitività): triangoli
+		   per tre diviso cammini di lunghezza due */
+		public double globalClustering()
+		{
+			return wedges==0 ? 0 : 3.0*total/wedges;
+		}
+
+		/* media dei coefficienti di clustering locali */
+		public double averageClustering()
+		{
+			int n = triangles.length;
+			if( n==0 ) return 0;
+			double sum = 0;
+			for(int i=0; i<n; i++){
+				long p = pairs(degree(i));
+				if( p>0 ) sum += (double)triangles[i]/p;
+			}
+			return sum/n;
+		}
+
+		/* numero di triangoli di ogni vertice */
+		public SortedMap<E, Long> triangleCounts()
+		{
+			SortedMap<E, Long> counts = new TreeMap<E, Long>();
+			for(int i=0; i<triangles.length; i++)
+				counts.put(g.vertex(i), triangles[i]);
+			return counts;
+		}
+
+		/* coefficiente di clustering locale di ogni vertice */
+		public SortedMap<E, Double> localClusterings()
+		{
+			SortedMap<E, Double> c = new TreeMap<E, Double>();
+			for(int i=0; i<triangles.length; i++){
+				long p = pairs(degree(i));
+				c.put(g.vertex(i), p==0 ? 0 : (double)triangles[i]/p);
+			}
+			return c;
+		}
+
+		public String toString()
+		{
+			return "triangoli = "+total+
+				   ", clustering globale = "+globalClustering()+
+				   ", clustering medio = "+averageClustering();
+		}
+	}
+	/*
+		EFFECTS: triangles(v), localClustering(v) se v==null lanciano
+				 NullPointerException (unchecked), se v non è un vertice
+				 IllegalArgumentException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Grafo orientato per rango: i vertici sono rinumerati per
+			grado crescente (a parità di grado per id) e ogni vertice
+			tiene, ordinati, solo gli adiacenti di rango maggiore.
+	***************************************************************************/
+	private static final class Forward
+	{
+		final int[] rank, off, adj;
+
+		Forward(GraphCSR<?> g, ForkJoinPool pool, int grain)
+		{
+			int n = g.numVertex(),
+				max = 0;
+			for(int i=0; i<n; i++) max = Math.max(max, g.off[i+1]-g.off[i]);
+
+			/* ordinamento per conteggio dei gradi, stabile sugli id */
+			int[] start = new int[max+2];
+			for(int i=0; i<n; i++) start[g.off[i+1]-g.off[i]+1]++;
+			for(int d=0; d<=max; d++) start[d+1] += start[d];
+			rank = new int[n];
+			for(int i=0; i<n; i++) rank[i] = start[g.off[i+1]-g.off[i]]++;
+
+			off = new int[n+1];
+			for(int i=0; i<n; i++){
+				int out = 0;
+				for(int k=g.off[i]; k<g.off[i+1]; k++)
+					if( rank[g.adj[k]]>rank[i] ) out++;
+				off[rank[i]+1] = out;
+			}
+			for(int r=0; r<n; r++) off[r+1] += off[r];
+
+			adj = new int[off[n]];
+			if( n>0 ) pool.invoke(new Orient(g, this, 0, n, grain));
+		}
+	}
+	/*
+		EFFECTS: ogni vertice ha al più O(sqrt(E)) adiacenti uscenti, il che
+				 limita il costo totale delle intersezioni a O(E sqrt(E));
+				 la copia ed il riordino degli adiacenti uscenti avvengono
+				 sui thread di pool.
+	*/
+
+
+	/***************************************************************************
+			Sottoproblema della costruzione di Forward: copia ed ordina
+			gli adiacenti uscenti dei vertici (per id) di [from,to).
+	***************************************************************************/
+	private static class Orient extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final GraphCSR<?> g;
+		private final Forward f;
+		private final int from, to, grain;
+
+		Orient(GraphCSR<?> g, Forward f, int from, int to, int grain)
+		{
+			this.g = g;
+			this.f = f;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		protected void compute()
+		{
+			if( to-from>grain ){
+				int mid = (from+to)>>>1;
+				invokeAll(
+					new Orient(g, f, from, mid, grain),
+					new Orient(g, f, mid, to, grain)
+				);
+				return;
+			}
+			int[] rank = f.rank,
+				  off = f.off,
+				  adj = f.adj;
+			for(int i=from; i<to; i++){
+				int r = rank[i],
+					k = off[r];
+				for(int a=g.off[i]; a<g.off[i+1]; a++)
+					if( rank[g.adj[a]]>r ) adj[k++] = rank[g.adj[a]];
+				Arrays.sort(adj, off[r], off[r+1]);
+			}
+		}
+	}
+
+
+	/***************************************************************************
+			Sottoproblema del calcolo parallelo: i triangoli il cui
+			vertice di rango minore appartiene a [from,to), suddivisi
+			ricorsivamente fino a grain; il risultato sono i triangoli
+			dei ranghi [from,n), in posizione rango-from.
+	***************************************************************************/
+	private static class Ranks extends RecursiveTask<long[]>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Forward f;
+		private final int from, to, grain;
+
+		Ranks(Forward f, int from, int to, int grain)
+		{
+			this.f = f;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		protected long[] compute()
+		{
+			if( to-from>grain ){
+				int mid = (from+to)>>>1;
+				Ranks low = new Ranks(f, from, mid, grain);
+				low.fork();
+				long[] high = new Ranks(f, mid, to, grain).compute(),
+					   count = low.join();
+				for(int k=0; k<high.length; k++) count[k+mid-from] += high[k];
+				return count;
+			}
+			int[] off = f.off,
+				  adj = f.adj;
+			long[] count = new long[off.length-1-from];
+			for(int r=from; r<to; r++){
+				long local = 0;
+				for(int k=off[r]; k<off[r+1]; k++){
+					int s = adj[k];
+					for(int a=k+1, b=off[s]; a<off[r+1] && b<off[s+1]; ){
+						if( adj[a]<adj[b] ) a++;
+						else if( adj[a]>adj[b] ) b++;
+						else{
+							local++;
+							count[s-from]++;
+							count[adj[a]-from]++;
+							a++;
+							b++;
+						}
+					}
+				}
+				count[r-from] += local;
+			}
+			return count;
+		}
+	}
+	/*
+		EFFECTS: per ogni arco uscente <r,s> interseca gli adiacenti uscenti
+				 di r successivi ad s con quelli di s: ogni elemento comune
+				 w chiude il triangolo r<s<w (per rango), contato una sola
+				 volta e attribuito ai suoi tre vertici.
+				 Ogni foglia conta in un proprio long[], senza contesa
+				 sui vertici di grado alto; i parziali sono sommati a
+				 coppie risalendo la ricorsione.
+	*/
+
+
+	/***************************************************************************
+			Conta i triangoli di g usando i thread del pool passato.
+	***************************************************************************/
+	public static <E extends Comparable<E>> Result<E>
+	run(GraphCSR<E> g, ForkJoinPool pool)
+	{
+		if( g==null || pool==null )
+			throw new NullPointerException("passato oggetto nullo");
+		int n = g.numVertex(),
+			grain = Math.max(1, n/(8*pool.getParallelism()));
+		Forward f = new Forward(g, pool, grain);
+		long[] count = n>0 ? pool.invoke(new Ranks(f, 0, n, grain)) : null;
+
+		long[] triangles = new long[n];
+		long sum = 0;
+		for(int i=0; i<n; i++){
+			triangles[i] = count[f.rank[i]];
+			sum += triangles[i];
+		}
+		return new Result<E>(g, triangles, sum/3);
+	}
+	/*
+		EFFECTS: restituisce i triangoli per vertice e totali di g in tempo
+				 O(E sqrt(E)) complessivo, distribuito sui thread di pool
+				 insieme all'orientamento degli archi; sommare i parziali
+				 delle foglie costa O(V) per foglia, con O(parallelismo)
+				 foglie.
+				 Se g==null || pool==null lancia NullPointerException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Conta i triangoli di g sul pool comune.
+	***************************************************************************/
+	public static <E extends Comparable<E>> Result<E> run(GraphCSR<E> g)
+	{
+		return run(g, ForkJoinPool.commonPool());
+	}
+
+
+	/***************************************************************************
+			Conta i triangoli di g con un pool temporaneo di
+			parallelism thread.
+	***************************************************************************/
+	public static <E extends Comparable<E>> Result<E>
+	run(GraphCSR<E> g, int parallelism)
+	{
+		if( parallelism<1 )
+			throw new IllegalArgumentException(parallelism+" thread");
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try{ return run(g, pool); }
+		finally{ pool.shutdown(); }
+	}
+	/*
+		EFFECTS: come run(g, pool) su un nuovo ForkJoinPool di parallelism
+				 thread, chiuso al termine del calcolo.
+				 Se parallelism<1 lancia IllegalArgumentException (unchecked).
+	*/
+}
@@ -0,0 +1,96 @@
+/* GraphTrianglesTest confronto di GraphTriangles con il modello */
+
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova di GraphTriangles: su grafi casuali di
+		densità variabile, con alcuni vertici di grado elevato, confronta
+		triangoli per vertice e totali e coefficienti di clustering con
+		il conteggio diretto del modello ReferenceGraph, per diversi
+		numeri di thread.
+		Uso: java GraphTrianglesTest [grafi] [seme]
+*******************************************************************************/
+public class GraphTrianglesTest
+{
+	public static void
+	main(String[] args)
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 100;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+
+		String error = null;
+		for(int t=0; t<graphs && error==null; t++){
+			GraphMap<Integer> g = random(rnd);
+			ReferenceGraph<Integer> ref = new ReferenceGraph<Integer>(g);
+			for(int threads=1; threads<=4 && error==null; threads++){
+				error = check(ref, GraphTriangles.run(g.freeze(), threads));
+				if( error!=null ) error = "grafo "+t+", "+threads+" thread: "+error;
+			}
+		}
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* grafo casuale con un vertice collegato a circa metà degli altri */
+	private static GraphMap<Integer> random(Random rnd)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		int n = rnd.nextInt(80);
+		for(int v=0; v<n; v++) g.addVertex(v);
+		if( n<2 ) return g;
+		for(int k=rnd.nextInt(n*n/3+1); k>0; k--){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(n);
+			if( v!=w && !g.existsEdge(v, w) ) g.addEdge(v, w);
+		}
+		for(int w=1; w<n; w++)
+			if( rnd.nextBoolean() && !g.existsEdge(0, w) ) g.addEdge(0, w);
+		return g;
+	}
+
+
+	/* confronta il risultato con il conteggio del modello */
+	private static String check(ReferenceGraph<Integer> ref,
+								GraphTriangles.Result<Integer> r)
+	{
+		long total = 0,
+			 wedges = 0;
+		double sum = 0;
+		for(Integer v: ref.vertices()){
+			long d = ref.adjacentVertex(v).size(),
+				 t = ref.triangles(v),
+				 pairs = d*(d-1)/2;
+			double local = pairs==0 ? 0 : (double)t/pairs;
+
+			if( r.triangles(v)!=t )
+				return "triangles("+v+")="+r.triangles(v)+" invece di "+t;
+			if( r.triangleCounts().get(v)!=t )
+				return "triangleCounts() errato per "+v;
+			if( !close(r.localClustering(v), local) ||
+				!close(r.localClusterings().get(v), local) )
+				return "localClustering("+v+")="+r.localClustering(v)+
+					   " invece di "+local;
+			total += t;
+			wedges += pairs;
+			sum += local;
+		}
+		if( r.triangles()!=total/3 )
+			return "triangles()="+r.triangles()+" invece di "+total/3;
+		double global = wedges==0 ? 0 : (double)total/wedges,
+			   average = ref.numVertex()==0 ? 0 : sum/ref.numVertex();
+		if( !close(r.globalClustering(), global) )
+			return "globalClustering()="+r.globalClustering()+" invece di "+global;
+		if( !close(r.averageClustering(), average) )
+			return "averageClustering()="+r.averageClustering()+
+				   " invece di "+average;
+		return null;
+	}
+
+	private static boolean close(double a, double b)
+	{
+		return Math.abs(a-b)<=1e-12;
+	}
+}
@@ -6,12 +6,30 @@ import java.util.TreeSet;
 import java.util.LinkedHashSet;
 import java.util.NavigableSet;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 import java.io.File;
-import java.io.FileReader;
+import java.io.Reader;
+import java.io.Writer;
 import java.io.FileWriter;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.BufferedOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.Channels;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
 import java.awt.Desktop;
 
 
@@ -20,40 +38,104 @@ import java.awt.Desktop;
 *******************************************************************************/
 public class Graphs
 {
+	/***************************************************************************
+			Classe privata di lettori a flusso del formato testuale:
+			ogni riga è "vertice-adiacente:adiacente:...", con separatori
+			'-', ':' e spazi; i token sono estratti direttamente dal
+			buffer di caratteri, senza espressioni regolari.
+	***************************************************************************/
+	private static class Tokenizer
+	{
+		private final Reader in;
+		private final char[] buf = new char[1<<16];
+		private final StringBuilder sb = new StringBuilder();
+		private int pos = 0,
+					lim = 0;
+		private boolean eof = false;
+
+		Tokenizer(Reader in)
+		{
+			this.in = in;
+		}
+
+		private static boolean isDelim(char c)
+		{
+			return c=='-' || c==':' || c==' ' || c=='\t' ||
+				   c=='\r' || c=='\f' || c==0x0B;
+		}
+
+		private boolean fill() throws IOException
+		{
+			int n = in.read(buf, 0, buf.length);
+			pos = 0;
+			lim = Math.max(n, 0);
+			return n>0;
+		}
+
+		boolean eof()
+		{
+			return eof;
+		}
+
+		/* restituisce il prossimo token della riga corrente,
+		   null a fine riga o a fine file */
+		String token() throws IOException
+		{
+			for(;;){
+				if( pos==lim && !fill() ){
+					eof = true;
+					return null;
+				}
+				char c = buf[pos];
+				if( c=='\n' ){
+					pos++;
+					return null;
+				}
+				if( !isDelim(c) ) break;
+				pos++;
+			}
+			int start = pos;
+			sb.setLength(0);
+			for(;;){
+				if( pos==lim ){
+					sb.append(buf, start, pos-start);
+					start = 0;
+					if( !fill() ){
+						eof = true;
+						return sb.toString();
+					}
+				}
+				char c = buf[pos];
+				if( c=='\n' || isDelim(c) ) break;
+				pos++;
+			}
+			if( sb.length()==0 ) return new String(buf, start, pos-start);
+			return sb.append(buf, start, pos-start).toString();
+		}
+	}
+
+
 	/***************************************************************************
 					Legge un file di testo e
-					riempie le due collezioni passategli:
-					l'insieme ordinato dei verici e
-					la lista ordinata degli insiemi degli adiacenti 
-	***************************************************************************/
-	private static void fillSets(FileReader f,
-								LinkedHashSet<String> vertexes,
-								ArrayList<TreeSet<String>> adjoints)
-								throws IOException
-	{
-		BufferedReader br = new BufferedReader(f);
-		String inputLine;
-
-		while( (inputLine=br.readLine())!=null ){
-			if( inputLine.isEmpty() ) continue;
-			String[] auxArray = inputLine.split("-|:|\\s");
-			switch(auxArray.length){
-				case 0:
-					continue;
-				case 1:
-					vertexes.add(auxArray[0]);
-					adjoints.add(new TreeSet<String>());
-					break;
-				default:
-					vertexes.add(auxArray[0]);
-					adjoints.add(
-						new TreeSet<String>(Arrays.asList(
-							Arrays.copyOfRange(auxArray, 1, auxArray.length))
-						)
-					);
+					raccoglie in un GraphMapBuilder<String>
+					le coppie <vertice, adiacente> di ogni riga
+	***************************************************************************/
+	private static GraphMapBuilder<String> collect(Reader f) throws IOException
+	{
+		Tokenizer t = new Tokenizer(f);
+		GraphMapBuilder<String> b = new GraphMapBuilder<String>()
+											.rejectUndeclared();
+
+		try{
+			while( !t.eof() ){
+				String vrt = t.token();
+				if( vrt==null ) continue;
+				b.addVertex(vrt);
+				for(String w; (w=t.token())!=null; ) b.addEdge(vrt, w);
 			}
 		}
-		br.close();
+		finally{ f.close(); }
+		return b;
 	}
 
 
@@ -61,66 +143,610 @@ public class Graphs
 						Legge un file di testo e
 						riempie il grafo vuoto passatogli
 	***************************************************************************/
-	public static void readAndFill(GraphMap<String> g, FileReader f)
+	public static void readAndFill(Graph<String> g, Reader f)
+									throws IOException
+	{
+		if( g==null ) throw new NullPointerException("passato oggetto nullo");
+		Graphs.collect(f).fill(g);
+	}
+	/*
+		EFFECTS: scorre f token per token con un Tokenizer e raccoglie in un
+				 GraphMapBuilder ogni vertice ed ogni coppia
+				 <vertice, adiacente>, poi li aggiunge a g in un'unica
+				 passata: gli archi duplicati vengono inseriti una sola volta,
+				 in entrambe le direzioni, ed i cappi scartati; g può essere
+				 una qualsiasi implementazione di Graph<String> (GraphMap,
+				 GraphArray, ...) ed un GraphMap vuoto viene verificato
+				 una sola volta.
+				 I token vuoti (separatori consecutivi) vengono ignorati.
+				 Se g==null lancia NullPointerException (unchecked).
+				 Se un adiacente non compare come vertice (primo token di una
+				 riga) né è già un vertice di g lancia
+				 IllegalArgumentException (unchecked) e g resta invariato.
+				 In caso sopraggiunga un errore di I/O, rilancia una IOException
+				 (checked) al chiamante.
+	*/
+
+
+	/***************************************************************************
+			Resoconto di un caricamento parallelo: byte letti, blocchi
+			e thread usati, tempi di analisi e di inserimento.
+	***************************************************************************/
+	public static final class LoadReport
+	{
+		private final long bytes;
+		private final int chunks, threads;
+		private final long parseNanos, mergeNanos;
+
+		LoadReport(long bytes, int chunks, int threads,
+				   long parseNanos, long mergeNanos)
+		{
+			this.bytes = bytes;
+			this.chunks = chunks;
+			this.threads = threads;
+			this.parseNanos = parseNanos;
+			this.mergeNanos = mergeNanos;
+		}
+
+		public long bytes()
+		{
+			return bytes;
+		}
+
+		public int chunks()
+		{
+			return chunks;
+		}
+
+		public int threads()
+		{
+			return threads;
+		}
+
+		public long parseMillis()
+		{
+			return parseNanos/1000000;
+		}
+
+		public long mergeMillis()
+		{
+			return mergeNanos/1000000;
+		}
+
+		/* MB analizzati al secondo dai thread di lettura */
+		public double parseThroughput()
+		{
+			return parseNanos==0 ? 0 : bytes/1e6/(parseNanos/1e9);
+		}
+
+		/* MB caricati al secondo, inserimento nel grafo compreso */
+		public double throughput()
+		{
+			long tot = parseNanos+mergeNanos;
+			return tot==0 ? 0 : bytes/1e6/(tot/1e9);
+		}
+
+		public String toString()
+		{
+			return String.format(
+				"%d byte in %d blocchi con %d thread: analisi %d ms "+
+				"(%.1f MB/s), inserimento %d ms, totale %.1f MB/s",
+				bytes, chunks, threads, parseMillis(), parseThroughput(),
+				mergeMillis(), throughput()
+			);
+		}
+	}
+
+
+	/***************************************************************************
+			Restituisce le posizioni di inizio dei blocchi di file,
+			spostate dopo il primo '\n' perché ogni blocco contenga
+			solo righe intere; l'ultimo elemento è size.
+	***************************************************************************/
+	private static long[] chunkBounds(FileChannel ch, long size, int chunks)
 									throws IOException
 	{
-		LinkedHashSet<String> vertexes = new LinkedHashSet<String>();
-		ArrayList<TreeSet<String>> adjoints = new ArrayList<TreeSet<String>>();
+		long[] bound = new long[chunks+1];
+		ByteBuffer buf = ByteBuffer.allocate(4096);
+		bound[chunks] = size;
+		for(int c=1; c<chunks; c++){
+			long pos = Math.max(bound[c-1], size/chunks*c);
+			search:
+			while( pos<size ){
+				buf.clear();
+				int n = ch.read(buf, pos);
+				if( n<=0 ) break;
+				for(int k=0; k<n; k++)
+					if( buf.get(k)=='\n' ){
+						pos += k+1;
+						break search;
+					}
+				pos += n;
+			}
+			bound[c] = Math.min(pos, size);
+		}
+		return bound;
+	}
+
+
+	/***************************************************************************
+			Analizza un blocco di file mappato in memoria e restituisce
+			le sue righe non vuote come array di token (vertice, adiacenti).
+	***************************************************************************/
+	private static ArrayList<String[]> parseChunk(MappedByteBuffer b)
+	{
+		ArrayList<String[]> lines = new ArrayList<String[]>();
+		ArrayList<String> line = new ArrayList<String>();
+		byte[] tok = new byte[256];
+		int len = 0,
+			lim = b.limit();
+		for(int k=0; k<=lim; k++){
+			byte c = k<lim ? b.get(k) : (byte)'\n';
+			boolean nl = c=='\n';
+			if( nl || c=='-' || c==':' || c==' ' || c=='\t' ||
+				c=='\r' || c=='\f' || c==0x0B ){
+				if( len>0 ){
+					line.add(new String(tok, 0, len, StandardCharsets.UTF_8));
+					len = 0;
+				}
+				if( nl && !line.isEmpty() ){
+					lines.add(line.toArray(new String[line.size()]));
+					line.clear();
+				}
+			}
+			else{
+				if( len==tok.length ) tok = Arrays.copyOf(tok, 2*len);
+				tok[len++] = c;
+			}
+		}
+		return lines;
+	}
+
+
+	/***************************************************************************
+			Carica un file di testo nel grafo passatogli mappandolo in
+			memoria e analizzandone i blocchi con threads thread.
+	***************************************************************************/
+	public static LoadReport loadParallel(Graph<String> g, File file,
+										  int threads) throws IOException
+	{
+		if( g==null || file==null )
+			throw new NullPointerException("passato oggetto nullo");
+		if( threads<1 ) throw new IllegalArgumentException(threads+" thread");
+
+		try( FileChannel ch = FileChannel.open(file.toPath(),
+											   StandardOpenOption.READ) ){
+			long size = ch.size(),
+				 start = System.nanoTime();
+			int chunks = (int)Math.max(1, Math.min(
+				Math.max(4L*threads, size/(256L<<20)), (size>>>12)+1
+			));
+			long[] bound = chunkBounds(ch, size, chunks);
+
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			List<Future<ArrayList<String[]>>> parts =
+				new ArrayList<Future<ArrayList<String[]>>>(chunks);
+			try{
+				for(int c=0; c<chunks; c++){
+					MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY,
+												bound[c], bound[c+1]-bound[c]);
+					parts.add(pool.submit(()->parseChunk(b)));
+				}
+				ArrayList<ArrayList<String[]>> parsed =
+					new ArrayList<ArrayList<String[]>>(chunks);
+				for(Future<ArrayList<String[]>> f: parts) parsed.add(f.get());
+				long middle = System.nanoTime();
+
+				GraphMapBuilder<String> builder = new GraphMapBuilder<String>()
+													.rejectUndeclared();
+				for(ArrayList<String[]> part: parsed)
+					for(String[] line: part){
+						builder.addVertex(line[0]);
+						for(int k=1; k<line.length; k++)
+							builder.addEdge(line[0], line[k]);
+					}
+				builder.fill(g);
+
+				return new LoadReport(size, chunks, threads, middle-start,
+									  System.nanoTime()-middle);
+			}
+			catch(InterruptedException exc){
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("caricamento interrotto");
+			}
+			catch(ExecutionException exc){
+				throw new IOException(exc.getCause());
+			}
+			finally{ pool.shutdownNow(); }
+		}
+	}
+	/*
+		EFFECTS: divide file in blocchi di righe intere (almeno 4 per thread,
+				 al più 256MB ciascuno), li mappa in memoria in sola lettura e
+				 li analizza in parallelo sul pool di threads thread
+				 (codifica UTF-8, stessi separatori e token di readAndFill);
+				 poi raccoglie le righe in un GraphMapBuilder e le aggiunge
+				 a g con le stesse regole di readAndFill, cosicché il grafo
+				 risultante è lo stesso. Restituisce il resoconto del
+				 caricamento.
+				 Se g==null || file==null lancia NullPointerException
+				 (unchecked).
+				 Se threads<1 lancia IllegalArgumentException (unchecked).
+				 Se un adiacente non compare come vertice né è già un vertice
+				 di g lancia IllegalArgumentException (unchecked) e g resta
+				 invariato.
+				 In caso sopraggiunga un errore di I/O, o il thread chiamante
+				 venga interrotto, rilancia una IOException (checked) al
+				 chiamante.
+	*/
+
+
+	/***************************************************************************
+			Formato binario dei grafi di stringhe.
+			Intestazione di HEADER byte (big-endian):
+				int magic, int versione, int V, long E,
+				long lunghezza del payload, int CRC32 del payload;
+			payload:
+				dizionario dei V vertici in ordine crescente, ciascuno
+				come varint del prefisso in comune col precedente,
+				varint della lunghezza del resto e byte UTF-8 del resto;
+				perogni vertice v, varint del numero di adiacenti w>v
+				e varint dei salti w-v, w'-w, ... fra adiacenti crescenti.
+	***************************************************************************/
+	private static final int MAGIC = 0x47524631,
+							 FORMAT = 1,
+							 HEADER = 32,
+							 WINDOW = 1<<30;
+
+
+	private static void writeVarint(OutputStream out, long x) throws IOException
+	{
+		while( (x&~0x7FL)!=0 ){
+			out.write((int)((x&0x7F)|0x80));
+			x >>>= 7;
+		}
+		out.write((int)x);
+	}
+
+	private static long readVarint(MappedInput in) throws IOException
+	{
+		long x = 0;
+		for(int shift=0; shift<64; shift+=7){
+			byte b = in.get();
+			x |= (long)(b&0x7F)<<shift;
+			if( b>=0 ) return x;
+		}
+		throw new IOException("varint malformato");
+	}
+
+
+	/***************************************************************************
+			Lettura sequenziale di un file mappato in memoria a finestre
+			di al più window byte, così da superare il limite di 2 GB di
+			un singolo MappedByteBuffer: quando la finestra corrente si
+			esaurisce ne viene mappata una nuova dalla posizione
+			raggiunta, anche a metà di un varint o di un nome.
+	***************************************************************************/
+	private static final class MappedInput
+	{
+		private final FileChannel ch;
+		private final long size;
+		private final int window;
+		private MappedByteBuffer b;
+		private long base;
+
+		MappedInput(FileChannel ch, long from, int window) throws IOException
+		{
+			this.ch = ch;
+			this.size = ch.size();
+			this.window = window;
+			map(from);
+		}
+
+		private void map(long from) throws IOException
+		{
+			base = from;
+			b = ch.map(FileChannel.MapMode.READ_ONLY, from,
+					   Math.min(window, size-from));
+		}
+
+		private void next() throws IOException
+		{
+			long pos = base+b.position();
+			if( pos>=size ) throw new BufferUnderflowException();
+			map(pos);
+		}
+
+		byte get() throws IOException
+		{
+			if( !b.hasRemaining() ) next();
+			return b.get();
+		}
+
+		void get(byte[] dst, int off, int len) throws IOException
+		{
+			while( len>0 ){
+				if( !b.hasRemaining() ) next();
+				int k = Math.min(len, b.remaining());
+				b.get(dst, off, k);
+				off += k;
+				len -= k;
+			}
+		}
 
-		Graphs.fillSets(f, vertexes, adjoints);
+		boolean hasRemaining()
+		{
+			return base+b.position()<size;
+		}
 
-		g.addSetVertex(vertexes);
-		Iterator<String> i = vertexes.iterator();
-		Iterator<TreeSet<String>> j = adjoints.iterator();
-		while( j.hasNext() ){
-			TreeSet<String> friends = j.next();
-			String vrt = i.next();
-			friends.forEach(v->{
-				if(!g.existsEdge(v, vrt)) g.addEdge(v, vrt);
-			});
+		/* CRC32 dei byte da from alla fine, finestra per finestra;
+		   la posizione di lettura non cambia */
+		int crc(long from) throws IOException
+		{
+			CRC32 crc = new CRC32();
+			for(long pos=from; pos<size; pos+=window)
+				crc.update(ch.map(FileChannel.MapMode.READ_ONLY, pos,
+								  Math.min(window, size-pos)));
+			return (int)crc.getValue();
 		}
 	}
 	/*
-		EFFECTS: invoca Graphs.fillSets() che splitta ogni riga di f in
-				 vertice - insieme degli adiacenti riempiendo vertexes e
-				 adjoints; poi scorre nelle due collezioni per riempire g.
+		EFFECTS: get() lanciano BufferUnderflowException (unchecked) oltre la
+				 fine del file; al più una finestra per volta resta mappata
+				 dal lettore (le precedenti sono rilasciate dal GC).
+	*/
+
+
+	/***************************************************************************
+				Salva il grafo passato nel file in formato binario.
+	***************************************************************************/
+	public static void saveBinary(Graph<String> g, File file) throws IOException
+	{
+		if( g==null || file==null )
+			throw new NullPointerException("passato oggetto nullo");
+		GraphCSR<String> csr = new GraphCSR<String>(g);
+		int n = csr.numVertex();
+
+		try( FileChannel ch = FileChannel.open(file.toPath(),
+											   StandardOpenOption.CREATE,
+											   StandardOpenOption.WRITE,
+											   StandardOpenOption.TRUNCATE_EXISTING) ){
+			ch.position(HEADER);
+			CRC32 crc = new CRC32();
+			CheckedOutputStream out = new CheckedOutputStream(
+				new BufferedOutputStream(Channels.newOutputStream(ch), 1<<16),
+				crc
+			);
+
+			byte[] prev = new byte[0];
+			for(int v=0; v<n; v++){
+				byte[] cur = csr.vertex(v).getBytes(StandardCharsets.UTF_8);
+				int common = 0,
+					max = Math.min(prev.length, cur.length);
+				while( common<max && prev[common]==cur[common] ) common++;
+				writeVarint(out, common);
+				writeVarint(out, cur.length-common);
+				out.write(cur, common, cur.length-common);
+				prev = cur;
+			}
+			for(int v=0; v<n; v++){
+				int k = csr.off[v+1];
+				while( k>csr.off[v] && csr.adj[k-1]>v ) k--;
+				writeVarint(out, csr.off[v+1]-k);
+				for(int last=v; k<csr.off[v+1]; k++){
+					writeVarint(out, csr.adj[k]-last);
+					last = csr.adj[k];
+				}
+			}
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			header.putInt(MAGIC).putInt(FORMAT).putInt(n)
+				  .putLong(csr.numEdge())
+				  .putLong(ch.position()-HEADER)
+				  .putInt((int)crc.getValue())
+				  .flip();
+			while( header.hasRemaining() )
+				ch.write(header, header.position());
+		}
+	}
+	/*
+		EFFECTS: congela g in una istantanea CSR e la scrive in file (creato o
+				 sovrascritto) nel formato binario descritto sopra: i vertici
+				 sono codificati col loro prefisso in comune e ogni arco una
+				 sola volta, dal vertice minore, con salti varint.
+				 Se g==null || file==null lancia NullPointerException
+				 (unchecked).
 				 In caso sopraggiunga un errore di I/O, rilancia una IOException
 				 (checked) al chiamante.
 	*/
 
 
 	/***************************************************************************
-				Legge un file di testo e restituisce un nuovo grafo
-				usando il Costruttore2 di GraphMap<E>
+			Legge un file in formato binario e restituisce un nuovo grafo.
 	***************************************************************************/
-	public static GraphMap<String> asGraph(FileReader f) throws IOException
+	public static GraphMap<String> loadBinary(File file) throws IOException
+	{
+		return loadBinary(file, WINDOW);
+	}
+
+	static GraphMap<String> loadBinary(File file, int window) throws IOException
 	{
-		LinkedHashSet<String> vertexes = new LinkedHashSet<String>();
-		ArrayList<TreeSet<String>> adjoints = new ArrayList<TreeSet<String>>();
-		
-		Graphs.fillSets(f, vertexes, adjoints);
+		if( file==null ) throw new NullPointerException("passato oggetto nullo");
+		if( window<1 ) throw new IllegalArgumentException(window+" byte");
 
-		return new GraphMap<String>(vertexes, adjoints);
+		try( FileChannel ch = FileChannel.open(file.toPath(),
+											   StandardOpenOption.READ) ){
+			long size = ch.size();
+			if( size<HEADER )
+				throw new IOException(file+": dimensione non valida");
+			ByteBuffer h = ByteBuffer.allocate(HEADER);
+			while( h.hasRemaining() )
+				if( ch.read(h, h.position())<0 )
+					throw new IOException(file+": intestazione troncata");
+			h.flip();
+
+			int magic = h.getInt(),
+				format = h.getInt(),
+				n = h.getInt();
+			long e = h.getLong(),
+				 len = h.getLong();
+			int sum = h.getInt();
+			if( magic!=MAGIC || format!=FORMAT )
+				throw new IOException(file+": formato non riconosciuto");
+			if( n<0 || e<0 || len!=size-HEADER )
+				throw new IOException(file+": intestazione corrotta");
+			MappedInput b = new MappedInput(ch, HEADER, window);
+			if( b.crc(HEADER)!=sum )
+				throw new IOException(file+": checksum errato");
+
+			try{
+				String[] name = new String[n];
+				byte[] buf = new byte[64];
+				int prev = 0;
+				for(int v=0; v<n; v++){
+					int common = (int)readVarint(b),
+						rest = (int)readVarint(b);
+					if( common>prev || rest<0 )
+						throw new IOException(file+": dizionario corrotto");
+					if( common+rest>buf.length )
+						buf = Arrays.copyOf(buf, Math.max(2*buf.length,
+														  common+rest));
+					b.get(buf, common, rest);
+					prev = common+rest;
+					name[v] = new String(buf, 0, prev, StandardCharsets.UTF_8);
+					if( v>0 && name[v-1].compareTo(name[v])>=0 )
+						throw new IOException(file+": dizionario non ordinato");
+				}
+
+				ArrayList<TreeSet<String>> adjoints =
+					new ArrayList<TreeSet<String>>(n);
+				for(int v=0; v<n; v++) adjoints.add(new TreeSet<String>());
+				long edges = 0;
+				for(int v=0; v<n; v++){
+					long deg = readVarint(b);
+					for(long k=0, w=v; k<deg; k++){
+						long gap = readVarint(b);
+						w += gap;
+						if( gap<1 || w>=n )
+							throw new IOException(file+": adiacenti corrotti");
+						adjoints.get(v).add(name[(int)w]);
+						adjoints.get((int)w).add(name[v]);
+					}
+					edges += deg;
+				}
+				if( edges!=e || b.hasRemaining() )
+					throw new IOException(file+": numero archi errato");
+
+				return new GraphMap<String>(
+					new LinkedHashSet<String>(Arrays.asList(name)), adjoints
+				);
+			}
+			catch(BufferUnderflowException | IndexOutOfBoundsException exc){
+				throw new IOException(file+": payload troncato", exc);
+			}
+		}
+	}
+	/*
+		EFFECTS: mappa file in memoria in sola lettura, a finestre di al più
+				 1 GB (window byte nella versione del package) per accettare
+				 file oltre i 2 GB, controlla intestazione e CRC32 del
+				 payload, decodifica dizionario ed adiacenze e restituisce il
+				 grafo con il Costruttore2 di GraphMap, senza analizzare
+				 testo. I limiti sono quelli del formato: al più
+				 Integer.MAX_VALUE vertici.
+				 Se file==null lancia NullPointerException (unchecked).
+				 Se il file non è nel formato atteso o è corrotto, o sopraggiunge
+				 un errore di I/O, rilancia una IOException (checked) al
+				 chiamante.
+	*/
+
+
+	/***************************************************************************
+				Legge un file di testo e restituisce un nuovo grafo
+				usando un GraphMapBuilder<String>
+	***************************************************************************/
+	public static GraphMap<String> asGraph(Reader f) throws IOException
+	{
+		return Graphs.collect(f).build();
 	}
 	/*
-		EFFECTS: analogamente a readAndFill invoca Graphs.fillSets(), poi
-				 restituisce un nuovo grafo usando il Costruttore2 di GraphMap.
+		EFFECTS: invoca Graphs.collect(), che estrae i token di f con un
+				 Tokenizer e ignora quelli vuoti, poi restituisce un nuovo
+				 grafo costruito dal GraphMapBuilder, con gli archi
+				 simmetrizzati, senza duplicati né cappi.
+				 Se un adiacente non compare come vertice (primo token di una
+				 riga) lancia IllegalArgumentException (unchecked).
 				 In caso sopraggiunga un errore di I/O, rilancia una IOException
 				 (checked) al chiamante.
 	*/
 
 
+	/***************************************************************************
+			Resoconto di una esportazione: vertici ed archi scritti e
+			vertici ed archi omessi per i limiti imposti.
+	***************************************************************************/
+	public static final class ExportReport
+	{
+		private final long vertices, edges,
+						   omittedVertices, omittedEdges;
+
+		ExportReport(long vertices, long omittedVertices,
+					 long edges, long omittedEdges)
+		{
+			this.vertices = vertices;
+			this.omittedVertices = omittedVertices;
+			this.edges = edges;
+			this.omittedEdges = omittedEdges;
+		}
+
+		public long vertices()
+		{
+			return vertices;
+		}
+
+		public long edges()
+		{
+			return edges;
+		}
+
+		public long omittedVertices()
+		{
+			return omittedVertices;
+		}
+
+		public long omittedEdges()
+		{
+			return omittedEdges;
+		}
+
+		public boolean isComplete()
+		{
+			return omittedVertices==0 && omittedEdges==0;
+		}
+
+		public String toString()
+		{
+			return vertices+" vertici e "+edges+" archi esportati"+
+				   (isComplete() ? ""
+								 : ", omessi "+omittedVertices+" vertici e "+
+								   omittedEdges+" archi");
+		}
+	}
+
+
 	/***************************************************************************
 				Dato un grafo ed un file di scrittura già aperto
 				scrive un file html usando delle librerie javascript
 				fornite 
 	***************************************************************************/
-	private static void createHtml(GraphMap<String> g,
-									String name,
-									FileWriter f)
-									throws IOException
+	private static ExportReport createHtml(GraphMap<String> g,
+											String name,
+											Writer f,
+											int maxVertices,
+											long maxEdges)
+											throws IOException
 	{
-		BufferedWriter bw = new BufferedWriter(f);
 		String lastChunk =
 			"}};sys.graft(data);</script>"+
 			"<section id=\"info\"><p id='info_0' class='info'>GRAFO "+
@@ -145,54 +771,178 @@ public class Graphs
 			"sys.parameters({gravity:true});"+
 			"sys.renderer = Renderer(\"#viewport\");"+
 			"var data = {nodes:{";
-		bw.write(firstChunk);
-
-		for(Iterator<String> j=g.iterator(); j.hasNext();){
-			String v = j.next().toString(),
-				   line = v+":{'color':'blue','shape':'dot','label':'"+v+"'}";
-			bw.write(line);
-			if(j.hasNext()) bw.write(",");
-		}
-		bw.write(middleChunk);
-
-		for(Iterator<String> j=g.iterator(); j.hasNext();){
-			String v = j.next().toString(),
-				   line = v+":{";
-			for( Iterator<String> i=g.adjacentVertex(v).iterator();
-				 i.hasNext(); ){
-				line = line+i.next()+":{}";
-				if(i.hasNext()) line = line+",";
+		long nv = 0,
+			 ne = 0;
+		String last = null;
+
+		try( BufferedWriter bw = new BufferedWriter(f, 1<<16) ){
+			bw.write(firstChunk);
+			for(String v: g){
+				if( nv==maxVertices ) break;
+				if( nv++>0 ) bw.write(',');
+				GraphExporter.writeJson(bw, v);
+				bw.write(":{'color':'blue','shape':'dot','label':");
+				GraphExporter.writeJson(bw, v);
+				bw.write('}');
+				last = v;
 			}
-			bw.write(line+"}");
-			if(j.hasNext()) bw.write(",");
+			bw.write(middleChunk);
+
+			boolean first = true;
+			if( last!=null )
+				for(String v: g.listVertex().headSet(last, true)){
+					if( ne==maxEdges ) break;
+					NavigableSet<String> upper =
+						g.adjacentVertex(v).subSet(v, false, last, true);
+					if( upper.isEmpty() ) continue;
+					if( !first ) bw.write(',');
+					first = false;
+					GraphExporter.writeJson(bw, v);
+					bw.write(":{");
+					int k = 0;
+					for(Iterator<String> i=upper.iterator();
+						i.hasNext() && ne<maxEdges; ne++){
+						if( k++>0 ) bw.write(',');
+						GraphExporter.writeJson(bw, i.next());
+						bw.write(":{}");
+					}
+					bw.write('}');
+				}
+			bw.write(lastChunk);
 		}
-		bw.write(lastChunk);
+		return new ExportReport(nv, g.numVertex()-nv, ne, g.numEdge()-ne);
+	}
+	/*
+		EFFECTS: scrive in f, attraverso un buffer e senza costruire stringhe
+				 per vertice, la pagina html dei primi maxVertices vertici di g
+				 (in ordine) e di al più maxEdges archi fra essi; ogni arco
+				 <v,w> è scritto una sola volta, sotto il minore fra v e w.
+				 I nomi dei vertici sono scritti come stringhe letterali.
+				 Restituisce il resoconto di quanto scritto ed omesso.
+				 In caso sopraggiunga un errore di I/O, rilancia una IOException
+				 (checked) al chiamante.
+	*/
 
-		bw.close();
+
+	/***************************************************************************
+			Esporta nel formato passato i vertici di g appartenenti a
+			subset (tutti se subset==null) e gli archi fra essi.
+	***************************************************************************/
+	public static <E extends Comparable<E>> ExportReport export(
+									GraphMap<E> g, GraphExporter format,
+									Writer out, Set<? extends E> subset)
+									throws IOException
+	{
+		if( g==null || format==null || out==null )
+			throw new NullPointerException("passato oggetto nullo");
+		long nv = 0,
+			 ne = 0;
+
+		format.begin(out);
+		for(E v: g){
+			if( subset!=null && !subset.contains(v) ) continue;
+			boolean isolated = true;
+			for(E w: g.adjacentVertex(v))
+				if( subset==null || subset.contains(w) ){
+					isolated = false;
+					break;
+				}
+			format.vertex(out, v.toString(), isolated);
+			nv++;
+		}
+		format.edges(out);
+		for(E v: g){
+			if( subset!=null && !subset.contains(v) ) continue;
+			String name = v.toString();
+			for(E w: g.adjacentVertex(v).tailSet(v, false))
+				if( subset==null || subset.contains(w) ){
+					format.edge(out, name, w.toString());
+					ne++;
+				}
+		}
+		format.end(out);
+		out.flush();
+		return new ExportReport(nv, g.numVertex()-nv, ne, g.numEdge()-ne);
 	}
 
+	public static <E extends Comparable<E>> ExportReport export(
+									GraphMap<E> g, GraphExporter format,
+									File file, Set<? extends E> subset)
+									throws IOException
+	{
+		if( file==null ) throw new NullPointerException("passato oggetto nullo");
+		try( FileChannel ch = FileChannel.open(file.toPath(),
+											   StandardOpenOption.CREATE,
+											   StandardOpenOption.WRITE,
+											   StandardOpenOption.TRUNCATE_EXISTING);
+			 Writer out = new BufferedWriter(
+				Channels.newWriter(ch, StandardCharsets.UTF_8.newEncoder(), -1),
+				1<<16
+			 ) ){
+			return export(g, format, out, subset);
+		}
+	}
+
+	public static <E extends Comparable<E>> ExportReport export(
+									GraphMap<E> g, GraphExporter format,
+									File file)
+									throws IOException
+	{
+		return export(g, format, file, null);
+	}
+	/*
+		EFFECTS: scorre due volte i vertici di g, scrivendo prima i vertici
+				 poi gli archi <v,w> con v<w (una sola volta ciascuno),
+				 con entrambi gli estremi in subset; la memoria occupata non
+				 dipende dalla dimensione del grafo. Le versioni con file lo
+				 creano (o lo sovrascrivono) e vi scrivono in UTF-8 attraverso
+				 un buffer di 64K sul canale del file. I vertici di subset
+				 non presenti in g vengono ignorati.
+				 Restituisce il resoconto di quanto esportato ed omesso.
+				 Se g==null || format==null || out==null || file==null lancia
+				 NullPointerException (unchecked).
+				 In caso sopraggiunga un errore di I/O, rilancia una IOException
+				 (checked) al chiamante.
+	*/
+
 
 	/***************************************************************************
 			Dato un grafo lancia una istanza del browser predefinito
 			per visualizzarlo graficamente
 	***************************************************************************/
-	public static void drawGraph(GraphMap<String> g, String name)
-								throws IOException
+	public static ExportReport drawGraph(GraphMap<String> g, String name,
+										 int maxVertices, long maxEdges)
+										 throws IOException
 	{
+		if( maxVertices<0 || maxEdges<0 )
+			throw new IllegalArgumentException("limiti negativi");
 		File htmlFile = new File("GraphTest"+name+".html");
 		htmlFile.createNewFile();
 		htmlFile.deleteOnExit();
-		Graphs.createHtml(g, name, new FileWriter(htmlFile));
+		ExportReport report = Graphs.createHtml(g, name,
+												new FileWriter(htmlFile),
+												maxVertices, maxEdges);
 		Desktop desktop = Desktop.isDesktopSupported()
 							? Desktop.getDesktop()
 							: null;
 		if( desktop!=null && desktop.isSupported(Desktop.Action.BROWSE) )
 			desktop.browse(htmlFile.toURI());
+		return report;
+	}
+
+	public static ExportReport drawGraph(GraphMap<String> g, String name)
+										 throws IOException
+	{
+		return drawGraph(g, name, Integer.MAX_VALUE, Long.MAX_VALUE);
 	}
 	/*
 		EFFECTS: invoca Graphs.createHtml() che crea un file html usando name,
-				 poi, se il s.o. lo supporta, lancia la pagina creata in
-				 una nuova finestra del browser predefinito .
+				 con al più maxVertices vertici e maxEdges archi (senza limiti
+				 nella seconda versione), poi, se il s.o. lo supporta, lancia
+				 la pagina creata in una nuova finestra del browser predefinito
+				 e restituisce il resoconto dell'esportazione.
+				 Se maxVertices<0 || maxEdges<0 lancia
+				 IllegalArgumentException (unchecked).
 				 In caso sopraggiunga un errore di I/O, rilancia una IOException
 				 (checked) al chiamante.
 	*/
@@ -0,0 +1,136 @@
+/* GraphsBinaryTest prova del formato binario di Graphs */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova di Graphs.saveBinary() e Graphs.loadBinary():
+		legge con Graphs.asGraph() il testo di grafi casuali e lo
+		confronta con il modello ReferenceGraph, poi lo salva e lo
+		rilegge con finestre di mappatura piccolissime, così che varint
+		e nomi attraversino i confini fra finestre come accade oltre i
+		2 GB, confrontando ancora col modello; verifica infine che i
+		file troncati o corrotti siano rifiutati. Ogni finestra è una
+		mappatura rilasciata solo dal GC, da cui le System.gc().
+		Uso: java GraphsBinaryTest [grafi] [seme]
+*******************************************************************************/
+public class GraphsBinaryTest
+{
+	public static void
+	main(String[] args) throws IOException
+	{
+		int graphs = args.length>0 ? Integer.parseInt(args[0]) : 30;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+		File file = File.createTempFile("graph", ".bin");
+		file.deleteOnExit();
+		boolean ok = true;
+
+		for(int t=0; t<graphs && ok; t++){
+			ReferenceGraph<String> ref = new ReferenceGraph<String>(random(rnd));
+			GraphMap<String> g = Graphs.asGraph(new StringReader(text(ref)));
+			String error = ref.compare(g);
+			if( error!=null ){
+				System.out.println("grafo "+t+", asGraph(): "+error);
+				ok = false;
+			}
+			Graphs.saveBinary(g, file);
+			for(int window: new int[]{ 3, 17, 256, Integer.MAX_VALUE }){
+				GraphMap<String> h = Graphs.loadBinary(file, window);
+				System.gc();
+				error = ref.compare(h);
+				if( error==null && !g.equals(h) ) error = "diverso da asGraph()";
+				if( error!=null ){
+					System.out.println("grafo "+t+", finestra "+window+
+									   ": "+error);
+					ok = false;
+				}
+			}
+			if( g.numVertex()>0 ) ok &= rejected(file, rnd, t);
+		}
+		System.out.println(ok ? "prova superata" : "prova FALLITA");
+		if( !ok ) System.exit(1);
+	}
+
+
+	/* grafo casuale con nomi di lunghezza variabile e prefissi comuni */
+	private static GraphMap<String> random(Random rnd)
+	{
+		GraphMap<String> g = new GraphMap<String>(GraphMap.Validation.OFF);
+		int n = rnd.nextInt(100);
+		for(int i=0; i<n; i++){
+			StringBuilder name = new StringBuilder("utente");
+			for(int k=rnd.nextInt(12); k>=0; k--)
+				name.append((char)('a'+rnd.nextInt(26)));
+			if( rnd.nextInt(10)==0 ) name.append("è世");
+			if( !g.existsVertex(name.toString()) ) g.addVertex(name.toString());
+		}
+		String[] vs = g.listVertex().toArray(new String[0]);
+		for(int k=vs.length<2 ? 0 : rnd.nextInt(4*vs.length); k>0; k--){
+			String v = vs[rnd.nextInt(vs.length)],
+				   w = vs[rnd.nextInt(vs.length)];
+			if( !v.equals(w) && !g.existsEdge(v, w) ) g.addEdge(v, w);
+		}
+		return g;
+	}
+
+
+	/* testo del modello, una riga "v-w:w'..." per vertice */
+	private static String text(ReferenceGraph<String> ref)
+	{
+		StringBuilder sb = new StringBuilder();
+		for(String v: ref.vertices()){
+			sb.append(v);
+			char sep = '-';
+			for(String w: ref.adjacentVertex(v)){
+				sb.append(sep).append(w);
+				sep = ':';
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+
+	/* un byte alterato o un file troncato danno IOException */
+	private static boolean rejected(File file, Random rnd, int t)
+		throws IOException
+	{
+		try( RandomAccessFile f = new RandomAccessFile(file, "rw") ){
+			long size = f.length(),
+				 pos = 32+(long)(rnd.nextDouble()*(size-32));
+			f.seek(pos);
+			int b = f.read();
+			f.seek(pos);
+			f.write(b^0x10);
+			if( loads(file, 17) ){
+				System.out.println("grafo "+t+": byte alterato accettato");
+				return false;
+			}
+			f.seek(pos);
+			f.write(b);
+			f.setLength(size-1);
+			if( loads(file, 17) ){
+				System.out.println("grafo "+t+": file troncato accettato");
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean loads(File file, int window)
+	{
+		try{
+			Graphs.loadBinary(file, window);
+			return true;
+		}
+		catch(IOException exc){
+			return false;
+		}
+		finally{ System.gc(); }
+	}
+}
@@ -0,0 +1,187 @@
+/* GraphsLoadParallelTest prova del caricamento parallelo di Graphs */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+
+/*******************************************************************************
+		Classe per la prova di Graphs.loadParallel(): scrive file di testo
+		casuali con separatori misti e consecutivi, righe vuote, vertici
+		ripetuti, cappi, archi duplicati, nomi non ASCII e righe lunghe
+		che attraversano i confini fra i blocchi, poi li carica su 1..4
+		thread, in grafi vuoti e già popolati, e confronta il risultato
+		con Graphs.asGraph() e con il modello ReferenceGraph; verifica
+		infine che un adiacente non dichiarato lanci
+		IllegalArgumentException lasciando il grafo invariato.
+		Uso: java GraphsLoadParallelTest [file] [seme]
+*******************************************************************************/
+public class GraphsLoadParallelTest
+{
+	private static final String[] SEPARATORS = {
+		"-", ":", " ", "\t", "\r", "::", "- ", " :\t", "--"
+	};
+
+	public static void
+	main(String[] args) throws IOException
+	{
+		int files = args.length>0 ? Integer.parseInt(args[0]) : 40;
+		long seed = args.length>1 ? Long.parseLong(args[1]) : 42;
+		Random rnd = new Random(seed);
+		File file = File.createTempFile("graph", ".txt");
+		file.deleteOnExit();
+
+		String error = null;
+		for(int t=0; t<files && error==null; t++){
+			ReferenceGraph<String> expected = new ReferenceGraph<String>();
+			write(file, rnd, t%5==0 ? 0 : 1+rnd.nextInt(t%3==0 ? 3000 : 200),
+				  null, expected);
+			error = compare(file, expected);
+			if( error==null ) error = merge(file, rnd);
+			if( error!=null ) error = "file "+t+" ("+file.length()+" byte): "+error;
+		}
+		if( error==null ) error = undeclared(file, rnd);
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* loadParallel in un grafo vuoto coincide con asGraph e col modello */
+	private static String compare(File file, ReferenceGraph<String> expected)
+		throws IOException
+	{
+		GraphMap<String> a;
+		try( InputStreamReader r = new InputStreamReader(
+				new FileInputStream(file), StandardCharsets.UTF_8) ){
+			a = Graphs.asGraph(r);
+		}
+		String error = expected.compare(a);
+		if( error!=null ) return "asGraph(): "+error;
+		for(int threads=1; threads<=4; threads++){
+			GraphMap<String> g = new GraphMap<String>();
+			Graphs.LoadReport report = Graphs.loadParallel(g, file, threads);
+			error = expected.compare(g);
+			if( error!=null ) return threads+" thread: "+error;
+			if( !g.equals(a) || g.numEdge()!=a.numEdge() )
+				return threads+" thread: diverso da asGraph()";
+			if( report.bytes()!=file.length() || report.threads()!=threads )
+				return threads+" thread: resoconto errato "+report;
+		}
+		return null;
+	}
+
+
+	/* loadParallel in un grafo già popolato, anche su GraphArray, con
+	   adiacenti dichiarati solo nel grafo */
+	private static String merge(File file, Random rnd) throws IOException
+	{
+		GraphMap<Integer> base = ReferenceGraph.random(rnd, 20, 30);
+		GraphMap<String> g = new GraphMap<String>(GraphMap.Validation.OFF);
+		GraphArray<String> h = new GraphArray<String>(GraphMap.Validation.OFF);
+		ReferenceGraph<String> expected = new ReferenceGraph<String>();
+		for(Integer v: base.listVertex()){
+			g.addVertex("pre"+v);
+			h.addVertex("pre"+v);
+			expected.addVertex("pre"+v);
+		}
+		for(Integer v: base.listVertex())
+			for(Integer w: base.adjacentVertex(v))
+				if( v<w ){
+					g.addEdge("pre"+v, "pre"+w);
+					h.addEdge("pre"+v, "pre"+w);
+					expected.addEdge("pre"+v, "pre"+w);
+				}
+		List<String> pre = new ArrayList<String>(expected.vertices());
+		write(file, rnd, 1+rnd.nextInt(300), pre, expected);
+
+		Graphs.loadParallel(g, file, 1+rnd.nextInt(4));
+		String error = expected.compare(g);
+		if( error!=null ) return "GraphMap non vuoto: "+error;
+		Graphs.loadParallel(h, file, 1+rnd.nextInt(4));
+		error = expected.compare(h);
+		return error==null ? null : "GraphArray non vuoto: "+error;
+	}
+
+
+	/* un adiacente mai dichiarato: IllegalArgumentException, grafo intatto */
+	private static String undeclared(File file, Random rnd) throws IOException
+	{
+		ReferenceGraph<String> expected = new ReferenceGraph<String>();
+		write(file, rnd, 500, null, expected);
+		try( Writer out = new OutputStreamWriter(
+				new FileOutputStream(file, true), StandardCharsets.UTF_8) ){
+			out.write("\n"+expected.vertices().first()+"-fantasma\n");
+		}
+		GraphMap<String> g = new GraphMap<String>();
+		g.addVertex("presente");
+		ReferenceGraph<String> before = new ReferenceGraph<String>(g);
+		for(int threads=1; threads<=4; threads++)
+			try{
+				Graphs.loadParallel(g, file, threads);
+				return threads+" thread: adiacente non dichiarato accettato";
+			}
+			catch(IllegalArgumentException exc){
+				String error = before.compare(g);
+				if( error!=null ) return threads+" thread: grafo modificato, "+error;
+			}
+		return null;
+	}
+
+
+	/* scrive in file una riga per ciascuno di n nomi casuali, più alcune
+	   righe ripetute, e le aggiunge al modello; gli adiacenti sono scelti
+	   fra i nomi e fra i vertici di pre */
+	private static void write(File file, Random rnd, int n, List<String> pre,
+							  ReferenceGraph<String> expected) throws IOException
+	{
+		List<String> names = new ArrayList<String>();
+		for(int i=0; i<n; i++){
+			StringBuilder name = new StringBuilder();
+			for(int k=rnd.nextInt(6); k>=0; k--)
+				name.append((char)('a'+rnd.nextInt(26)));
+			if( rnd.nextInt(15)==0 ) name.append("è世");
+			names.add(name.toString());
+			expected.addVertex(name.toString());
+		}
+		List<String> lines = new ArrayList<String>(names);
+		for(int k=n/8; k>0; k--) lines.add(names.get(rnd.nextInt(n)));
+		Collections.shuffle(lines, rnd);
+		List<String> friends = new ArrayList<String>(names);
+		if( pre!=null ) friends.addAll(pre);
+
+		StringBuilder text = new StringBuilder();
+		for(int i=0; i<lines.size(); i++){
+			String v = lines.get(i);
+			if( rnd.nextInt(10)==0 ) text.append(rnd.nextBoolean() ? "\n" : " \t\n");
+			if( rnd.nextInt(4)==0 ) text.append(sep(rnd));
+			text.append(v);
+			int degree = rnd.nextInt(20)==0 ? 200+rnd.nextInt(400) : rnd.nextInt(6);
+			for(int k=0; k<degree; k++){
+				String w = rnd.nextInt(30)==0 ? v : friends.get(rnd.nextInt(friends.size()));
+				text.append(sep(rnd)).append(w);
+				expected.addEdge(v, w);
+			}
+			if( rnd.nextInt(4)==0 ) text.append(sep(rnd));
+			if( i<lines.size()-1 || rnd.nextBoolean() ) text.append('\n');
+		}
+
+		try( Writer out = new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8) ){
+			out.write(text.toString());
+		}
+	}
+
+	private static String sep(Random rnd)
+	{
+		return SEPARATORS[rnd.nextInt(SEPARATORS.length)];
+	}
+}
@@ -0,0 +1,750 @@
+/* PersistentGraph<E> grafo persistente con condivisione delle strutture */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.NavigableSet;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Deque;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.BiPredicate;
+import java.lang.reflect.MalformedParametersException;
+
+
+public class PersistentGraph<E extends Comparable<E>>
+							implements Iterable<E>, Graph<E>
+{
+	/*
+		OVERVIEW:= tipo non modificabile degli insiemi di oggetti omogenei
+				   generici di tipo E, gestiti come un grafo e memorizzati
+				   in alberi AVL persistenti: ogni operazione with*()
+				   restituisce una nuova versione in O(log n) (O(d log n)
+				   per withoutVertex) che condivide con la precedente tutti
+				   i nodi fuori dai cammini modificati.
+
+		AF:= <V,A> dove
+			 V = {x.key | x nodo di root},
+			 A = {<x.key,y.key> | x nodo di root && y nodo di x.value}
+
+		IR:= root e tutti gli alberi x.value sono alberi AVL: chiavi non
+			 nulle strettamente crescenti in ordine simmetrico,
+			 |height(left)-height(right)|<=1, height e size corretti
+			 && perogni nodo x di root, perogni nodo y di x.value =>
+					y.key appartiene a V && y.key!=x.key &&
+					x.key appartiene agli adiacenti di y.key
+			 && num_edge==Somma(size(x.value) perogni x)/2
+	*/
+
+	/***************************************************************************
+		Classe privata dei nodi immutabili degli alberi AVL: value è
+		l'albero degli adiacenti nell'albero dei vertici e null negli
+		alberi degli adiacenti.
+	***************************************************************************/
+	private static final class Node<K extends Comparable<K>, V>
+	{
+		final K key;
+		final V value;
+		final Node<K, V> left, right;
+		final int height, size;
+
+		Node(K key, V value, Node<K, V> left, Node<K, V> right)
+		{
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = Math.max(height(left), height(right))+1;
+			this.size = size(left)+size(right)+1;
+		}
+	}
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private final Node<E, Node<E, Void>> root;
+	private final int num_edge;
+
+
+	/***************************************************************************
+			Operazioni sugli alberi AVL persistenti: nessun nodo
+			esistente viene modificato, quelli sul cammino interessato
+			vengono ricreati e tutti gli altri condivisi.
+	***************************************************************************/
+	private static int height(Node<?, ?> t)
+	{
+		return t==null ? 0 : t.height;
+	}
+
+	private static int size(Node<?, ?> t)
+	{
+		return t==null ? 0 : t.size;
+	}
+
+	private static <K extends Comparable<K>, V> Node<K, V>
+	balance(K k, V v, Node<K, V> l, Node<K, V> r)
+	{
+		if( height(l)>height(r)+1 ){
+			if( height(l.left)>=height(l.right) )
+				return new Node<K, V>(l.key, l.value, l.left,
+									  new Node<K, V>(k, v, l.right, r));
+			Node<K, V> lr = l.right;
+			return new Node<K, V>(lr.key, lr.value,
+								  new Node<K, V>(l.key, l.value, l.left, lr.left),
+								  new Node<K, V>(k, v, lr.right, r));
+		}
+		if( height(r)>height(l)+1 ){
+			if( height(r.right)>=height(r.left) )
+				return new Node<K, V>(r.key, r.value,
+									  new Node<K, V>(k, v, l, r.left), r.right);
+			Node<K, V> rl = r.left;
+			return new Node<K, V>(rl.key, rl.value,
+								  new Node<K, V>(k, v, l, rl.left),
+								  new Node<K, V>(r.key, r.value, rl.right, r.right));
+		}
+		return new Node<K, V>(k, v, l, r);
+	}
+
+	private static <K extends Comparable<K>, V> Node<K, V> find(Node<K, V> t, K k)
+	{
+		while( t!=null ){
+			int c = k.compareTo(t.key);
+			if( c==0 ) return t;
+			t = c<0 ? t.left : t.right;
+		}
+		return null;
+	}
+
+	private static <K extends Comparable<K>, V> Node<K, V>
+	put(Node<K, V> t, K k, V v)
+	{
+		if( t==null ) return new Node<K, V>(k, v, null, null);
+		int c = k.compareTo(t.key);
+		if( c==0 )
+			return t.value==v ? t : new Node<K, V>(t.key, v, t.left, t.right);
+		if( c<0 ){
+			Node<K, V> l = put(t.left, k, v);
+			return l==t.left ? t : balance(t.key, t.value, l, t.right);
+		}
+		Node<K, V> r = put(t.right, k, v);
+		return r==t.right ? t : balance(t.key, t.value, t.left, r);
+	}
+
+	private static <K extends Comparable<K>, V> Node<K, V>
+	remove(Node<K, V> t, K k)
+	{
+		if( t==null ) return null;
+		int c = k.compareTo(t.key);
+		if( c<0 ){
+			Node<K, V> l = remove(t.left, k);
+			return l==t.left ? t : balance(t.key, t.value, l, t.right);
+		}
+		if( c>0 ){
+			Node<K, V> r = remove(t.right, k);
+			return r==t.right ? t : balance(t.key, t.value, t.left, r);
+		}
+		if( t.left==null ) return t.right;
+		if( t.right==null ) return t.left;
+		Node<K, V> m = t.right;
+		while( m.left!=null ) m = m.left;
+		return balance(m.key, m.value, t.left, remove(t.right, m.key));
+	}
+
+	private static <K extends Comparable<K>, V> Node<K, V>
+	join(Node<K, V> l, K k, V v, Node<K, V> r)
+	{
+		if( height(l)>height(r)+1 )
+			return balance(l.key, l.value, l.left, join(l.right, k, v, r));
+		if( height(r)>height(l)+1 )
+			return balance(r.key, r.value, join(l, k, v, r.left), r.right);
+		return new Node<K, V>(k, v, l, r);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>, V> Node<K, V>[]
+	split(Node<K, V> t, K k)
+	{
+		if( t==null ) return (Node<K, V>[]) new Node<?, ?>[3];
+		int c = k.compareTo(t.key);
+		if( c==0 )
+			return (Node<K, V>[]) new Node<?, ?>[]{ t.left, t, t.right };
+		Node<K, V>[] s;
+		if( c<0 ){
+			s = split(t.left, k);
+			s[2] = join(s[2], t.key, t.value, t.right);
+		}
+		else{
+			s = split(t.right, k);
+			s[0] = join(t.left, t.key, t.value, s[0]);
+		}
+		return s;
+	}
+
+	private static <K extends Comparable<K>, V> Node<K, V>
+	build(Object[] keys, Object[] values, int from, int to)
+	{
+		if( from>=to ) return null;
+		int mid = (from+to)>>>1;
+		@SuppressWarnings("unchecked")
+		K k = (K) keys[mid];
+		@SuppressWarnings("unchecked")
+		V v = values==null ? null : (V) values[mid];
+		return new Node<K, V>(k, v, build(keys, values, from, mid),
+							  build(keys, values, mid+1, to));
+	}
+	/*
+		EFFECTS: balance() ricostruisce un nodo riequilibrandolo con una
+				 rotazione semplice o doppia; put() e remove() restituiscono
+				 t stesso se non cambia nulla; join() unisce due alberi con
+				 chiavi separate da k; split() restituisce gli alberi delle
+				 chiavi minori e maggiori di k ed il nodo di chiave k (o
+				 null), condividendo i sottoalberi non attraversati;
+				 build() costruisce in O(n) l'albero bilanciato dei keys
+				 ordinati in [from,to).
+	*/
+
+
+	/***************************************************************************
+			Visita in ordine simmetrico le chiavi presenti in uno solo dei
+			due alberi o associate a valori diversi secondo same (se non
+			nullo), saltando in O(1) i sottoalberi condivisi.
+	***************************************************************************/
+	private static <K extends Comparable<K>, V> boolean
+	changes(Node<K, V> a, Node<K, V> b, BiPredicate<V, V> same,
+			Consumer<K> sink)
+	{
+		if( a==b ) return false;
+		if( a==null || b==null ){
+			if( sink!=null )
+				for(K k: new View<K>(a==null ? b : a)) sink.accept(k);
+			return true;
+		}
+		Node<K, V>[] s = split(b, a.key);
+		boolean changed = changes(a.left, s[0], same, sink);
+		if( changed && sink==null ) return true;
+		if( s[1]==null || (same!=null && !same.test(a.value, s[1].value)) ){
+			if( sink==null ) return true;
+			sink.accept(a.key);
+			changed = true;
+		}
+		return changes(a.right, s[2], same, sink) || changed;
+	}
+	/*
+		EFFECTS: restituisce true se i due alberi differiscono, passando a
+				 sink (se non nullo, altrimenti si ferma alla prima
+				 differenza) le chiavi che cambiano; il costo è
+				 O(m log^2 n) con m il numero di differenze quando i due
+				 alberi derivano l'uno dall'altro.
+	*/
+
+
+	/***************************************************************************
+		Classe privata di viste non modificabili sulle chiavi di un
+		albero, in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	private static final class View<K extends Comparable<K>> extends AbstractSet<K>
+	{
+		private final Node<K, ?> t;
+
+		View(Node<K, ?> t)
+		{
+			this.t = t;
+		}
+
+		public int size()
+		{
+			return PersistentGraph.size(t);
+		}
+
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o)
+		{
+			if( o==null || !(o instanceof Comparable) ) return false;
+			try{ return find(t, (K) o)!=null; }
+			catch(ClassCastException exc){ return false; }
+		}
+
+		public Iterator<K> iterator()
+		{
+			return new Iterator<K>(){
+				private final Deque<Node<K, ?>> stack = new ArrayDeque<Node<K, ?>>();
+				{ descend(t); }
+
+				private void descend(Node<K, ?> x)
+				{
+					for(; x!=null; x=x.left) stack.push(x);
+				}
+
+				public boolean hasNext(){ return !stack.isEmpty(); }
+
+				public K next()
+				{
+					if( stack.isEmpty() ) throw new NoSuchElementException();
+					Node<K, ?> x = stack.pop();
+					descend(x.right);
+					return x.key;
+				}
+			};
+		}
+	}
+
+
+	/***************************************************************************
+							Costruttore1:
+							istanzia un PersistentGraph vuoto.
+	***************************************************************************/
+	public PersistentGraph()
+	{
+		this(null, 0);
+	}
+
+
+	/***************************************************************************
+							Costruttore2:
+					istanzia la versione persistente del grafo passato.
+	***************************************************************************/
+	public PersistentGraph(Graph<E> g)
+	{
+		if( g==null ) throw new NullPointerException("passato oggetto nullo");
+		Object[] vrt = g.listVertex().toArray();
+		Arrays.sort(vrt);
+		Object[] adj = new Object[vrt.length];
+		long somma = 0;
+		for(int i=0; i<vrt.length; i++){
+			@SuppressWarnings("unchecked")
+			E v = (E) vrt[i];
+			Object[] friends = g.adjacentVertex(v).toArray();
+			Arrays.sort(friends);
+			adj[i] = build(friends, null, 0, friends.length);
+			somma += friends.length;
+		}
+		this.root = build(vrt, adj, 0, vrt.length);
+		this.num_edge = (int)(somma/2);
+		repOk();
+	}
+	/*
+		EFFECTS: costruisce in O((V+E) log d) gli alberi bilanciati dei
+				 vertici e degli adiacenti di g.
+				 Se g==null lancia NullPointerException (unchecked).
+				 Se g non è simmetrico lancia RepInvariantException
+				 (unchecked).
+	*/
+
+	private PersistentGraph(Node<E, Node<E, Void>> root, int num_edge)
+	{
+		this.root = root;
+		this.num_edge = num_edge;
+	}
+
+
+	/***************************************************************************
+			Controlla la correttazza dell'invariante di rappresentazione
+	***************************************************************************/
+	private void repOk()
+	{
+		long somma = 0;
+		for(E x: this){
+			Node<E, Void> friends = find(root, x).value;
+			if( !avl(friends) )
+				throw new RepInvariantException("infranto repInvariant");
+			for(E y: new View<E>(friends)){
+				Node<E, Node<E, Void>> ny = find(root, y);
+				if( ny==null || y.compareTo(x)==0 || find(ny.value, x)==null )
+					throw new RepInvariantException("infranto repInvariant");
+			}
+			somma += size(friends);
+		}
+		if( !avl(root) || num_edge!=somma/2 )
+			throw new RepInvariantException("infranto repInvariant");
+	}
+
+	private static boolean avl(Node<?, ?> t)
+	{
+		if( t==null ) return true;
+		return Math.abs(height(t.left)-height(t.right))<=1			&&
+			   t.height==Math.max(height(t.left), height(t.right))+1	&&
+			   t.size==size(t.left)+size(t.right)+1						&&
+			   avl(t.left) && avl(t.right);
+	}
+	/*
+		EFFECTS: se l'invariante di rappresentazione è infranto,
+				 lancia RepInvariantException (unchecked)
+	*/
+
+
+	/***************************************************************************
+			Esegue la verifica completa dell'invariante (O(E log n)).
+	***************************************************************************/
+	public void validate()
+	{
+		repOk();
+	}
+
+
+	/***************************************************************************
+				Lancia una eccezione in caso il vertice non esista,
+				altrimenti ne restituisce l'albero degli adiacenti.
+	***************************************************************************/
+	private Node<E, Void> checkVertex(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		Node<E, Node<E, Void>> n = find(root, v);
+		if( n==null ) throw new IllegalArgumentException(v+" non e' un vertice");
+		return n.value;
+	}
+
+
+	/***************************************************************************
+				Override iterator di Iterable<E>:
+				restituisce un iteratore sugli elementi di tipo E del grafo.
+	***************************************************************************/
+	public Iterator<E> iterator()
+	{
+		return listVertex().iterator();
+	}
+
+
+	/***************************************************************************
+						Controlla l'esistenza di un vertice.
+	***************************************************************************/
+	public boolean existsVertex(E v)
+	{
+		if( v==null ) throw new NullPointerException("passato oggetto nullo");
+		return find(root, v)!=null;
+	}
+
+
+	/***************************************************************************
+						Controlla l'esistenza di un arco.
+	***************************************************************************/
+	public boolean existsEdge(E v, E w)
+	{
+		Node<E, Void> friends = checkVertex(v);
+		checkVertex(w);
+		return find(friends, w)!=null;
+	}
+	/*
+		EFFECTS: restituisce true se w compare fra gli adiacenti di v,
+				 false altrimenti.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+						Restituisce il numero dei vertici.
+	***************************************************************************/
+	public int numVertex()
+	{
+		return size(root);
+	}
+
+
+	/***************************************************************************
+						Restituisce il numero degli archi.
+	***************************************************************************/
+	public int numEdge()
+	{
+		return num_edge;
+	}
+
+
+	/***************************************************************************
+			Operazioni di modifica: non supportate, si usano i metodi
+			with*() che restituiscono una nuova versione.
+	***************************************************************************/
+	public void addVertex(E v)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+
+	public void removeVertex(E v)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+
+	public void addEdge(E v, E w)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+
+	public void removeEdge(E v, E w)
+	{
+		throw new UnsupportedOperationException("grafo non modificabile");
+	}
+	/*
+		EFFECTS: lanciano UnsupportedOperationException (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituisce la versione con il vertice aggiunto.
+	***************************************************************************/
+	public PersistentGraph<E> withVertex(E v)
+	{
+		if( existsVertex(v) )
+			throw new MalformedParametersException(v+" e' gia' presente");
+		return new PersistentGraph<E>(put(root, v, null), num_edge);
+	}
+	/*
+		EFFECTS: restituisce in O(log n) il grafo <V unito {v}, A>.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v è già un vertice lancia MalformedParametersException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce la versione con il vertice ed i suoi archi rimossi.
+	***************************************************************************/
+	public PersistentGraph<E> withoutVertex(E v)
+	{
+		Node<E, Void> friends = checkVertex(v);
+		Node<E, Node<E, Void>> t = remove(root, v);
+		for(E friend: new View<E>(friends))
+			t = put(t, friend, remove(find(t, friend).value, v));
+		return new PersistentGraph<E>(t, num_edge-size(friends));
+	}
+	/*
+		EFFECTS: restituisce in O(d log n) il grafo
+				 <V\{v}, A\{<v,x> | <v,x> appartiene a A}>.
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituisce la versione con l'arco aggiunto.
+	***************************************************************************/
+	public PersistentGraph<E> withEdge(E v, E w)
+	{
+		if( existsEdge(v, w) )
+			throw new MalformedParametersException( "<"+v+", "+w+">"+
+													" è già presente" );
+		if( v.compareTo(w)==0 )
+			throw new MalformedParametersException( "<"+v+", "+w+">"+
+													" è un cappio" );
+		Node<E, Node<E, Void>> t =
+			put(root, v, put(find(root, v).value, w, null));
+		t = put(t, w, put(find(t, w).value, v, null));
+		return new PersistentGraph<E>(t, num_edge+1);
+	}
+	/*
+		EFFECTS: restituisce in O(log n) il grafo <V, A unito {<v,w>}>.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+				 Se <v,w> è già presente o v==w lancia
+				 MalformedParametersException (unchecked).
+	*/
+
+
+	/***************************************************************************
+				Restituisce la versione con l'arco rimosso.
+	***************************************************************************/
+	public PersistentGraph<E> withoutEdge(E v, E w)
+	{
+		if( !existsEdge(v, w) )
+			throw new MalformedParametersException( "<"+v+", "+w+">"+
+													" non è presente" );
+		Node<E, Node<E, Void>> t =
+			put(root, v, remove(find(root, v).value, w));
+		t = put(t, w, remove(find(t, w).value, v));
+		return new PersistentGraph<E>(t, num_edge-1);
+	}
+	/*
+		EFFECTS: restituisce in O(log n) il grafo <V, A\{<v,w>}>.
+				 Se v==null || w==null lancia NullPointerException (unchecked).
+				 Se v o w non sono vertici lancia IllegalArgumentException
+				 (unchecked).
+				 Se <v,w> non è presente lancia MalformedParametersException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce il grado del vertice (numero archi del vertice).
+	***************************************************************************/
+	public int degreeVertex(E v)
+	{
+		return size(checkVertex(v));
+	}
+
+
+	/***************************************************************************
+					Restituisce l'elenco dei vertici del grafo.
+	***************************************************************************/
+	public Set<E> listVertex()
+	{
+		return new View<E>(root);
+	}
+	/*
+		EFFECTS: restituisce una vista non modificabile dei vertici del grafo
+				 in ordine crescente di comparazione (compareTo).
+	*/
+
+
+	/***************************************************************************
+				Restituisce l'elenco degli adiacenti di un vertice.
+	***************************************************************************/
+	public Set<E> adjacentVertex(E v)
+	{
+		return new View<E>(checkVertex(v));
+	}
+	/*
+		EFFECTS: restituisce una vista non modificabile degli adiacenti di v
+				 in ordine crescente di comparazione (compareTo).
+				 Se v==null lancia NullPointerException (unchecked).
+				 Se v non è un vertice lancia IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Restituisce i vertici che differiscono da un'altra versione.
+	***************************************************************************/
+	public NavigableSet<E> changedVertices(PersistentGraph<E> h)
+	{
+		if( h==null ) throw new NullPointerException("passato oggetto nullo");
+		TreeSet<E> changed = new TreeSet<E>();
+		changes(root, h.root, (a, b)->!changes(a, b, null, null), changed::add);
+		return changed;
+	}
+	/*
+		EFFECTS: restituisce i vertici presenti in una sola delle due versioni
+				 o con insiemi di adiacenti diversi; se le due versioni
+				 derivano l'una dall'altra il costo dipende dal numero di
+				 differenze e non dalla dimensione del grafo, perché i
+				 sottoalberi condivisi vengono saltati senza visitarli.
+				 Se h==null lancia NullPointerException (unchecked).
+	*/
+
+
+	/***************************************************************************
+		Restituische la distanza tra due vertici,
+		-1 se i due vertici non appartengono al medesimo sottografo connesso.
+	***************************************************************************/
+	public Integer distanceInBetween(E v, E w)
+	{
+		checkVertex(v);
+		checkVertex(w);
+		Map<E, E> prev = bfs(v, w);
+		if( !prev.containsKey(w) ) return -1;
+		int d = 0;
+		for(E x=w; x.compareTo(v)!=0; x=prev.get(x)) d++;
+		return d;
+	}
+
+
+	/***************************************************************************
+			Restituisce il percorso (elenco dei vertici intermedi)
+			tra due vertici.
+	***************************************************************************/
+	public Iterable<E> pathInBetween(E v, E w)
+	{
+		checkVertex(v);
+		checkVertex(w);
+		Map<E, E> prev = bfs(v, w);
+		Deque<E> stackPath = new ArrayDeque<E>();
+		if( prev.containsKey(w) )
+			for(E x=prev.get(w); x!=null && x.compareTo(v)!=0; x=prev.get(x))
+				stackPath.addFirst(x);
+		return stackPath;
+	}
+
+	private Map<E, E> bfs(E v, E w)
+	{
+		Map<E, E> prev = new HashMap<E, E>();
+		Deque<E> queue = new ArrayDeque<E>();
+		prev.put(v, null);
+		queue.add(v);
+		while( !queue.isEmpty() && !prev.containsKey(w) ){
+			E head = queue.poll();
+			for(E x: new View<E>(find(root, head).value))
+				if( !prev.containsKey(x) ){
+					prev.put(x, head);
+					queue.add(x);
+				}
+		}
+		return prev;
+	}
+	/*
+		EFFECTS: distanceInBetween() e pathInBetween() restituiscono la
+				 lunghezza e i vertici intermedi di un cammino minimo tra
+				 v e w, trovato con una BFS da v interrotta al livello di w
+				 (-1 e Deque vuota se w non è raggiungibile).
+				 Se v==null || w==null lanciano NullPointerException
+				 (unchecked).
+				 Se v o w non sono vertici lanciano IllegalArgumentException
+				 (unchecked).
+	*/
+
+
+	/***************************************************************************
+					Restituisce il diametro del grafo:
+					il maggiore dei minimi percorsi possibili.
+	***************************************************************************/
+	public int graphDiameter()
+	{
+		return freeze().graphDiameter();
+	}
+
+
+	/***************************************************************************
+			Restituisce un'istantanea compressa (CSR) della versione.
+	***************************************************************************/
+	public GraphCSR<E> freeze()
+	{
+		return new GraphCSR<E>(this);
+	}
+
+
+	/***************************************************************************
+				Restituisce un array di Object contenente i nodi
+				in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public Object[] toArray()
+	{
+		return listVertex().toArray();
+	}
+
+
+	/***************************************************************************
+			Override toString di Object:
+			restituisce la rappresentazione in stringa dei vertici del grafo
+			in ordine crescente di comparazione (compareTo).
+	***************************************************************************/
+	public String toString()
+	{
+		return listVertex().toString();
+	}
+
+
+	/***************************************************************************
+			Controlla l'uguaglianza con un altro grafo (vedi Graph<E>).
+	***************************************************************************/
+	public boolean equals(Graph<E> h)
+	{
+		if( h instanceof PersistentGraph )
+			return !changes(root, ((PersistentGraph<E>) h).root,
+							(a, b)->!changes(a, b, null, null), null);
+		if( numVertex()!=h.numVertex() ) return false;
+		for(E x: this){
+			if( !h.existsVertex(x) ) return false;
+			if( !adjacentVertex(x).equals(h.adjacentVertex(x)) ) return false;
+		}
+		return true;
+	}
+	/*
+		EFFECTS: restituisce true se h ha gli stessi vertici e, perogni
+				 vertice, lo stesso insieme di adiacenti, false altrimenti;
+				 fra due versioni persistenti confronta solo le parti non
+				 condivise.
+	*/
+}
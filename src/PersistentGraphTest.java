@@ -0,0 +1,114 @@
+/* PersistentGraphTest prova delle versioni di PersistentGraph<E> */
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.Random;
+import java.lang.reflect.MalformedParametersException;
+
+
+/*******************************************************************************
+		Classe per la prova di PersistentGraph: deriva una catena di
+		versioni con operazioni with*() casuali, eseguendo le stesse
+		modifiche su un GraphMap<Integer> e copiandone lo stato in un
+		modello ReferenceGraph ad ogni passo; alla fine verifica che
+		ogni versione sia rimasta uguale al suo modello e che
+		changedVertices() ed equals() fra versioni casuali coincidano
+		con il confronto diretto dei modelli.
+		Uso: java PersistentGraphTest [passi] [vertici] [seme]
+*******************************************************************************/
+public class PersistentGraphTest
+{
+	public static void
+	main(String[] args)
+	{
+		int steps = args.length>0 ? Integer.parseInt(args[0]) : 5000,
+			n = args.length>1 ? Integer.parseInt(args[1]) : 30;
+		long seed = args.length>2 ? Long.parseLong(args[2]) : 42;
+
+		String error = random(steps, n, new Random(seed));
+		System.out.println(error==null ? "prova superata" : error);
+		if( error!=null ) System.exit(1);
+	}
+
+
+	/* catena di versioni confrontata con i modelli del GraphMap */
+	private static String random(int steps, int n, Random rnd)
+	{
+		GraphMap<Integer> m = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		List<PersistentGraph<Integer>> versions =
+			new ArrayList<PersistentGraph<Integer>>();
+		List<ReferenceGraph<Integer>> states =
+			new ArrayList<ReferenceGraph<Integer>>();
+		PersistentGraph<Integer> p = new PersistentGraph<Integer>();
+		versions.add(p);
+		states.add(new ReferenceGraph<Integer>(m));
+
+		for(int s=0; s<steps; s++){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(n),
+				op = rnd.nextInt(10);
+			PersistentGraph<Integer> next = p;
+			String ep = "", em = "";
+			try{
+				switch( op ){
+					case 0: next = p.withoutVertex(v); break;
+					case 1: case 2: next = p.withVertex(v); break;
+					case 3: case 4: case 5: next = p.withoutEdge(v, w); break;
+					default: next = p.withEdge(v, w);
+				}
+			}
+			catch(IllegalArgumentException | MalformedParametersException exc){
+				ep = exc.getClass().getSimpleName();
+			}
+			try{
+				switch( op ){
+					case 0: m.removeVertex(v); break;
+					case 1: case 2: m.addVertex(v); break;
+					case 3: case 4: case 5: m.removeEdge(v, w); break;
+					default: m.addEdge(v, w);
+				}
+			}
+			catch(IllegalArgumentException | MalformedParametersException exc){
+				em = exc.getClass().getSimpleName();
+			}
+			if( !ep.equals(em) )
+				return "passo "+s+": operazione "+op+" su "+v+", "+w+
+					   ": PersistentGraph "+ep+", GraphMap "+em;
+			if( !ep.isEmpty() && next!=p )
+				return "passo "+s+": nuova versione dopo "+ep;
+			p = next;
+			versions.add(p);
+			states.add(new ReferenceGraph<Integer>(m));
+		}
+
+		if( !new PersistentGraph<Integer>(m).equals(p) || !p.equals(m) )
+			return "Costruttore2 diverso dall'ultima versione";
+		try{
+			p.addVertex(n);
+			return "versione modificata da addVertex()";
+		}
+		catch(UnsupportedOperationException exc){}
+
+		for(int i=0; i<versions.size(); i++){
+			PersistentGraph<Integer> version = versions.get(i);
+			version.validate();
+			String error = states.get(i).compare(version);
+			if( error!=null ) return "versione "+i+": "+error;
+		}
+
+		for(int k=0; k<steps; k++){
+			int i = rnd.nextInt(versions.size()),
+				j = rnd.nextBoolean() ? Math.min(versions.size()-1, i+rnd.nextInt(5))
+									  : rnd.nextInt(versions.size());
+			TreeSet<Integer> expected = states.get(i).changed(states.get(j));
+			if( !versions.get(i).changedVertices(versions.get(j)).equals(expected) )
+				return "changedVertices("+i+", "+j+")="+
+					   versions.get(i).changedVertices(versions.get(j))+
+					   " invece di "+expected;
+			if( versions.get(i).equals(versions.get(j))!=expected.isEmpty() )
+				return "equals("+i+", "+j+") errato";
+		}
+		return null;
+	}
+}
@@ -0,0 +1,333 @@
+/* ReferenceGraph<E> modello di riferimento per le prove dei grafi */
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.SortedMap;
+import java.util.NavigableSet;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Random;
+
+
+public class ReferenceGraph<E extends Comparable<E>>
+{
+	/*
+		OVERVIEW: modello ingenuo di un grafo non orientato, una mappa
+				  ordinata di insiemi ordinati senza verifiche né
+				  ottimizzazioni, usato dalle classi *Test come oracolo:
+				  le distanze sono calcolate con una BFS semplice, le
+				  componenti per visita, i triangoli e le intersezioni per
+				  enumerazione diretta.
+				  I metodi di modifica non lanciano eccezioni: restituiscono
+				  se la modifica è stata applicata.
+	*/
+
+	/***************************************************************************
+								Variabili di classe.
+	***************************************************************************/
+	private final TreeMap<E, TreeSet<E>> st = new TreeMap<E, TreeSet<E>>();
+	private int num_edge = 0;
+
+
+	/***************************************************************************
+							Costruttore1:
+							istanzia un modello vuoto.
+	***************************************************************************/
+	public ReferenceGraph()
+	{
+	}
+
+
+	/***************************************************************************
+							Costruttore2:
+					istanzia la copia dei vertici e degli archi di g.
+	***************************************************************************/
+	public ReferenceGraph(Graph<E> g)
+	{
+		for(E v: g.listVertex())
+			st.put(v, new TreeSet<E>(g.adjacentVertex(v)));
+		int somma = 0;
+		for(TreeSet<E> friends: st.values()) somma += friends.size();
+		num_edge = somma/2;
+	}
+
+
+	/***************************************************************************
+					Restituisce una copia indipendente del modello.
+	***************************************************************************/
+	public ReferenceGraph<E> copy()
+	{
+		ReferenceGraph<E> c = new ReferenceGraph<E>();
+		st.forEach((v, friends)->c.st.put(v, new TreeSet<E>(friends)));
+		c.num_edge = num_edge;
+		return c;
+	}
+
+
+	/***************************************************************************
+			Modifiche: restituiscono false (null per quelle che
+			restituiscono gli adiacenti) se non sono applicabili.
+	***************************************************************************/
+	public boolean addVertex(E v)
+	{
+		return st.putIfAbsent(v, new TreeSet<E>())==null;
+	}
+
+	public TreeSet<E> removeVertex(E v)
+	{
+		TreeSet<E> friends = isolateVertex(v);
+		if( friends!=null ) st.remove(v);
+		return friends;
+	}
+
+	public TreeSet<E> isolateVertex(E v)
+	{
+		TreeSet<E> friends = st.get(v);
+		if( friends==null ) return null;
+		for(E w: friends) st.get(w).remove(v);
+		num_edge -= friends.size();
+		st.put(v, new TreeSet<E>());
+		return friends;
+	}
+
+	public boolean addEdge(E v, E w)
+	{
+		if( !st.containsKey(v) || !st.containsKey(w) || v.compareTo(w)==0 ||
+			!st.get(v).add(w) )
+			return false;
+		st.get(w).add(v);
+		num_edge++;
+		return true;
+	}
+
+	public boolean removeEdge(E v, E w)
+	{
+		if( !st.containsKey(v) || !st.containsKey(w) || !st.get(v).remove(w) )
+			return false;
+		st.get(w).remove(v);
+		num_edge--;
+		return true;
+	}
+
+	public void clear()
+	{
+		st.clear();
+		num_edge = 0;
+	}
+
+
+	/***************************************************************************
+							Interrogazioni elementari.
+	***************************************************************************/
+	public NavigableSet<E> vertices()
+	{
+		return Collections.unmodifiableNavigableSet(st.navigableKeySet());
+	}
+
+	public boolean existsVertex(E v)
+	{
+		return st.containsKey(v);
+	}
+
+	public boolean existsEdge(E v, E w)
+	{
+		return st.containsKey(v) && st.get(v).contains(w);
+	}
+
+	public NavigableSet<E> adjacentVertex(E v)
+	{
+		return Collections.unmodifiableNavigableSet(st.get(v));
+	}
+
+	public int numVertex()
+	{
+		return st.size();
+	}
+
+	public int numEdge()
+	{
+		return num_edge;
+	}
+
+
+	/***************************************************************************
+			Distanze da v calcolate con una BFS semplice.
+	***************************************************************************/
+	public Map<E, Integer> distances(E v)
+	{
+		Map<E, Integer> dist = new HashMap<E, Integer>();
+		ArrayDeque<E> queue = new ArrayDeque<E>();
+		dist.put(v, 0);
+		queue.add(v);
+		while( !queue.isEmpty() ){
+			E u = queue.poll();
+			for(E w: st.get(u))
+				if( !dist.containsKey(w) ){
+					dist.put(w, dist.get(u)+1);
+					queue.add(w);
+				}
+		}
+		return dist;
+	}
+
+	public int distance(E v, E w)
+	{
+		Integer d = distances(v).get(w);
+		return d==null ? -1 : d;
+	}
+
+	public int diameter()
+	{
+		int best = 0;
+		for(E v: st.keySet())
+			for(int d: distances(v).values()) best = Math.max(best, d);
+		return best;
+	}
+	/*
+		EFFECTS: distances() restituisce la distanza da v di ogni vertice
+				 raggiungibile, distance() quella di w (-1 se non
+				 raggiungibile), diameter() la maggiore distanza finita fra
+				 due vertici (0 per il grafo vuoto), con una BFS da ogni
+				 vertice.
+	*/
+
+
+	/***************************************************************************
+			Controlla che path sia l'elenco dei vertici intermedi di un
+			cammino minimo fra v e w.
+	***************************************************************************/
+	public String checkPath(E v, E w, Iterable<E> path)
+	{
+		List<E> p = new ArrayList<E>();
+		path.forEach(p::add);
+		int d = distance(v, w),
+			expected = d<=1 ? 0 : d-1;
+		if( p.size()!=expected )
+			return "pathInBetween("+v+", "+w+")="+p+" di "+p.size()+
+				   " vertici invece di "+expected;
+		if( d<=0 ) return null;
+		E prev = v;
+		p.add(w);
+		for(E x: p){
+			if( !existsEdge(prev, x) )
+				return "pathInBetween("+v+", "+w+")="+p+" non è un cammino";
+			prev = x;
+		}
+		return null;
+	}
+	/*
+		EFFECTS: restituisce null se path è valido, altrimenti la
+				 descrizione dell'errore; a parità di lunghezza ogni cammino
+				 minimo è accettato.
+	*/
+
+
+	/***************************************************************************
+			Componenti connesse calcolate per visita: il rappresentante
+			di ogni vertice è il minore della sua componente.
+	***************************************************************************/
+	public Map<E, E> components()
+	{
+		Map<E, E> rep = new HashMap<E, E>();
+		for(E v: st.keySet())
+			if( !rep.containsKey(v) )
+				for(E w: distances(v).keySet()) rep.put(w, v);
+		return rep;
+	}
+
+	public SortedMap<E, Integer> componentSizes()
+	{
+		SortedMap<E, Integer> sizes = new TreeMap<E, Integer>();
+		for(E r: components().values()) sizes.merge(r, 1, Integer::sum);
+		return sizes;
+	}
+
+
+	/***************************************************************************
+			Enumerazioni dirette: coppie di adiacenti di v collegate fra
+			loro e adiacenti comuni di v e w in ordine crescente.
+	***************************************************************************/
+	public long triangles(E v)
+	{
+		List<E> nb = new ArrayList<E>(st.get(v));
+		long t = 0;
+		for(int i=0; i<nb.size(); i++)
+			for(int j=i+1; j<nb.size(); j++)
+				if( existsEdge(nb.get(i), nb.get(j)) ) t++;
+		return t;
+	}
+
+	public List<E> commonNeighbours(E v, E w)
+	{
+		List<E> common = new ArrayList<E>();
+		for(E x: st.get(v))
+			if( st.get(w).contains(x) ) common.add(x);
+		return common;
+	}
+
+
+	/***************************************************************************
+			Vertici presenti in uno solo dei due modelli o con
+			adiacenti diversi.
+	***************************************************************************/
+	public TreeSet<E> changed(ReferenceGraph<E> h)
+	{
+		TreeSet<E> c = new TreeSet<E>();
+		st.forEach((v, friends)->{
+			if( !friends.equals(h.st.get(v)) ) c.add(v);
+		});
+		for(E v: h.st.keySet())
+			if( !st.containsKey(v) ) c.add(v);
+		return c;
+	}
+
+
+	/***************************************************************************
+			Confronta un grafo con il modello: vertici e adiacenti
+			nell'ordine, gradi e numero di archi.
+	***************************************************************************/
+	public String compare(Graph<E> g)
+	{
+		if( g.numVertex()!=st.size() ||
+			!new ArrayList<E>(g.listVertex()).equals(new ArrayList<E>(st.keySet())) )
+			return "vertici "+g.listVertex()+" invece di "+st.keySet();
+		for(Map.Entry<E, TreeSet<E>> e: st.entrySet()){
+			E v = e.getKey();
+			if( !new ArrayList<E>(g.adjacentVertex(v))
+					.equals(new ArrayList<E>(e.getValue())) )
+				return "adjacentVertex("+v+")="+g.adjacentVertex(v)+
+					   " invece di "+e.getValue();
+			if( g.degreeVertex(v)!=e.getValue().size() )
+				return "degreeVertex("+v+")="+g.degreeVertex(v)+
+					   " invece di "+e.getValue().size();
+		}
+		if( g.numEdge()!=num_edge )
+			return "numEdge "+g.numEdge()+" invece di "+num_edge;
+		return null;
+	}
+	/*
+		EFFECTS: restituisce null se g ha gli stessi vertici e archi del
+				 modello, altrimenti la descrizione della prima differenza.
+	*/
+
+
+	/***************************************************************************
+			Grafo casuale sugli interi [0,n) con circa edges archi
+			estratti uniformemente (senza cappi né duplicati).
+	***************************************************************************/
+	public static GraphMap<Integer> random(Random rnd, int n, int edges)
+	{
+		GraphMap<Integer> g = new GraphMap<Integer>(GraphMap.Validation.OFF);
+		for(int v=0; v<n; v++) g.addVertex(v);
+		for(int k=n<2 ? 0 : edges; k>0; k--){
+			int v = rnd.nextInt(n),
+				w = rnd.nextInt(n);
+			if( v!=w && !g.existsEdge(v, w) ) g.addEdge(v, w);
+		}
+		return g;
+	}
+}
@@ -0,0 +1,17 @@
+/* RepInvariantException eccezione dell'invariante di rappresentazione */
+
+/*******************************************************************************
+	Eccezione runtime per la gestione dell'invariante di rappresentazione
+*******************************************************************************/
+class RepInvariantException extends RuntimeException
+{
+	public RepInvariantException()
+	{
+		super();
+	}
+	
+	public RepInvariantException(String str)
+	{
+		super(str);
+	}
+}
@@ -0,0 +1,761 @@
+/* VersionedMap<K,V> mappa ordinata con versioni in sola lettura condivise */
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.NavigableSet;
+import java.util.Iterator;
+import java.util.Deque;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+
+
+class VersionedMap<K extends Comparable<K>, V>
+{
+	/*
+		OVERVIEW:= mappa ordinata modificabile memorizzata in un albero AVL,
+				   usata da GraphMap per i vertici: share() restituisce in
+				   O(1) una versione in sola lettura che condivide tutti i
+				   nodi con this; da quel momento ogni modifica di this
+				   ricrea (come in PersistentGraph) solo i nodi ancora
+				   condivisi sul cammino interessato, in O(log n), e
+				   modifica sul posto quelli creati dopo l'ultimo share().
+				   reclaim() torna a modificare sul posto tutti i nodi,
+				   quando nessuna versione condivisa è più in uso.
+
+		AF:= {<x.key,x.value> | x nodo di root}
+
+		IR:= root è un albero AVL: chiavi non nulle strettamente crescenti
+			 in ordine simmetrico, |height(left)-height(right)|<=1 e
+			 height corretto
+			 && count == numero dei nodi di root
+			 && edit!=null => ogni nodo x con x.owner==edit è raggiungibile
+							  solo da root (nessuna versione lo condivide)
+			 && readOnly => root e i suoi nodi non vengono mai modificati
+	*/
+
+	/***************************************************************************
+		Classe privata dei nodi dell'albero: owner è il token della
+		modifica che li ha creati e che può ancora modificarli sul posto.
+	***************************************************************************/
+	private static final class Node<K, V>
+	{
+		K key;
+		V value;
+		Node<K, V> left, right;
+		int height;
+		final Object owner;
+
+		Node(K key, V value, Node<K, V> left, Node<K, V> right, int height,
+			 Object owner)
+		{
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = height;
+			this.owner = owner;
+		}
+	}
+
+	/***************************************************************************
+								Variabili di istanza.
+	***************************************************************************/
+	private Node<K, V> root = null;
+	private int count = 0;
+	private Object edit = null;
+	private final boolean readOnly;
+	private boolean closed = false;
+	private int mod_count = 0;
+	private V displaced;
+
+
+	/***************************************************************************
+							Costruttore1:
+							istanzia una mappa vuota.
+	***************************************************************************/
+	VersionedMap()
+	{
+		this.readOnly = false;
+	}
+
+
+	/***************************************************************************
+							Costruttore2:
+				istanzia la mappa con le coppie della mappa ordinata
+				passata, in un albero perfettamente bilanciato.
+	***************************************************************************/
+	VersionedMap(SortedMap<K, ? extends V> m)
+	{
+		this.readOnly = false;
+		Object[] keys = new Object[m.size()],
+				 values = new Object[m.size()];
+		int i = 0;
+		for(Map.Entry<K, ? extends V> e: m.entrySet()){
+			keys[i] = e.getKey();
+			values[i++] = e.getValue();
+		}
+		this.root = build(keys, values, 0, keys.length);
+		this.count = keys.length;
+	}
+	/*
+		EFFECTS: costruisce l'albero in O(n) dalle coppie di m, che deve
+				 essere ordinata secondo compareTo.
+	*/
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> Node<K, V> build(Object[] keys, Object[] values,
+										   int from, int to)
+	{
+		if( from>=to ) return null;
+		int mid = (from+to)>>>1;
+		Node<K, V> l = build(keys, values, from, mid),
+				   r = build(keys, values, mid+1, to);
+		return new Node<K, V>((K) keys[mid], (V) values[mid], l, r,
+							  Math.max(height(l), height(r))+1, null);
+	}
+
+
+	/***************************************************************************
+							Costruttore3:
+				istanzia una versione in sola lettura che condivide root.
+	***************************************************************************/
+	private VersionedMap(Node<K, V> root, int count)
+	{
+		this.root = root;
+		this.count = count;
+		this.readOnly = true;
+	}
+
+
+	/***************************************************************************
+			Versioni: share() congela i nodi attuali e li condivide con
+			una nuova versione in sola lettura; reclaim() rende di nuovo
+			modificabili sul posto tutti i nodi; close() rilascia una
+			versione, che non può più essere letta.
+	***************************************************************************/
+	VersionedMap<K, V> share()
+	{
+		check();
+		edit = new Object();
+		return new VersionedMap<K, V>(root, count);
+	}
+
+	void reclaim()
+	{
+		edit = null;
+	}
+
+	void close()
+	{
+		root = null;
+		count = 0;
+		closed = true;
+	}
+	/*
+		MODIFIES: this
+		EFFECTS: share() restituisce in O(1) una versione con le coppie
+				 attuali, che resta invariata qualunque modifica subisca
+				 this; reclaim() va invocato solo quando nessuna versione
+				 restituita da share() viene più letta; dopo close() ogni
+				 lettura lancia IllegalStateException (unchecked).
+	*/
+
+
+	/***************************************************************************
+						Operazioni sull'albero AVL.
+	***************************************************************************/
+	private static int height(Node<?, ?> x)
+	{
+		return x==null ? 0 : x.height;
+	}
+
+	private void check()
+	{
+		if( closed ) throw new IllegalStateException("istantanea chiusa");
+	}
+
+	/* il nodo stesso se modificabile sul posto, altrimenti una sua copia */
+	private Node<K, V> own(Node<K, V> x)
+	{
+		if( edit==null || x.owner==edit ) return x;
+		return new Node<K, V>(x.key, x.value, x.left, x.right, x.height, edit);
+	}
+
+	private Node<K, V> rotateRight(Node<K, V> x)
+	{
+		Node<K, V> l = own(x.left);
+		x.left = l.right;
+		x.height = Math.max(height(x.left), height(x.right))+1;
+		l.right = x;
+		l.height = Math.max(height(l.left), x.height)+1;
+		return l;
+	}
+
+	private Node<K, V> rotateLeft(Node<K, V> x)
+	{
+		Node<K, V> r = own(x.right);
+		x.right = r.left;
+		x.height = Math.max(height(x.left), height(x.right))+1;
+		r.left = x;
+		r.height = Math.max(x.height, height(r.right))+1;
+		return r;
+	}
+
+	/* ribilancia x, già modificabile, dopo la modifica di un figlio */
+	private Node<K, V> balance(Node<K, V> x)
+	{
+		int hl = height(x.left),
+			hr = height(x.right);
+		if( hl>hr+1 ){
+			if( height(x.left.left)<height(x.left.right) )
+				x.left = rotateLeft(own(x.left));
+			return rotateRight(x);
+		}
+		if( hr>hl+1 ){
+			if( height(x.right.right)<height(x.right.left) )
+				x.right = rotateRight(own(x.right));
+			return rotateLeft(x);
+		}
+		x.height = Math.max(hl, hr)+1;
+		return x;
+	}
+
+	private Node<K, V> insert(Node<K, V> x, K k, V v)
+	{
+		if( x==null ){
+			count++;
+			mod_count++;
+			return new Node<K, V>(k, v, null, null, 1, edit);
+		}
+		int c = k.compareTo(x.key);
+		x = own(x);
+		if( c==0 ){
+			displaced = x.value;
+			x.value = v;
+			return x;
+		}
+		if( c<0 ) x.left = insert(x.left, k, v);
+		else x.right = insert(x.right, k, v);
+		return balance(x);
+	}
+
+	private Node<K, V> delete(Node<K, V> x, K k)
+	{
+		int c = k.compareTo(x.key);
+		x = own(x);
+		if( c<0 ) x.left = delete(x.left, k);
+		else if( c>0 ) x.right = delete(x.right, k);
+		else{
+			if( x.left==null ) return x.right;
+			if( x.right==null ) return x.left;
+			Node<K, V> m = x.right;
+			while( m.left!=null ) m = m.left;
+			x.key = m.key;
+			x.value = m.value;
+			x.right = deleteMin(x.right);
+		}
+		return balance(x);
+	}
+
+	private Node<K, V> deleteMin(Node<K, V> x)
+	{
+		if( x.left==null ) return x.right;
+		x = own(x);
+		x.left = deleteMin(x.left);
+		return balance(x);
+	}
+
+
+	/***************************************************************************
+							Ricerche nell'albero.
+	***************************************************************************/
+	private Node<K, V> find(K k)
+	{
+		check();
+		if( k==null ) throw new NullPointerException("passato oggetto nullo");
+		Node<K, V> x = root;
+		while( x!=null ){
+			int c = k.compareTo(x.key);
+			if( c==0 ) return x;
+			x = c<0 ? x.left : x.right;
+		}
+		return null;
+	}
+
+	/* nodo con la chiave minima >k (strict) o >=k, null se non esiste */
+	private Node<K, V> above(K k, boolean strict)
+	{
+		check();
+		Node<K, V> x = root,
+				   best = null;
+		while( x!=null ){
+			int c = k.compareTo(x.key);
+			if( c<0 || c==0 && !strict ){
+				best = x;
+				if( c==0 ) return x;
+				x = x.left;
+			}
+			else x = x.right;
+		}
+		return best;
+	}
+
+	/* nodo con la chiave massima <k (strict) o <=k, null se non esiste */
+	private Node<K, V> below(K k, boolean strict)
+	{
+		check();
+		Node<K, V> x = root,
+				   best = null;
+		while( x!=null ){
+			int c = k.compareTo(x.key);
+			if( c>0 || c==0 && !strict ){
+				best = x;
+				if( c==0 ) return x;
+				x = x.right;
+			}
+			else x = x.left;
+		}
+		return best;
+	}
+
+	private Node<K, V> extreme(boolean last)
+	{
+		check();
+		Node<K, V> x = root;
+		if( x!=null )
+			while( (last ? x.right : x.left)!=null ) x = last ? x.right : x.left;
+		return x;
+	}
+
+
+	/***************************************************************************
+				Interrogazioni e modifiche, come in TreeMap.
+	***************************************************************************/
+	public V get(K k)
+	{
+		Node<K, V> x = find(k);
+		return x==null ? null : x.value;
+	}
+
+	public boolean containsKey(K k)
+	{
+		return find(k)!=null;
+	}
+
+	public int size()
+	{
+		check();
+		return count;
+	}
+
+	public boolean isEmpty()
+	{
+		return size()==0;
+	}
+
+	public K firstKey()
+	{
+		Node<K, V> x = extreme(false);
+		if( x==null ) throw new NoSuchElementException();
+		return x.key;
+	}
+
+	public K higherKey(K k)
+	{
+		Node<K, V> x = above(k, true);
+		return x==null ? null : x.key;
+	}
+
+	public V put(K k, V v)
+	{
+		writable();
+		if( k==null ) throw new NullPointerException("passato oggetto nullo");
+		displaced = null;
+		root = insert(root, k, v);
+		V old = displaced;
+		displaced = null;
+		return old;
+	}
+
+	public V remove(K k)
+	{
+		writable();
+		Node<K, V> x = find(k);
+		if( x==null ) return null;
+		V old = x.value;
+		root = delete(root, k);
+		count--;
+		mod_count++;
+		return old;
+	}
+
+	private void writable()
+	{
+		check();
+		if( readOnly )
+			throw new UnsupportedOperationException("istantanea non modificabile");
+	}
+	/*
+		EFFECTS: get(), containsKey(), size(), isEmpty(), firstKey() e
+				 higherKey() si comportano come in TreeMap; put() e remove()
+				 anche, ricreando i nodi condivisi con una versione invece
+				 di modificarli.
+				 Se k==null lanciano NullPointerException (unchecked).
+				 Dopo close() lanciano IllegalStateException (unchecked);
+				 put() e remove() su una versione restituita da share()
+				 lanciano UnsupportedOperationException (unchecked).
+	*/
+
+
+	/***************************************************************************
+			Viste sulle chiavi, sui valori e sulle coppie, in ordine
+			crescente di chiave; non modificabili.
+	***************************************************************************/
+	public NavigableSet<K> keySet()
+	{
+		return all();
+	}
+
+	public NavigableSet<K> navigableKeySet()
+	{
+		return keySet();
+	}
+
+	private Keys all()
+	{
+		check();
+		return new Keys(null, false, true, null, false, true, false);
+	}
+
+	private Keys.Walk walk()
+	{
+		return all().new Walk(true);
+	}
+
+	public Collection<V> values()
+	{
+		return new AbstractCollection<V>(){
+			public int size(){ return VersionedMap.this.size(); }
+
+			public Iterator<V> iterator()
+			{
+				Keys.Walk w = walk();
+				return new Iterator<V>(){
+					public boolean hasNext(){ return w.hasNext(); }
+					public V next(){ return w.node().value; }
+				};
+			}
+		};
+	}
+
+	public Set<Map.Entry<K, V>> entrySet()
+	{
+		return new AbstractSet<Map.Entry<K, V>>(){
+			public int size(){ return VersionedMap.this.size(); }
+
+			public Iterator<Map.Entry<K, V>> iterator()
+			{
+				Keys.Walk w = walk();
+				return new Iterator<Map.Entry<K, V>>(){
+					public boolean hasNext(){ return w.hasNext(); }
+
+					public Map.Entry<K, V> next()
+					{
+						Node<K, V> x = w.node();
+						return new AbstractMap.SimpleImmutableEntry<K, V>(
+							x.key, x.value
+						);
+					}
+				};
+			}
+		};
+	}
+
+	public void forEach(BiConsumer<? super K, ? super V> action)
+	{
+		for(Keys.Walk w = walk(); w.hasNext(); ){
+			Node<K, V> x = w.node();
+			action.accept(x.key, x.value);
+		}
+	}
+	/*
+		EFFECTS: restituiscono viste aggiornate di this, come quelle di
+				 TreeMap: gli iteratori lanciano
+				 ConcurrentModificationException (unchecked) se this riceve
+				 un'aggiunta o una rimozione durante la visita.
+	*/
+
+
+	/***************************************************************************
+		Classe privata delle viste sulle chiavi comprese fra lo e hi
+		(senza limite se fromStart, toEnd), in ordine crescente o
+		decrescente (descending).
+	***************************************************************************/
+	private final class Keys extends AbstractSet<K> implements NavigableSet<K>
+	{
+		private final K lo, hi;
+		private final boolean loInclusive, fromStart,
+							  hiInclusive, toEnd,
+							  descending;
+
+		Keys(K lo, boolean loInclusive, boolean fromStart,
+			 K hi, boolean hiInclusive, boolean toEnd, boolean descending)
+		{
+			this.lo = lo;
+			this.loInclusive = loInclusive;
+			this.fromStart = fromStart;
+			this.hi = hi;
+			this.hiInclusive = hiInclusive;
+			this.toEnd = toEnd;
+			this.descending = descending;
+		}
+
+		/* limiti dell'intervallo, in ordine crescente */
+		private boolean tooLow(K k)
+		{
+			if( fromStart ) return false;
+			int c = k.compareTo(lo);
+			return c<0 || c==0 && !loInclusive;
+		}
+
+		private boolean tooHigh(K k)
+		{
+			if( toEnd ) return false;
+			int c = k.compareTo(hi);
+			return c>0 || c==0 && !hiInclusive;
+		}
+
+		private boolean inRange(K k, boolean inclusive)
+		{
+			if( inclusive ) return !tooLow(k) && !tooHigh(k);
+			return (fromStart || k.compareTo(lo)>=0) &&
+				   (toEnd || k.compareTo(hi)<=0);
+		}
+
+		private Node<K, V> lowest()
+		{
+			Node<K, V> x = fromStart ? extreme(false) : above(lo, !loInclusive);
+			return x==null || tooHigh(x.key) ? null : x;
+		}
+
+		private Node<K, V> highest()
+		{
+			Node<K, V> x = toEnd ? extreme(true) : below(hi, !hiInclusive);
+			return x==null || tooLow(x.key) ? null : x;
+		}
+
+		private Node<K, V> up(K k, boolean strict)
+		{
+			if( tooLow(k) ) return lowest();
+			Node<K, V> x = above(k, strict);
+			return x==null || tooHigh(x.key) ? null : x;
+		}
+
+		private Node<K, V> down(K k, boolean strict)
+		{
+			if( tooHigh(k) ) return highest();
+			Node<K, V> x = below(k, strict);
+			return x==null || tooLow(x.key) ? null : x;
+		}
+
+		private K key(Node<K, V> x)
+		{
+			return x==null ? null : x.key;
+		}
+
+		private Keys range(K from, boolean fromInclusive, boolean noFrom,
+						   K to, boolean toInclusive, boolean noTo)
+		{
+			if( !noFrom && !noTo && from.compareTo(to)>0 )
+				throw new IllegalArgumentException("fromKey > toKey");
+			if( !noFrom && !inRange(from, fromInclusive) )
+				throw new IllegalArgumentException("fromKey fuori intervallo");
+			if( !noTo && !inRange(to, toInclusive) )
+				throw new IllegalArgumentException("toKey fuori intervallo");
+			return new Keys(noFrom ? lo : from,
+							noFrom ? loInclusive : fromInclusive,
+							noFrom && fromStart,
+							noTo ? hi : to,
+							noTo ? hiInclusive : toInclusive,
+							noTo && toEnd, descending);
+		}
+
+		public int size()
+		{
+			if( fromStart && toEnd ) return VersionedMap.this.size();
+			int n = 0;
+			for(Iterator<K> i=iterator(); i.hasNext(); i.next()) n++;
+			return n;
+		}
+
+		public boolean isEmpty()
+		{
+			return lowest()==null;
+		}
+
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o)
+		{
+			K k = (K) o;
+			return find(k)!=null && !tooLow(k) && !tooHigh(k);
+		}
+
+		public Comparator<? super K> comparator()
+		{
+			return descending ? Collections.reverseOrder() : null;
+		}
+
+		public K first()
+		{
+			Node<K, V> x = descending ? highest() : lowest();
+			if( x==null ) throw new NoSuchElementException();
+			return x.key;
+		}
+
+		public K last()
+		{
+			Node<K, V> x = descending ? lowest() : highest();
+			if( x==null ) throw new NoSuchElementException();
+			return x.key;
+		}
+
+		public K lower(K k)
+		{
+			return key(descending ? up(k, true) : down(k, true));
+		}
+
+		public K floor(K k)
+		{
+			return key(descending ? up(k, false) : down(k, false));
+		}
+
+		public K ceiling(K k)
+		{
+			return key(descending ? down(k, false) : up(k, false));
+		}
+
+		public K higher(K k)
+		{
+			return key(descending ? down(k, true) : up(k, true));
+		}
+
+		public K pollFirst()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		public K pollLast()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		public Iterator<K> iterator()
+		{
+			return new Walk(!descending);
+		}
+
+		public Iterator<K> descendingIterator()
+		{
+			return new Walk(descending);
+		}
+
+		public NavigableSet<K> descendingSet()
+		{
+			return new Keys(lo, loInclusive, fromStart, hi, hiInclusive, toEnd,
+							!descending);
+		}
+
+		public NavigableSet<K> subSet(K from, boolean fromInclusive,
+									  K to, boolean toInclusive)
+		{
+			return descending
+				? range(to, toInclusive, false, from, fromInclusive, false)
+				: range(from, fromInclusive, false, to, toInclusive, false);
+		}
+
+		public NavigableSet<K> headSet(K to, boolean inclusive)
+		{
+			return descending ? range(to, inclusive, false, null, false, true)
+							  : range(null, false, true, to, inclusive, false);
+		}
+
+		public NavigableSet<K> tailSet(K from, boolean inclusive)
+		{
+			return descending ? range(null, false, true, from, inclusive, false)
+							  : range(from, inclusive, false, null, false, true);
+		}
+
+		public SortedSet<K> subSet(K from, K to)
+		{
+			return subSet(from, true, to, false);
+		}
+
+		public SortedSet<K> headSet(K to)
+		{
+			return headSet(to, false);
+		}
+
+		public SortedSet<K> tailSet(K from)
+		{
+			return tailSet(from, true);
+		}
+
+
+		/* visita simmetrica dell'intervallo con una pila dei nodi di cui
+		   restano da visitare la chiave ed il sottoalbero destro
+		   (sinistro se decrescente) */
+		private final class Walk implements Iterator<K>
+		{
+			private final Deque<Node<K, V>> stack = new ArrayDeque<Node<K, V>>();
+			private final boolean ascending;
+			private final int expected = mod_count;
+
+			Walk(boolean ascending)
+			{
+				this.ascending = ascending;
+				check();
+				for(Node<K, V> x=root; x!=null; )
+					if( ascending ? tooLow(x.key) : tooHigh(x.key) )
+						x = ascending ? x.right : x.left;
+					else{
+						stack.push(x);
+						x = ascending ? x.left : x.right;
+					}
+			}
+
+			public boolean hasNext()
+			{
+				if( stack.isEmpty() ) return false;
+				K k = stack.peek().key;
+				return ascending ? !tooHigh(k) : !tooLow(k);
+			}
+
+			Node<K, V> node()
+			{
+				check();
+				if( mod_count!=expected ) throw new ConcurrentModificationException();
+				if( !hasNext() ) throw new NoSuchElementException();
+				Node<K, V> x = stack.pop();
+				for(Node<K, V> y=ascending ? x.right : x.left; y!=null;
+					y=ascending ? y.left : y.right)
+					stack.push(y);
+				return x;
+			}
+
+			public K next()
+			{
+				return node().key;
+			}
+		}
+	}
+}